@@ -0,0 +1,101 @@
+package core;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ColumnKernels} on the incubating Vector API, at the preferred width for this CPU. The
+ * tails that do not fill a vector go through {@link ScalarKernels}. Only loaded by
+ * {@link ColumnKernels#best} when the module is present.
+ */
+final class VectorKernels implements ColumnKernels {
+
+    private static final VectorSpecies<Byte> B = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> S = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> L = LongVector.SPECIES_PREFERRED;
+    // blocks per short accumulator flush: 64 * 2 * 255 stays below Short.MAX_VALUE
+    private static final int FLUSH = 64;
+
+    private final ScalarKernels tail = new ScalarKernels();
+    private final int lanes = B.length();
+
+    @Override
+    public long sum(byte[] a, int n) {
+        int bound = B.loopBound(n);
+        long total = 0;
+        int i = 0;
+        while (i < bound) {
+            ShortVector acc = ShortVector.zero(S);
+            for (int k = 0; k < FLUSH && i < bound; k++, i += lanes) {
+                // each short lane holds two unsigned bytes: add the low and the high one
+                ShortVector s = ByteVector.fromArray(B, a, i).reinterpretAsShorts();
+                acc = acc.add(s.and((short) 0xFF)).add(s.lanewise(VectorOperators.LSHR, 8));
+            }
+            IntVector w = acc.reinterpretAsInts();
+            total += w.and(0xFFFF).add(w.lanewise(VectorOperators.LSHR, 16)).reduceLanesToLong(VectorOperators.ADD);
+        }
+        return total + ScalarKernels.sum(a, bound, n);
+    }
+
+    @Override
+    public void histogram(byte[] a, int n, long[] counts) {
+        int buckets = counts.length;
+        if (buckets > 32) {
+            // one compare per bucket stops paying off well before 256 buckets
+            tail.histogram(a, n, counts);
+            return;
+        }
+        int bound = B.loopBound(n);
+        for (int i = 0; i < bound; i += lanes) {
+            ByteVector v = ByteVector.fromArray(B, a, i);
+            for (int b = 0; b < buckets; b++) counts[b] += v.eq((byte) b).trueCount();
+        }
+        ScalarKernels.histogram(a, bound, n, counts);
+    }
+
+    @Override
+    public int filterAtLeast(byte[] a, int n, int threshold, int[] out) {
+        if (threshold > 255) return 0;
+        if (threshold <= 0 || lanes > 64) return tail.filterAtLeast(a, n, threshold, out);
+        int bound = B.loopBound(n);
+        int c = 0;
+        for (int i = 0; i < bound; i += lanes) {
+            long bits = ByteVector.fromArray(B, a, i).compare(VectorOperators.UNSIGNED_GE, (byte) threshold).toLong();
+            for (; bits != 0; bits &= bits - 1) out[c++] = i + Long.numberOfTrailingZeros(bits);
+        }
+        for (int i = bound; i < n; i++) if ((a[i] & 0xFF) >= threshold) out[c++] = i;
+        return c;
+    }
+
+    @Override
+    public int countInvalid(byte[] intensity, byte[] type, long[] ts, int n, int types, long minTs, long maxTs) {
+        int step = L.length();
+        if (lanes > 64 || lanes % step != 0) return tail.countInvalid(intensity, type, ts, n, types, minTs, maxTs);
+        boolean anyType = types > 255;
+        int bound = B.loopBound(n);
+        int bad = 0;
+        for (int i = 0; i < bound; i += lanes) {
+            // intensity - 1 read unsigned is above 9 exactly when intensity is outside 1..10
+            VectorMask<Byte> m = ByteVector.fromArray(B, intensity, i).sub((byte) 1).compare(VectorOperators.UNSIGNED_GT, (byte) 9);
+            if (!anyType) m = m.or(ByteVector.fromArray(B, type, i).compare(VectorOperators.UNSIGNED_GE, (byte) types));
+            long bits = m.toLong();
+            for (int j = 0; j < lanes; j += step) {
+                LongVector t = LongVector.fromArray(L, ts, i + j);
+                bits |= t.lt(minTs).or(t.compare(VectorOperators.GT, maxTs)).toLong() << j;
+            }
+            bad += Long.bitCount(bits);
+        }
+        for (int i = bound; i < n; i++) {
+            int v = intensity[i] & 0xFF;
+            if (v < 1 || v > 10 || (type[i] & 0xFF) >= types || ts[i] < minTs || ts[i] > maxTs) bad++;
+        }
+        return bad;
+    }
+
+    @Override public String name() { return "vector-" + B.vectorBitSize(); }
+}
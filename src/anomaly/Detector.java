@@ -0,0 +1,21 @@
+package anomaly;
+
+/**
+ * An online anomaly detector over one metric series. {@link #update} scores a sample against
+ * the model built from the samples before it, then folds the sample in. Time and memory per
+ * sample are bounded by the detector's window or season, not by the length of the series.
+ * Not thread-safe.
+ */
+public interface Detector {
+
+    /** Signed deviation of {@code x} in units of the model's spread; 0 until {@link #warm()}. */
+    double update(double x);
+
+    /** True once enough samples have been seen for the score to mean something. */
+    boolean warm();
+
+    /** Absolute score at or above which a sample counts as anomalous. */
+    double threshold();
+
+    String name();
+}
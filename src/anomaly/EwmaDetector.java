@@ -0,0 +1,41 @@
+package anomaly;
+
+/** Z-score against an exponentially weighted mean and variance (incremental form, no history). */
+public final class EwmaDetector implements Detector {
+
+    private final double alpha;
+    private final double threshold;
+    private final double minSigma;
+    private final int warmup;
+    private double mean, var;
+    private long n;
+
+    /** {@code minSigma} keeps a flat series from turning tiny wiggles into huge scores. */
+    public EwmaDetector(double alpha, double threshold, double minSigma) {
+        if (!(alpha > 0 && alpha < 1)) throw new IllegalArgumentException("alpha must be in (0, 1)");
+        this.alpha = alpha;
+        this.threshold = threshold;
+        this.minSigma = minSigma;
+        this.warmup = (int) Math.ceil(2 / alpha);
+    }
+
+    @Override
+    public double update(double x) {
+        if (n++ == 0) {
+            mean = x;
+            return 0;
+        }
+        double diff = x - mean;
+        double score = n > warmup ? diff / Math.max(minSigma, Math.sqrt(var)) : 0;
+        double incr = alpha * diff;
+        mean += incr;
+        var = (1 - alpha) * (var + diff * incr);
+        return score;
+    }
+
+    @Override public boolean warm() { return n > warmup; }
+    @Override public double threshold() { return threshold; }
+    @Override public String name() { return "ewma"; }
+
+    public double mean() { return mean; }
+}
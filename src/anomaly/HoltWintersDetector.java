@@ -0,0 +1,70 @@
+package anomaly;
+
+/**
+ * Additive Holt-Winters baseline (level, trend, one seasonal slot per position in the period).
+ * The score is the one-step forecast error over an EWMA of past errors, so a daily or hourly
+ * cycle that would inflate a plain z-score is part of the baseline instead. Memory is one double
+ * per season slot; the first season only initialises the model and the second warms the error.
+ */
+public final class HoltWintersDetector implements Detector {
+
+    /** Smoothing of the squared error; slower than the level so one outlier barely moves it. */
+    private static final double ERR_ALPHA = 0.02;
+
+    private final double alpha, beta, gamma;
+    private final double threshold;
+    private final double minSigma;
+    private final double[] season;
+    private double level, trend, errVar;
+    private long n;
+
+    public HoltWintersDetector(int period, double alpha, double beta, double gamma, double threshold, double minSigma) {
+        if (period < 2) throw new IllegalArgumentException("period must be at least 2");
+        this.season = new double[period];
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.threshold = threshold;
+        this.minSigma = minSigma;
+    }
+
+    /** Usual smoothing constants for a period of {@code period} samples. */
+    public HoltWintersDetector(int period, double threshold, double minSigma) {
+        this(period, 0.2, 0.01, 0.1, threshold, minSigma);
+    }
+
+    @Override
+    public double update(double x) {
+        int m = season.length;
+        int slot = (int) (n % m);
+        if (n < m) {
+            // first period: seasonal slots hold raw values, the level is their running mean
+            season[slot] = x;
+            level += (x - level) / (n + 1);
+            if (++n == m) for (int i = 0; i < m; i++) season[i] -= level;
+            return 0;
+        }
+        double forecast = level + trend + season[slot];
+        double err = x - forecast;
+        double sigma = Math.max(minSigma, Math.sqrt(errVar));
+        double score = n >= 2L * m ? err / sigma : 0;
+        // winsorized once warm, so an anomaly does not widen the band it is judged against
+        double e = n >= 2L * m ? Math.min(Math.abs(err), threshold * sigma) : err;
+        errVar += ERR_ALPHA * (e * e - errVar);
+
+        double prevLevel = level;
+        level = alpha * (x - season[slot]) + (1 - alpha) * (level + trend);
+        trend = beta * (level - prevLevel) + (1 - beta) * trend;
+        season[slot] = gamma * (x - level) + (1 - gamma) * season[slot];
+        n++;
+        return score;
+    }
+
+    @Override public boolean warm() { return n >= 2L * season.length; }
+    @Override public double threshold() { return threshold; }
+    @Override public String name() { return "holt-winters"; }
+
+    public double forecast() {
+        return n < season.length ? level : level + trend + season[(int) (n % season.length)];
+    }
+}
@@ -0,0 +1,84 @@
+package anomaly;
+
+import cti.SystemStatsReader;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Samples host CPU and memory from {@link SystemStatsReader} on a daemon thread and runs each
+ * series through a {@link SeriesMonitor}. Alerts go to the listener on the sampling thread, so
+ * it should hand them off (e.g. to an {@code AttackSink}); {@link SeriesMonitor.Anomaly#sampleNanos}
+ * lets the consumer measure how long detection plus delivery took.
+ */
+public final class HostAnomalyMonitor implements AutoCloseable {
+
+    private static final Counter SAMPLES = Metrics.counter("anomaly.samples");
+    private static final Counter ALERTS = Metrics.counter("anomaly.alerts");
+    private static final LatencyHistogram SCORE_TIME = Metrics.histogram("anomaly.score");
+
+    private final long periodMs;
+    private final SeriesMonitor cpu;
+    private final SeriesMonitor mem;
+    private final Consumer<SeriesMonitor.Anomaly> listener;
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "host-anomaly");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile double lastCpu = -1, lastMem = -1;
+    private volatile long alerts;
+
+    /** {@code season} is the cycle the Holt-Winters baseline learns, in samples. */
+    public HostAnomalyMonitor(long periodMs, int season, Consumer<SeriesMonitor.Anomaly> listener) {
+        if (periodMs <= 0) throw new IllegalArgumentException("period must be positive");
+        this.periodMs = periodMs;
+        this.cpu = SeriesMonitor.hostDefaults("cpu", season);
+        this.mem = SeriesMonitor.hostDefaults("mem", season);
+        this.listener = listener;
+    }
+
+    public void start() {
+        sampler.scheduleAtFixedRate(this::sample, 0, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void sample() {
+        long t0 = System.nanoTime();
+        double c = SystemStatsReader.getCpuPercent();
+        double m = SystemStatsReader.getMemoryPercent();
+        long t1 = System.nanoTime();
+        // -1 means the platform did not report the value this time; skip rather than feed a dip
+        SeriesMonitor.Anomaly a = c >= 0 ? cpu.observe(c, t0) : null;
+        SeriesMonitor.Anomaly b = m >= 0 ? mem.observe(m, t0) : null;
+        SCORE_TIME.record(System.nanoTime() - t1);
+        SAMPLES.increment();
+        lastCpu = c;
+        lastMem = m;
+        if (a != null) deliver(a);
+        if (b != null) deliver(b);
+    }
+
+    private void deliver(SeriesMonitor.Anomaly a) {
+        alerts++;
+        ALERTS.increment();
+        listener.accept(a);
+    }
+
+    public long alertCount() { return alerts; }
+
+    public String stats() {
+        return String.format(Locale.ROOT, "Host: cpu %.0f%% mem %.0f%%, %d samples, %d anomalies",
+                lastCpu, lastMem, cpu.sampleCount(), alerts);
+    }
+
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+    }
+}
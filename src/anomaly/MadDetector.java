@@ -0,0 +1,100 @@
+package anomaly;
+
+import java.util.Arrays;
+
+/**
+ * Robust z-score against the median and median absolute deviation of the last {@code window}
+ * samples. The window is kept sorted next to its ring buffer: a sample costs a few binary searches
+ * and two shifts of at most {@code window} doubles, so the work per sample is bounded by the
+ * window and independent of the stream length.
+ */
+public final class MadDetector implements Detector {
+
+    /** Scales MAD to a standard deviation for normally distributed data. */
+    private static final double MAD_TO_SIGMA = 1.4826;
+
+    private final double[] ring;
+    private final double[] sorted;
+    private final double threshold;
+    private final double minSigma;
+    private int size, head;
+
+    public MadDetector(int window, double threshold, double minSigma) {
+        if (window < 3) throw new IllegalArgumentException("window must be at least 3");
+        this.ring = new double[window];
+        this.sorted = new double[window];
+        this.threshold = threshold;
+        this.minSigma = minSigma;
+    }
+
+    @Override
+    public double update(double x) {
+        double score = 0;
+        if (warm()) {
+            double med = median();
+            score = (x - med) / Math.max(minSigma, MAD_TO_SIGMA * mad(med));
+        }
+        if (size == ring.length) remove(ring[head], size--);
+        ring[head] = x;
+        head = (head + 1) % ring.length;
+        insert(x, size++);
+        return score;
+    }
+
+    @Override public boolean warm() { return size == ring.length; }
+    @Override public double threshold() { return threshold; }
+    @Override public String name() { return "mad"; }
+
+    public double median() {
+        int n = size;
+        if (n == 0) return 0;
+        return (n & 1) == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2;
+    }
+
+    /** Median of |x - med|. */
+    private double mad(double med) {
+        int n = size;
+        int split = upperBound(med, n);
+        return (n & 1) == 1 ? kthDeviation(n / 2 + 1, med, split)
+                : (kthDeviation(n / 2, med, split) + kthDeviation(n / 2 + 1, med, split)) / 2;
+    }
+
+    /**
+     * k-th smallest (1-based) |x - med|. Deviations grow moving away from the median on either
+     * side, so they form two sorted runs and the k-th of their merge is a binary search over how
+     * many come from the left run.
+     */
+    private double kthDeviation(int k, double med, int split) {
+        int left = split, right = size - split;
+        int lo = Math.max(0, k - right), hi = Math.min(k, left);
+        while (lo < hi) {
+            int i = (lo + hi) >>> 1;                        // i from the left, k - i from the right
+            if (med - sorted[split - 1 - i] < sorted[split + k - i - 1] - med) lo = i + 1;
+            else hi = i;
+        }
+        double a = lo > 0 ? med - sorted[split - lo] : Double.NEGATIVE_INFINITY;
+        double b = k - lo > 0 ? sorted[split + k - lo - 1] - med : Double.NEGATIVE_INFINITY;
+        return Math.max(a, b);
+    }
+
+    private void insert(double x, int n) {
+        int i = upperBound(x, n);
+        System.arraycopy(sorted, i, sorted, i + 1, n - i);
+        sorted[i] = x;
+    }
+
+    private void remove(double x, int n) {
+        int i = Arrays.binarySearch(sorted, 0, n, x);
+        System.arraycopy(sorted, i + 1, sorted, i, n - i - 1);
+    }
+
+    private int upperBound(double x, int n) {
+        int lo = 0, hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= x) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
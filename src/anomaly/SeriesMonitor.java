@@ -0,0 +1,86 @@
+package anomaly;
+
+import cti.Attacker;
+
+/**
+ * Runs several {@link Detector}s over one series and turns their scores into alerts. A series
+ * fires once when any warm detector crosses its threshold, then stays quiet until every score is
+ * back under half its threshold, so a sustained excursion is one alert rather than one per sample.
+ * Not thread-safe.
+ */
+public final class SeriesMonitor {
+
+    /** One alert: the detector that crossed furthest past its threshold. */
+    public record Anomaly(String series, String detector, double value, double score, double threshold, long sampleNanos) {
+
+        /** 6 at the threshold, 10 at twice of it. */
+        public int intensity() {
+            return (int) Math.max(1, Math.min(10, Math.round(2 + 4 * Math.abs(score) / threshold)));
+        }
+
+        /** The alert as an {@link Attacker.AttackType#ANOMALY_SPIKE} from the local host. */
+        public Attacker<String> toAttacker() {
+            return new Attacker<>("host-" + series + "/" + detector, "127.0.0.1", Attacker.AttackType.ANOMALY_SPIKE, intensity());
+        }
+    }
+
+    private final String name;
+    private final Detector[] detectors;
+    private final double[] scores;
+    private final long[] fired;
+    private boolean armed = true;
+    private long samples;
+
+    public SeriesMonitor(String name, Detector... detectors) {
+        if (detectors.length == 0) throw new IllegalArgumentException("at least one detector");
+        this.name = name;
+        this.detectors = detectors.clone();
+        this.scores = new double[detectors.length];
+        this.fired = new long[detectors.length];
+    }
+
+    /** Thresholds for CPU or memory percentages; {@code season} is the Holt-Winters cycle in samples. */
+    public static SeriesMonitor hostDefaults(String name, int season) {
+        return new SeriesMonitor(name,
+                new EwmaDetector(0.05, 4, 0.5),
+                new MadDetector(120, 5, 0.5),
+                new HoltWintersDetector(season, 4, 0.5));
+    }
+
+    /** Feeds one sample; returns the alert it raised, or null. */
+    public Anomaly observe(double x, long sampleNanos) {
+        samples++;
+        int worst = -1;
+        double worstRatio = 0;
+        boolean quiet = true;
+        for (int i = 0; i < detectors.length; i++) {
+            Detector d = detectors[i];
+            double s = d.update(x);
+            scores[i] = s;
+            double ratio = Math.abs(s) / d.threshold();
+            if (ratio >= 0.5) quiet = false;
+            if (d.warm() && ratio >= 1 && ratio > worstRatio) {
+                worst = i;
+                worstRatio = ratio;
+            }
+        }
+        if (!armed) {
+            armed = quiet;
+            return null;
+        }
+        if (worst < 0) return null;
+        armed = false;
+        fired[worst]++;
+        Detector d = detectors[worst];
+        return new Anomaly(name, d.name(), x, scores[worst], d.threshold(), sampleNanos);
+    }
+
+    public String name() { return name; }
+    public int detectorCount() { return detectors.length; }
+    public Detector detector(int i) { return detectors[i]; }
+    /** Score of detector {@code i} for the last sample. */
+    public double score(int i) { return scores[i]; }
+    /** Alerts attributed to detector {@code i}. */
+    public long firedCount(int i) { return fired[i]; }
+    public long sampleCount() { return samples; }
+}
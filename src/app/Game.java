@@ -2,54 +2,77 @@ package app;
 
 import games.MemoryOverload;
 import games.DDoSSimulator;
+import games.ModuleScheduler;
+import games.SimModule;
 import games.StackOverflowSim;
 
 import javafx.application.Application;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
+import javafx.scene.control.Tooltip;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
 public class Game extends Application {
+
+    // one pulse for every tab; hidden tabs are not drawn
+    private final ModuleScheduler scheduler = new ModuleScheduler();
+    private final Map<Tab, Supplier<SimModule>> factories = new HashMap<>();
+    private TabPane tabs;
+
     @Override
     public void start(Stage stage) {
         stage.setTitle("Cyber Threats Simulator — Main");
 
-        TabPane tabs = new TabPane();
-
-        Tab memTab = new Tab("Memory Overload", new MemoryOverload().createView());
-        memTab.setClosable(false);
-
-        Tab ddosTab = new Tab("DDoS Simulator", new DDoSSimulator().createView());
-        ddosTab.setClosable(false);
-
-        Tab stackTab = new Tab("Stack Overflow", new StackOverflowSim().createView());
-        stackTab.setClosable(false);
+        tabs = new TabPane();
+        addTab(MemoryOverload::new, false);
+        addTab(DDoSSimulator::new, false);
+        addTab(StackOverflowSim::new, false);
 
-        tabs.getTabs().addAll(memTab, ddosTab, stackTab);
-
-        BorderPane root = new BorderPane(tabs);
+        // FPS / frame-time overlay, fed with the status line below
+        Label overlay = new Label(scheduler.governor().overlay());
+        overlay.setMouseTransparent(true);
+        overlay.setStyle("-fx-background-color:rgba(0,0,0,0.55); -fx-text-fill:#e5e7eb; -fx-padding:3 8; -fx-font-family:monospace;");
+        StackPane.setAlignment(overlay, Pos.BOTTOM_RIGHT);
+        BorderPane root = new BorderPane(new StackPane(tabs, overlay));
 
         HBox bottom = new HBox(12);
         bottom.setStyle("-fx-padding:10; -fx-alignment:center;");
         Button startAll = new Button("Start All");
         Button stopAll = new Button("Stop All");
-        startAll.setOnAction(e -> {
-            MemoryOverload.startSimulationStatic();
-            DDoSSimulator.startSimulationStatic();
-            StackOverflowSim.startSimulationStatic();
+        Button another = new Button("New Instance");
+        another.setTooltip(new Tooltip("Open another copy of the selected simulator"));
+        CheckBox simulateHidden = new CheckBox("Simulate hidden tabs");
+        simulateHidden.setSelected(true);
+        Label status = new Label(scheduler.stats());
+        startAll.setOnAction(e -> scheduler.startAll());
+        stopAll.setOnAction(e -> scheduler.stopAll());
+        another.setOnAction(e -> {
+            Supplier<SimModule> factory = factories.get(tabs.getSelectionModel().getSelectedItem());
+            if (factory != null) tabs.getSelectionModel().select(addTab(factory, true));
         });
-        stopAll.setOnAction(e -> {
-            MemoryOverload.stopSimulationStatic();
-            DDoSSimulator.stopSimulationStatic();
-            StackOverflowSim.stopSimulationStatic();
+        simulateHidden.selectedProperty().addListener((obs, o, n) -> scheduler.setSimulateHidden(n));
+        scheduler.setStatusListener(text -> {
+            status.setText(text);
+            overlay.setText(scheduler.governor().overlay());
         });
-        bottom.getChildren().addAll(startAll, stopAll);
+        bottom.getChildren().addAll(startAll, stopAll, another, simulateHidden, status);
         root.setBottom(bottom);
 
+        stage.iconifiedProperty().addListener((obs, o, n) -> scheduler.setWindowVisible(!n));
+        stage.setOnHidden(e -> scheduler.stopAll());
+
         Scene scene = new Scene(root, 1200, 760);
         try { scene.getStylesheets().add(getClass().getResource("/styles.css").toExternalForm()); } catch (Exception ex) { /* ignore */ }
 
@@ -57,6 +80,22 @@ public class Game extends Application {
         stage.show();
     }
 
+    private Tab addTab(Supplier<SimModule> factory, boolean closable) {
+        SimModule module = factory.get();
+        Tab tab = new Tab(module.title(), module.createView());
+        tab.setClosable(closable);
+        factories.put(tab, factory);
+        tabs.getTabs().add(tab);
+        scheduler.register(module, tab.isSelected());
+        tab.selectedProperty().addListener((obs, o, n) -> scheduler.setVisible(module, n));
+        tab.setOnClosed(e -> {
+            module.stop();
+            scheduler.unregister(module);
+            factories.remove(tab);
+        });
+        return tab;
+    }
+
     public static void main(String[] args) {
         launch();
     }
@@ -0,0 +1,172 @@
+package app;
+
+import cti.Attacker;
+import cti.NodeModel;
+import cti.OpenLoopScheduler;
+import cti.RateProfile;
+import metrics.LatencyHistogram;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Non-interactive batch run for scripts and capacity regressions:
+ * {@code MainApp --headless [--nodes N] [--events M] [--rate R] [--seed S]}.
+ * Drives {@link NodeModel} directly, so no AWT, Swing or JavaFX class is ever loaded, and prints
+ * one JSON object on stdout. {@code --rate 0} (the default) applies events back to back at full
+ * speed; a positive rate paces them with {@link OpenLoopScheduler} and measures latency from
+ * each event's intended time.
+ */
+final class HeadlessRun {
+
+    private static final String USAGE =
+            "usage: MainApp --headless [--nodes N] [--events M] [--rate R (events/s, 0 = unthrottled)] [--seed S]";
+
+    private static final int SAMPLE_EVERY = 16;
+
+    private HeadlessRun() {}
+
+    static boolean requested(String[] args) {
+        if (args == null) return false;
+        for (String a : args) if ("--headless".equals(a)) return true;
+        return false;
+    }
+
+    /** Returns the process exit code. */
+    static int run(String[] args) {
+        int nodes = 1000;
+        long events = 1_000_000;
+        double rate = 0;
+        long seed = 1;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--headless": break;
+                    case "--nodes": nodes = Integer.parseInt(args[++i]); break;
+                    case "--events": events = Long.parseLong(args[++i]); break;
+                    case "--rate": rate = Double.parseDouble(args[++i]); break;
+                    case "--seed": seed = Long.parseLong(args[++i]); break;
+                    default: throw new IllegalArgumentException("unknown option " + args[i]);
+                }
+            }
+            if (nodes < 1 || events < 1 || rate < 0 || rate > OpenLoopScheduler.MAX_RATE) {
+                throw new IllegalArgumentException("out of range: nodes >= 1, events >= 1, 0 <= rate <= "
+                        + (long) OpenLoopScheduler.MAX_RATE);
+            }
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage() == null ? e.toString() : e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) pool.resetPeakUsage();
+        long gcTime0 = gcTimeMs(), gcCount0 = gcCount();
+
+        NodeModel model = new NodeModel(nodes);
+        LatencyHistogram apply = new LatencyHistogram();
+        long[] firstEventMs = {0};
+        long t0 = System.nanoTime();
+        try {
+            if (rate == 0) {
+                runUnthrottled(model, events, seed, apply, firstEventMs);
+            } else {
+                runPaced(model, events, rate, seed, apply, firstEventMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+        double secs = (System.nanoTime() - t0) / 1e9;
+        model.advance(System.currentTimeMillis());
+
+        long startup = firstEventMs[0] - ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.out.println(String.format(Locale.ROOT,
+                "{\"mode\":\"headless\",\"nodes\":%d,\"events\":%d,\"rate\":%.0f,\"seed\":%d,\"elapsed_s\":%.3f,"
+                        + "\"events_per_s\":%.0f,\"apply_p50_ns\":%d,\"apply_p99_ns\":%d,\"apply_max_ns\":%d,"
+                        + "\"peak_heap_bytes\":%d,\"gc_time_ms\":%d,\"gc_count\":%d,\"startup_to_first_event_ms\":%d,"
+                        + "\"active_nodes\":%d,\"recovered\":%d}",
+                nodes, events, rate, seed, secs, events / secs, apply.percentile(50), apply.percentile(99), apply.max(),
+                peakHeapBytes(), gcTimeMs() - gcTime0, gcCount() - gcCount0, startup,
+                model.activeCount(), model.recoveredCount()));
+        return 0;
+    }
+
+    /**
+     * Back-to-back applies on this thread; latency is the cost of the apply itself, timed on every
+     * {@link #SAMPLE_EVERY}th event so the clock reads do not dominate the loop.
+     */
+    private static void runUnthrottled(NodeModel model, long events, long seed, LatencyHistogram apply, long[] firstEventMs) {
+        SplittableRandom r = new SplittableRandom(seed);
+        Attacker.AttackType[] types = Attacker.AttackType.values();
+        int nodes = model.size();
+        long nowMs = System.currentTimeMillis();
+        firstEventMs[0] = nowMs;
+        for (long i = 0; i < events; i++) {
+            int node = r.nextInt(nodes);
+            Attacker.AttackType type = types[r.nextInt(types.length)];
+            int intensity = 1 + r.nextInt(10);
+            if ((i & (SAMPLE_EVERY - 1)) == 0) {
+                long s = System.nanoTime();
+                model.applyAttack(node, type, intensity, nowMs);
+                apply.record(System.nanoTime() - s);
+            } else {
+                model.applyAttack(node, type, intensity, nowMs);
+            }
+            if ((i & 1023) == 1023) {
+                nowMs = System.currentTimeMillis();
+                model.advance(nowMs);
+            }
+        }
+    }
+
+    /** Open-loop pacing; latency runs from each event's intended send time to the end of its apply. */
+    private static void runPaced(NodeModel model, long events, double rate, long seed, LatencyHistogram apply,
+                                 long[] firstEventMs) throws InterruptedException {
+        SplittableRandom r = new SplittableRandom(seed);
+        Attacker.AttackType[] types = Attacker.AttackType.values();
+        int nodes = model.size();
+        CountDownLatch done = new CountDownLatch(1);
+        long[] applied = {0};
+        OpenLoopScheduler scheduler = new OpenLoopScheduler(RateProfile.constant(rate), new OpenLoopScheduler.Emitter() {
+            @Override public void emit(long intended) {
+                if (applied[0] == events) return;
+                if (applied[0] == 0) firstEventMs[0] = System.currentTimeMillis();
+                model.applyAttack(r.nextInt(nodes), types[r.nextInt(types.length)], 1 + r.nextInt(10),
+                        System.currentTimeMillis());
+                apply.record(System.nanoTime() - intended);
+                if (++applied[0] == events) done.countDown();
+            }
+            @Override public void endOfTick(long now) {
+                model.advance(System.currentTimeMillis());
+            }
+        });
+        scheduler.start();
+        done.await();
+        scheduler.stop();
+    }
+
+    private static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    private static long gcTimeMs() {
+        long t = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) t += Math.max(0, gc.getCollectionTime());
+        return t;
+    }
+
+    private static long gcCount() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) n += Math.max(0, gc.getCollectionCount());
+        return n;
+    }
+}
@@ -1,18 +1,73 @@
 package app;
 
+import anomaly.EwmaDetector;
+import anomaly.HoltWintersDetector;
+import anomaly.MadDetector;
+import anomaly.SeriesMonitor;
+import cep.PatternEngine;
+import cep.SequenceRule;
+import cluster.ShardBenchmark;
+import core.AttackBatch;
+import core.GenericProcessor;
 import cti.SimulatorSwing;
+import cti.AdmissionQueue;
+import cti.AttackFormatter;
+import cti.AttackLogExporter;
 import cti.Attacker;
+import cti.AttackerSwarm;
+import cti.Checkpointer;
+import cti.Ipv4;
+import cti.NodeEventSim;
+import cti.NodeModel;
+import cti.NodeSnapshot;
+import cti.OpenLoopScheduler;
+import cti.ProcScanner;
+import cti.RateProfile;
 import cti.SystemStatsReader;
+import games.StackDepthProbe;
+import history.AttackArchive;
+import history.AttackArchiveWriter;
+import history.AttackFilter;
+import history.AttackQueryEngine;
+import history.BlockStats;
+import history.GroupBy;
+import history.QueryResult;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import montecarlo.DDoSTrial;
+import montecarlo.MonteCarloResult;
+import montecarlo.MonteCarloRunner;
+import montecarlo.NodeSurvivalTrial;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
 
 public class MainApp {
 
     private static final int DEFAULT_NODE_COUNT = 6;
     private static final int MIN_NODES = 1;
     private static final int MAX_NODES = 64;
+    private static final Path SNAPSHOT_FILE = Path.of("exports", "nodemodel.snap");
 
     public static void main(String[] args) {
+        if (HeadlessRun.requested(args)) {
+            // before anything else touches the menu or the Swing simulator
+            System.setProperty("java.awt.headless", "true");
+            System.exit(HeadlessRun.run(args));
+        }
         int defaultNodes = DEFAULT_NODE_COUNT;
 
         if (args != null && args.length > 0) {
@@ -77,6 +132,159 @@ public class MainApp {
                         System.out.println("Default node count set to " + defaultNodes);
                         break;
 
+                    case "5":
+                        System.out.println("Probing recursion depth on platform and virtual threads...");
+                        try {
+                            System.out.print(StackDepthProbe.report());
+                        } catch (InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                            running = false;
+                        }
+                        break;
+
+                    case "6":
+                        int swarmSize = promptInt(sc, "Swarm size (1..1000000) [default 100000]: ", 1, 1_000_000, 100_000);
+                        int seconds = promptInt(sc, "Run for seconds (1..600) [default 10]: ", 1, 600, 10);
+                        try {
+                            runSwarm(swarmSize, defaultNodes, seconds);
+                        } catch (InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                            running = false;
+                        }
+                        break;
+
+                    case "7":
+                        int rate = promptInt(sc, "Target rate per second (1..1000000) [default 10000]: ", 1, 1_000_000, 10_000);
+                        System.out.print("Profile (constant/step/linear/sinusoid) [default constant]: ");
+                        String profile = sc.nextLine().trim();
+                        int runSeconds = promptInt(sc, "Run for seconds (1..600) [default 10]: ", 1, 600, 10);
+                        boolean resume = false;
+                        long takenAt = NodeSnapshot.takenAt(SNAPSHOT_FILE);
+                        if (takenAt > 0) {
+                            System.out.printf("Resume from snapshot taken %ds ago? (y/n) [default n]: ",
+                                    (System.currentTimeMillis() - takenAt) / 1000);
+                            resume = sc.nextLine().trim().equalsIgnoreCase("y");
+                        }
+                        try {
+                            runOpenLoop(defaultNodes, rate, profile.isEmpty() ? "constant" : profile, runSeconds, resume);
+                        } catch (InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                            running = false;
+                        } catch (IOException ioe) {
+                            System.err.println("Open-loop run failed: " + ioe.getMessage());
+                        }
+                        break;
+
+                    case "8":
+                        int rows = promptInt(sc, "Rows to export (1..100000000) [default 5000000]: ", 1, 100_000_000, 5_000_000);
+                        System.out.print("Format (csv/ndjson) [default csv]: ");
+                        String fmt = sc.nextLine().trim();
+                        System.out.print("Gzip? (y/n) [default n]: ");
+                        boolean gz = sc.nextLine().trim().equalsIgnoreCase("y");
+                        try {
+                            runExport(rows, fmt.equalsIgnoreCase("ndjson") ? AttackLogExporter.Format.NDJSON
+                                    : AttackLogExporter.Format.CSV, gz);
+                        } catch (IOException ioe) {
+                            System.err.println("Export failed: " + ioe.getMessage());
+                        }
+                        break;
+
+                    case "9":
+                        System.out.print("CSV export to import (blank = synthetic events): ");
+                        String csv = sc.nextLine().trim();
+                        int events = csv.isEmpty()
+                                ? promptInt(sc, "Synthetic events (1..1000000000) [default 50000000]: ", 1, 1_000_000_000, 50_000_000)
+                                : 0;
+                        try {
+                            runArchive(csv.isEmpty() ? null : Path.of(csv), events);
+                        } catch (IOException ioe) {
+                            System.err.println("Archive failed: " + ioe.getMessage());
+                        }
+                        break;
+
+                    case "c":
+                        int maxWorkers = promptInt(sc, "Max worker JVMs (1..8) [default 4]: ", 1, 8, 4);
+                        int shardNodes = promptInt(sc, "Nodes (1..1000000) [default 10000]: ", 1, 1_000_000, 10_000);
+                        int stepSeconds = promptInt(sc, "Seconds per step (1..60) [default 5]: ", 1, 60, 5);
+                        try {
+                            System.out.print(ShardBenchmark.report(maxWorkers, shardNodes, stepSeconds));
+                        } catch (IOException ioe) {
+                            System.err.println("Sharded run failed: " + ioe.getMessage());
+                        } catch (InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                            running = false;
+                        }
+                        break;
+
+                    case "s":
+                        int snapNodes = promptInt(sc, "Nodes (1..10000000) [default 1000000]: ", 1, 10_000_000, 1_000_000);
+                        try {
+                            runSnapshot(snapNodes);
+                        } catch (IOException ioe) {
+                            System.err.println("Snapshot failed: " + ioe.getMessage());
+                        }
+                        break;
+
+                    case "f":
+                        runFormat(promptInt(sc, "Events per variant (1..100000000) [default 5000000]: ", 1, 100_000_000, 5_000_000));
+                        break;
+
+                    case "p":
+                        runPatterns(promptInt(sc, "Events (1..1000000000) [default 50000000]: ", 1, 1_000_000_000, 50_000_000));
+                        break;
+
+                    case "o":
+                        int service = promptInt(sc, "Service rate, events/s (100..100000) [default 20000]: ", 100, 100_000, 20_000);
+                        int overloadSeconds = promptInt(sc, "Seconds per step (1..60) [default 3]: ", 1, 60, 3);
+                        try {
+                            runOverload(service, overloadSeconds);
+                        } catch (InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                            running = false;
+                        }
+                        break;
+
+                    case "a":
+                        runAnomaly(promptInt(sc, "Samples (10000..100000000) [default 1000000]: ", 10_000, 100_000_000, 1_000_000));
+                        break;
+
+                    case "x":
+                        int mcScenarios = promptInt(sc, "Scenarios (1..10000000) [default 10000]: ", 1, 10_000_000, 10_000);
+                        int mcBurst = promptInt(sc, "DDoS burst size (20..800) [default 400]: ", 20, 800, 400);
+                        int mcCapacity = promptInt(sc, "Server capacity per step (1..100) [default 12]: ", 1, 100, 12);
+                        int mcBreaches = promptInt(sc, "Breach threshold (0..100000) [default 120]: ", 0, 100_000, 120);
+                        int mcSeconds = promptInt(sc, "Virtual seconds per scenario (1..3600) [default 60]: ", 1, 3600, 60);
+                        runMonteCarlo(mcScenarios, mcBurst, mcCapacity, mcBreaches, mcSeconds);
+                        break;
+
+                    case "t":
+                        int warpNodes = promptInt(sc, "Nodes (1..1000000) [default 10000]: ", 1, 1_000_000, 10_000);
+                        int warpHours = promptInt(sc, "Virtual hours (1..720) [default 24]: ", 1, 720, 24);
+                        int warpRate = promptInt(sc, "Attacks per node per hour (1..3600) [default 6]: ", 1, 3600, 6);
+                        int warpSpeed = promptInt(sc, "Speed factor (0 = as fast as possible, 1..100000000) [default 0]: ", 0, 100_000_000, 0);
+                        runTimeWarp(warpNodes, warpHours, warpRate, warpSpeed);
+                        break;
+
+                    case "l":
+                        int procScans = promptInt(sc, "Scans (2..1000) [default 20]: ", 2, 1000, 20);
+                        int procTop = promptInt(sc, "Top N (1..64) [default 10]: ", 1, 64, 10);
+                        try {
+                            runProcScan(procScans, procTop);
+                        } catch (InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                            running = false;
+                        }
+                        break;
+
+                    case "v":
+                        runColumns(promptInt(sc, "Events (1000000..1000000000) [default 100000000]: ", 1_000_000, 1_000_000_000, 100_000_000));
+                        break;
+
+                    case "m":
+                        System.out.println("=== METRICS (also published over JMX as " + Metrics.DOMAIN + ") ===");
+                        Metrics.snapshot().forEach((k, v) -> System.out.println(k + " = " + v));
+                        break;
+
                     case "h":
                     case "help":
                         printExtendedHelp();
@@ -99,6 +307,22 @@ public class MainApp {
         System.out.println("2 - Attacker console demo");
         System.out.println("3 - Swing simulator (UI) [launches with node count prompt]");
         System.out.println("4 - Set default simulator node count (current: " + defaultNodes + ")");
+        System.out.println("5 - Stack depth probe (platform vs virtual threads)");
+        System.out.println("6 - Virtual-thread attacker swarm (headless)");
+        System.out.println("7 - Open-loop rate run against the node model (headless)");
+        System.out.println("8 - Export throughput test (CSV/NDJSON to ./exports)");
+        System.out.println("9 - Columnar attack history archive (write + scan)");
+        System.out.println("c - Sharded multi-JVM benchmark (1..8 workers)");
+        System.out.println("s - Snapshot / restore round trip of a large node model");
+        System.out.println("f - Attack formatting throughput (String.format vs AttackFormatter)");
+        System.out.println("p - Multi-step attack pattern detection throughput (cep/)");
+        System.out.println("o - Overload test of the priority admission queue (1x..10x)");
+        System.out.println("a - Streaming anomaly detectors on a synthetic seasonal series (anomaly/)");
+        System.out.println("x - Monte Carlo scenario study (DDoS breaches, node survival)");
+        System.out.println("t - Time-warp replay of the node model on a virtual clock (discrete-event)");
+        System.out.println("l - Linux /proc process scan (top N by CPU, scan cost)");
+        System.out.println("v - Severity analytics on attack columns (streams vs scalar vs Vector API kernels)");
+        System.out.println("m - Print instrumentation metrics");
         System.out.println("h - Help / usage");
         System.out.println("q - Quit");
     }
@@ -109,9 +333,26 @@ public class MainApp {
         System.out.println(" - Option 2 prints some random attackers (Attacker.random())");
         System.out.println(" - Option 3 launches the Swing simulator (SimulatorSwing). You'll be asked for node count.");
         System.out.println(" - Option 4 changes the default node count used for quick launches.");
+        System.out.println(" - Option 5 recurses until StackOverflowError per stack size and method shape (StackDepthProbe).");
+        System.out.println(" - Option 6 runs one virtual thread per attacker (AttackerSwarm) and reports ev/s, carrier use and pinning.");
+        System.out.println(" - Option 7 drives NodeModel from OpenLoopScheduler and reports send lag and apply latency; it checkpoints"
+                + " the model to " + SNAPSHOT_FILE + " every second and can resume from it.");
+        System.out.println(" - Option 8 streams synthetic attacks through AttackLogExporter and reports rows/s.");
+        System.out.println(" - Option 9 writes a columnar archive (history/) from a CSV export or synthetic events and times column scans.");
+        System.out.println(" - Option c shards nodes across worker JVMs (cluster/) and reports events/s and batch round trips per worker count.");
+        System.out.println(" - Option s times NodeSnapshot write / restore for a model with many in-flight attacks.");
+        System.out.println(" - Option f times the old String.format toString against AttackFormatter into StringBuilder/CharBuffer/ByteBuffer, with bytes allocated per event.");
+        System.out.println(" - Option p feeds synthetic events through PatternEngine with SequenceRule.defaults() and reports events/s, alerts and live partial matches.");
+        System.out.println(" - Option o offers 1x..10x a fixed service rate to AdmissionQueue and reports what each priority band kept and waited.");
+        System.out.println(" - Option a injects spikes and level shifts into a noisy daily-like cycle and reports, per detector, hits, delay, false alarms and ns/sample.");
+        System.out.println(" - Option x runs seeded DDoSModel / NodeModel scenarios in parallel (montecarlo/) and reports confidence intervals, scenarios/s and a 1-thread replay check.");
+        System.out.println(" - Option t replays Poisson attacks through NodeEventSim at a speed factor, then compares an hour with tick-driven NodeModel.advance(), attacks seen at the next 50ms tick.");
+        System.out.println(" - Option l scans /proc every 250ms with ProcScanner and reports scan time, bytes allocated per scan and the top processes.");
+        System.out.println(" - Option v times average / histogram / filter / validate as List<Attacker> streams and as GenericProcessor column kernels; build src-vector and start with --add-modules jdk.incubator.vector for the vector ones (see README).");
         System.out.println("Notes:");
         System.out.println(" - Valid node count is between " + MIN_NODES + " and " + MAX_NODES + ".");
         System.out.println(" - You can also pass an initial node count as the first CLI argument when starting the app.");
+        System.out.println(" - For scripted runs use: MainApp --headless --nodes N --events M --rate R --seed S (prints one JSON line).");
     }
 
     private static int promptInt(Scanner sc, String prompt, int min, int max, int defaultVal) {
@@ -132,6 +373,630 @@ public class MainApp {
         }
     }
 
+    private static void runSwarm(int size, int nodes, int seconds) throws InterruptedException {
+        LongAdder ingested = new LongAdder();
+        AttackerSwarm swarm = new AttackerSwarm(size, nodes, 1000, System.nanoTime(), (node, a) -> ingested.increment());
+        System.out.println("Starting " + size + " attackers across " + nodes + " nodes...");
+        long t0 = System.nanoTime();
+        swarm.start();
+        System.out.printf("Started in %d ms%n", (System.nanoTime() - t0) / 1_000_000);
+        for (int i = 0; i < seconds; i++) {
+            Thread.sleep(1000);
+            System.out.println(swarm.stats());
+        }
+        swarm.stop();
+        System.out.println("Swarm stopped. Events ingested: " + ingested.sum());
+    }
+
+    private static void runOpenLoop(int nodeCount, int rate, String profile, int seconds, boolean resume)
+            throws InterruptedException, IOException {
+        NodeModel model;
+        if (resume) {
+            long t0 = System.nanoTime();
+            model = NodeSnapshot.read(SNAPSHOT_FILE, System.currentTimeMillis());
+            System.out.printf(Locale.ROOT, "Restored %d nodes (%d attacks in flight) in %.1f ms%n",
+                    model.size(), model.activeCount(), (System.nanoTime() - t0) / 1e6);
+        } else {
+            model = new NodeModel(nodeCount);
+        }
+        int nodes = model.size();
+        Files.createDirectories(SNAPSHOT_FILE.getParent());
+        Checkpointer checkpointer = new Checkpointer(SNAPSHOT_FILE, 1000);
+        LatencyHistogram apply = new LatencyHistogram();
+        SplittableRandom r = new SplittableRandom();
+        Attacker.AttackType[] types = Attacker.AttackType.values();
+        OpenLoopScheduler scheduler = new OpenLoopScheduler(RateProfile.named(profile, rate), new OpenLoopScheduler.Emitter() {
+            @Override public void emit(long intended) {
+                model.applyAttack(r.nextInt(nodes), types[r.nextInt(types.length)], 2 + r.nextInt(9),
+                        System.currentTimeMillis());
+                apply.record(System.nanoTime() - intended);
+            }
+            @Override public void endOfTick(long now) {
+                long nowMs = System.currentTimeMillis();
+                model.advance(nowMs);
+                checkpointer.maybeCheckpoint(model, nowMs);
+            }
+        });
+        System.out.println("Open-loop " + profile + " run at " + rate + "/s across " + nodes + " nodes...");
+        scheduler.start();
+        for (int i = 0; i < seconds; i++) {
+            Thread.sleep(1000);
+            System.out.printf(Locale.ROOT, "t=%2ds rate=%.0f/s sent=%d lag[%s] apply[%s]%n", i + 1,
+                    scheduler.currentRate(), scheduler.sentCount(), scheduler.sendLag().summary(), apply.summary());
+        }
+        scheduler.stop();
+        checkpointer.close();
+        System.out.println("Done. Attacks applied: " + model.appliedCount() + ", recovered: " + model.recoveredCount()
+                + ", snapshots written: " + checkpointer.writtenCount());
+    }
+
+    private static void runSnapshot(int nodes) throws IOException {
+        NodeModel model = new NodeModel(nodes);
+        SplittableRandom r = new SplittableRandom(7);
+        Attacker.AttackType[] types = Attacker.AttackType.values();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < nodes; i++) {
+            if (r.nextInt(4) != 0) model.applyAttack(i, types[r.nextInt(types.length)], 1 + r.nextInt(10), now - r.nextInt(3000));
+        }
+        model.advance(now);
+        Path file = Path.of("exports", "snapshot-bench.snap");
+        Files.createDirectories(file.getParent());
+        for (int pass = 0; pass < 3; pass++) {
+            long t0 = System.nanoTime();
+            NodeModel copy = model.copy();
+            long t1 = System.nanoTime();
+            NodeSnapshot.write(copy, now, file);
+            long t2 = System.nanoTime();
+            NodeModel restored = NodeSnapshot.read(file, now);
+            long t3 = System.nanoTime();
+            boolean same = restored.activeCount() == model.activeCount() && restored.appliedCount() == model.appliedCount();
+            for (int i = 0; same && i < nodes; i++) same = restored.cpu(i) == model.cpu(i) && restored.mem(i) == model.mem(i);
+            restored.advance(now + 60_000);
+            System.out.printf(Locale.ROOT,
+                    "%d nodes, %d in flight, %.1f MB: copy %.1f ms, write %.1f ms, restore %.1f ms, identical=%b, recovered after 60s=%d%n",
+                    nodes, model.activeCount(), Files.size(file) / 1e6, (t1 - t0) / 1e6, (t2 - t1) / 1e6, (t3 - t2) / 1e6,
+                    same, restored.recoveredCount());
+        }
+        Files.deleteIfExists(file);
+    }
+
+    private static void runExport(int rows, AttackLogExporter.Format format, boolean gzip) throws IOException {
+        AttackLogExporter exporter = new AttackLogExporter(Path.of("exports"), "bench", format, gzip,
+                AttackLogExporter.DEFAULT_ROLL_BYTES, AttackLogExporter.DEFAULT_ROLL_MILLIS,
+                AttackLogExporter.DEFAULT_CAPACITY, AttackLogExporter.Backpressure.BLOCK);
+        Attacker<String>[] pool = newAttackerPool(1024);
+        exporter.start();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < rows; i++) exporter.offer(i & 63, pool[i & 1023], "Bench");
+        exporter.close();
+        double secs = (System.nanoTime() - t0) / 1e9;
+        System.out.printf(Locale.ROOT, "Exported %d rows in %.2fs (%.2f M rows/s) to %s%n",
+                rows, secs, rows / secs / 1e6, exporter.files());
+    }
+
+    private static void runArchive(Path csv, int events) throws IOException {
+        Path file = Path.of("exports", "history.cta");
+        Files.createDirectories(file.getParent());
+        long t0 = System.nanoTime();
+        long written;
+        if (csv != null) {
+            written = AttackArchiveWriter.importCsv(csv, file);
+        } else {
+            // a fixed attacker population at ~50k events/s, like a long-running swarm
+            SplittableRandom r = new SplittableRandom(42);
+            int[] ips = new int[4096];
+            for (int i = 0; i < ips.length; i++) ips[i] = (10 + r.nextInt(200)) << 24 | r.nextInt(1 << 24);
+            Attacker.AttackType[] types = Attacker.AttackType.values();
+            long start = System.currentTimeMillis();
+            try (AttackArchiveWriter w = new AttackArchiveWriter(file)) {
+                for (int i = 0; i < events; i++) {
+                    w.append(start + i / 50, r.nextInt(64), ips[r.nextInt(ips.length)],
+                            types[r.nextInt(types.length)], 1 + r.nextInt(10));
+                }
+            }
+            written = events;
+        }
+        double writeSecs = (System.nanoTime() - t0) / 1e9;
+        try (AttackArchive archive = AttackArchive.open(file)) {
+            System.out.printf(Locale.ROOT, "Wrote %d events in %.2fs (%.1f M/s): %d blocks, %.1f MB, %.2f bytes/event%n",
+                    written, writeSecs, written / writeSecs / 1e6, archive.blocks().size(),
+                    archive.sizeBytes() / 1e6, archive.bytesPerEvent());
+            int[] ints = new int[archive.maxBlockEvents()];
+            long[] longs = new long[ints.length];
+            for (int pass = 0; pass < 3; pass++) {
+                long matches = 0, tsSum = 0, ipXor = 0;
+                long c0 = System.nanoTime();
+                for (AttackArchive.Block b : archive.blocks()) {
+                    int n = b.codes(ints);
+                    for (int i = 0; i < n; i++) {
+                        if (AttackArchive.typeOrdinal(ints[i]) == 1 && AttackArchive.intensity(ints[i]) > 7) matches++;
+                    }
+                }
+                long c1 = System.nanoTime();
+                for (AttackArchive.Block b : archive.blocks()) {
+                    int n = b.timestamps(longs);
+                    for (int i = 0; i < n; i++) tsSum += longs[i];
+                }
+                long c2 = System.nanoTime();
+                for (AttackArchive.Block b : archive.blocks()) {
+                    int n = b.ips(ints);
+                    for (int i = 0; i < n; i++) ipXor ^= ints[i];
+                }
+                long c3 = System.nanoTime();
+                long n = archive.eventCount();
+                System.out.printf(Locale.ROOT,
+                        "scan %d: type+intensity %.0f M/s (MEM_FILL>7: %d), timestamps %.0f M/s, ips %.0f M/s [%x]%n",
+                        pass + 1, n / ((c1 - c0) / 1e3), matches, n / ((c2 - c1) / 1e3), n / ((c3 - c2) / 1e3),
+                        tsSum ^ ipXor);
+            }
+            runQueries(archive);
+        }
+    }
+
+    private static void runQueries(AttackArchive archive) {
+        if (archive.blocks().isEmpty()) return;
+        long first = Long.MAX_VALUE, last = Long.MIN_VALUE;
+        for (AttackArchive.Block b : archive.blocks()) {
+            BlockStats s = b.stats;
+            first = Math.min(first, s.minTs);
+            last = Math.max(last, s.maxTs);
+        }
+        long t1 = first + (last - first) * 4 / 10, t2 = first + (last - first) / 2;
+        int[] dict = new int[archive.maxBlockEvents()];
+        archive.blocks().get(0).dictionary(dict);
+        AttackQueryEngine engine = new AttackQueryEngine(archive);
+        AttackFilter hot = AttackFilter.ALL.type(Attacker.AttackType.MEM_FILL).intensity(8, 10);
+        System.out.println("Queries (" + Runtime.getRuntime().availableProcessors() + " cores, second run shown):");
+        for (int pass = 0; pass < 2; pass++) {
+            QueryResult[] results = {
+                    engine.count(hot),
+                    engine.groupCount(AttackFilter.ALL, GroupBy.TYPE),
+                    engine.topK(hot.between(t1, t2), GroupBy.IP, 5),
+                    engine.topKPerGroup(hot.between(t1, t2), GroupBy.NODE, GroupBy.IP, 2),
+                    engine.count(AttackFilter.ALL.ip(dict[0]).between(t1, t2)),
+            };
+            if (pass == 0) continue;
+            String[] titles = {
+                    "count " + hot,
+                    "events per type",
+                    "top 5 IPs, " + hot.between(t1, t2),
+                    "top 2 IPs per node, same filter",
+                    "count " + AttackFilter.ALL.ip(dict[0]).between(t1, t2),
+            };
+            for (int i = 0; i < results.length; i++) {
+                System.out.println("-- " + titles[i]);
+                String[] lines = results[i].format().split("\n");
+                for (int j = 0; j < lines.length; j++) {
+                    if (j < 6 || j == lines.length - 1) System.out.println("   " + lines[j]);
+                    else if (j == 6) System.out.println("   ... " + (lines.length - 7) + " more rows");
+                }
+            }
+        }
+    }
+
+    private static void runFormat(int events) {
+        Attacker<String>[] pool = newAttackerPool(1024);
+        int[] packed = new int[pool.length];
+        for (int i = 0; i < pool.length; i++) packed[i] = Ipv4.pack(pool[i].getIp());
+        long ms = pool[0].getTimestamp().toEpochMilli();
+        AttackFormatter f = new AttackFormatter();
+        StringBuilder sb = new StringBuilder(1 << 16);
+        CharBuffer cb = CharBuffer.allocate(1 << 16);
+        ByteBuffer bb = ByteBuffer.allocateDirect(1 << 16);
+        long[] sink = {0};
+        String[] names = {"String.format (old toString)", "Attacker.toString", "-> StringBuilder", "-> CharBuffer",
+                "-> ByteBuffer", "packed ip -> ByteBuffer"};
+        System.out.printf(Locale.ROOT, "%-30s %12s %10s %14s%n", "variant", "events/s", "ns/event", "bytes/event");
+        for (int pass = 0; pass < 2; pass++) {
+            for (int v = 0; v < names.length; v++) {
+                long b0 = allocatedBytes(), t0 = System.nanoTime();
+                for (int i = 0; i < events; i++) {
+                    Attacker<String> a = pool[i & 1023];
+                    switch (v) {
+                        case 0 -> sink[0] += String.format("Attacker{id=%s, ip=%s, type=%s, intensity=%d, ts=%s}",
+                                String.valueOf(a.getId()), a.getIp(), a.getType().name(), a.getIntensity(),
+                                a.getTimestamp().toString()).length();
+                        case 1 -> sink[0] += a.toString().length();
+                        case 2 -> {
+                            if (sb.length() > 60_000) sb.setLength(0);
+                            f.append(a, sb);
+                        }
+                        case 3 -> {
+                            if (cb.remaining() < 256) cb.clear();
+                            f.event(a).writeTo(cb);
+                        }
+                        case 4 -> {
+                            if (bb.remaining() < 256) bb.clear();
+                            f.event(a).writeTo(bb);
+                        }
+                        default -> {
+                            if (bb.remaining() < 256) bb.clear();
+                            f.event(a.getId(), packed[i & 1023], a.getType(), a.getIntensity(), ms + (i >> 10)).writeTo(bb);
+                        }
+                    }
+                }
+                long nanos = System.nanoTime() - t0, bytes = allocatedBytes() - b0;
+                sink[0] += sb.length() + cb.position() + bb.position();
+                if (pass == 1) {
+                    System.out.printf(Locale.ROOT, "%-30s %12.0f %10.1f %14.1f%n", names[v], events / (nanos / 1e9),
+                            (double) nanos / events, (double) bytes / events);
+                }
+            }
+        }
+        if (sink[0] == 42) System.out.println();   // keeps the results live
+    }
+
+    private static void runPatterns(int events) {
+        List<SequenceRule> rules = SequenceRule.defaults();
+        long[] alerts = new long[rules.size()];
+        for (SequenceRule rule : rules) System.out.println("rule " + rule);
+        PatternEngine engine = new PatternEngine(rules, (rule, key, first, last) -> alerts[rules.indexOf(rule)]++);
+        // 64k sources in 1024 /24s, 64 nodes, 1M events per second of event time
+        SplittableRandom r = new SplittableRandom(11);
+        int[] ips = new int[65_536];
+        for (int i = 0; i < ips.length; i++) ips[i] = (10 << 24) | (r.nextInt(1024) << 8) | r.nextInt(256);
+        Attacker.AttackType[] types = Attacker.AttackType.values();
+        long start = System.currentTimeMillis();
+        long t0 = System.nanoTime(), lastReport = t0;
+        for (int i = 0; i < events; i++) {
+            engine.onEvent(start + i / 1000, r.nextInt(64), ips[r.nextInt(ips.length)], types[r.nextInt(types.length)],
+                    1 + r.nextInt(10));
+            if ((i & 0xFFFFF) == 0xFFFFF && System.nanoTime() - lastReport > 1_000_000_000L) {
+                lastReport = System.nanoTime();
+                System.out.printf(Locale.ROOT, "%,d events, %s%n", i + 1L, engine.stats());
+            }
+        }
+        double secs = (System.nanoTime() - t0) / 1e9;
+        System.out.printf(Locale.ROOT, "%d events in %.2fs (%.1f M events/s), %s%n", events, secs, events / secs / 1e6,
+                engine.stats());
+        for (int i = 0; i < rules.size(); i++) System.out.println("  " + rules.get(i).name() + ": " + alerts[i] + " alerts");
+    }
+
+    /**
+     * Offers 1x, 2x, 5x and 10x the service rate to an {@link AdmissionQueue} drained by one thread
+     * applying to a NodeModel at that rate. Intensities are skewed like real traffic: 5% CRITICAL,
+     * 15% HIGH, 80% LOW.
+     */
+    private static void runOverload(int serviceRate, int seconds) throws InterruptedException {
+        String[] bands = {"crit", "high", "low"};
+        System.out.printf(Locale.ROOT, "Service %d events/s, capacity %d, %ds per step%n", serviceRate, serviceRate / 10, seconds);
+        System.out.printf(Locale.ROOT, "%6s %10s %24s %10s %10s %8s %32s%n", "load", "offered", "kept crit/high/low %",
+                "coalesced", "shed", "max q", "queue wait p99 crit/high/low");
+        for (int factor : new int[]{1, 2, 5, 10}) {
+            int nodes = 64;
+            AdmissionQueue<Attacker<String>> q = new AdmissionQueue<>(serviceRate / 10, nodes,
+                    (queued, newer) -> newer.getIntensity() >= queued.getIntensity() ? newer : queued);
+            long[] offered = new long[3];
+            SplittableRandom r = new SplittableRandom(factor);
+            Attacker.AttackType[] types = Attacker.AttackType.values();
+            OpenLoopScheduler producer = new OpenLoopScheduler(RateProfile.constant((double) serviceRate * factor), intended -> {
+                int p = r.nextInt(100);
+                int intensity = p < 5 ? 9 + r.nextInt(2) : p < 20 ? 7 + r.nextInt(2) : 1 + r.nextInt(6);
+                offered[AdmissionQueue.band(intensity)]++;
+                q.offer(new Attacker<>("ov", "10.0.0.1", types[r.nextInt(types.length)], intensity), r.nextInt(nodes), intensity);
+            });
+            NodeModel model = new NodeModel(nodes);
+            long end = System.nanoTime() + seconds * 1_000_000_000L;
+            Thread consumer = new Thread(() -> {
+                long start = System.nanoTime(), served = 0;
+                for (long now = start; now < end; now = System.nanoTime()) {
+                    // fixed service rate: serve what the clock allows, idle capacity is not banked
+                    long due = (long) ((now - start) / 1e9 * serviceRate);
+                    Attacker<String> a;
+                    while (served < due && (a = q.poll()) != null) {
+                        model.applyAttack((int) (served & (nodes - 1)), a.getType(), a.getIntensity(), System.currentTimeMillis());
+                        served++;
+                    }
+                    served = due;
+                    LockSupport.parkNanos(1_000_000);
+                }
+            }, "overload-consumer");
+            consumer.start();
+            producer.start();
+            consumer.join();
+            producer.stop();
+            long totalOffered = offered[0] + offered[1] + offered[2];
+            StringBuilder kept = new StringBuilder(), waits = new StringBuilder();
+            for (int b = 0; b < 3; b++) {
+                if (b > 0) { kept.append('/'); waits.append('/'); }
+                kept.append(String.format(Locale.ROOT, "%.0f", offered[b] == 0 ? 0 : 100.0 * q.queueWait(b).count() / offered[b]));
+                waits.append(LatencyHistogram.nanos(q.queueWait(b).percentile(99)));
+            }
+            System.out.printf(Locale.ROOT, "%5dx %10d %24s %10d %10d %8d %32s%n", factor, totalOffered, kept,
+                    q.coalescedCount(), q.shedCount(), q.maxSize(), waits);
+        }
+    }
+
+    /**
+     * Scores a synthetic CPU-like series (40%, sigma 2 noise) with each detector alone and with the
+     * combined host monitor, once flat and once with a +/-15% cycle of 60 samples. Every 400
+     * samples an anomaly starts: alternately a 3-sample +20% spike or a 40-sample +12% level shift.
+     * A hit is an alert within the anomaly or the 5 samples after it; any other alert is a false alarm.
+     */
+    private static void runAnomaly(int samples) {
+        int season = 60, every = 400, warm = 2 * season + 120;
+        double[] x = new double[samples];
+        boolean[] inAnomaly = new boolean[samples];
+        int[] onset = new int[samples];
+        String[] names = {"ewma", "mad", "holt-winters", "combined"};
+        for (int amplitude : new int[]{0, 15}) {
+            SplittableRandom r = new SplittableRandom(5);
+            int injected = 0;
+            for (int t = 0, start = -1, len = 0; t < samples; t++) {
+                if (t >= warm && t % every == 0) {
+                    start = t + r.nextInt(every / 2);
+                    len = (injected++ & 1) == 0 ? 3 : 40;
+                }
+                x[t] = 40 + amplitude * Math.sin(2 * Math.PI * t / season) + r.nextGaussian() * 2;
+                if (start >= 0 && t >= start && t < start + len) x[t] += len == 3 ? 20 : 12;
+                inAnomaly[t] = start >= 0 && t >= start && t < start + len + 5;
+                onset[t] = start;
+            }
+            System.out.printf(Locale.ROOT, "%n%s series: %,d samples, %d anomalies injected%n",
+                    amplitude == 0 ? "Flat" : "Seasonal", samples, injected);
+            System.out.printf(Locale.ROOT, "%-14s %8s %14s %12s %10s%n", "detector", "hits", "delay samples", "false/10k", "ns/sample");
+            for (int v = 0; v < names.length; v++) {
+                SeriesMonitor m = switch (v) {
+                    case 0 -> new SeriesMonitor("cpu", new EwmaDetector(0.05, 4, 0.5));
+                    case 1 -> new SeriesMonitor("cpu", new MadDetector(120, 5, 0.5));
+                    case 2 -> new SeriesMonitor("cpu", new HoltWintersDetector(season, 4, 0.5));
+                    default -> SeriesMonitor.hostDefaults("cpu", season);
+                };
+                long hits = 0, falseAlarms = 0, delay = 0;
+                int lastHit = -1;
+                long t0 = System.nanoTime();
+                for (int t = 0; t < samples; t++) {
+                    if (m.observe(x[t], t) == null) continue;
+                    if (!inAnomaly[t]) falseAlarms++;
+                    else if (onset[t] != lastHit) {
+                        lastHit = onset[t];
+                        hits++;
+                        delay += t - onset[t];
+                    }
+                }
+                double ns = (double) (System.nanoTime() - t0) / samples;
+                System.out.printf(Locale.ROOT, "%-14s %7.1f%% %14.2f %12.2f %10.1f%n", names[v], 100.0 * hits / injected,
+                        hits == 0 ? 0 : (double) delay / hits, 1e4 * falseAlarms / samples, ns);
+            }
+        }
+    }
+
+    /**
+     * Runs the DDoS and node-survival studies on every core, then replays the DDoS one with a
+     * different thread count to show the results do not depend on it.
+     */
+    private static void runMonteCarlo(int scenarios, int burst, int capacity, int breachThreshold, int seconds) {
+        long seed = 2024;
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf(Locale.ROOT, "DDoS: burst %d, capacity %d, %ds, %d scenarios, seed %d%n", burst, capacity, seconds, scenarios, seed);
+        MonteCarloResult ddos = MonteCarloRunner.run(() -> new DDoSTrial(burst, capacity, seconds), scenarios, seed, cores);
+        System.out.print(ddos.summary());
+        System.out.printf(Locale.ROOT, "  P(breaches > %d within %ds) = %s%n", breachThreshold, seconds,
+                ddos.probability("breaches", b -> b > breachThreshold));
+        printPace(ddos, seconds);
+        int replayThreads = cores == 1 ? 3 : 1;
+        MonteCarloResult replay = MonteCarloRunner.run(() -> new DDoSTrial(burst, capacity, seconds), scenarios, seed, replayThreads);
+        printPace(replay, seconds);
+        System.out.println("  identical to the " + cores + "-thread run: " + replay.sameAs(ddos));
+
+        int nodes = 64;
+        double perMinute = 2;
+        int nodeScenarios = Math.max(1, scenarios / 10);
+        System.out.printf(Locale.ROOT, "%nNode survival: %d nodes, %.0f attacks/node/min, %ds, %d scenarios%n",
+                nodes, perMinute, seconds, nodeScenarios);
+        MonteCarloResult survival = MonteCarloRunner.run(() -> new NodeSurvivalTrial(nodes, perMinute, seconds), nodeScenarios, seed, cores);
+        System.out.print(survival.summary());
+        System.out.printf(Locale.ROOT, "  P(any node down) = %s%n", survival.probability("down_nodes", d -> d > 0));
+        printPace(survival, seconds);
+    }
+
+    /**
+     * Replays {@code hours} of Poisson attacks on a virtual clock, then checks the first hour
+     * against the wall-clock way of driving the model: every node advanced on a 50 ms tick, the
+     * Swing panels' timer granularity. States are compared at every virtual minute.
+     */
+    private static void runTimeWarp(int nodes, int hours, int perNodePerHour, int speed) {
+        long endMs = hours * 3_600_000L;
+        long seed = 7;
+        long[] changes = new long[1];
+        NodeEventSim sim = new NodeEventSim(new NodeModel(nodes), poissonAttacks(nodes, perNodePerHour, seed, endMs),
+                (t, node, cpu, mem) -> changes[0]++);
+        System.out.printf(Locale.ROOT, "%d nodes, %dh, %d attacks/node/h, speed %s%n", nodes, hours, perNodePerHour,
+                speed == 0 ? "max" : speed + "x");
+        long t0 = System.nanoTime();
+        for (int h = 1; h <= hours; h++) {
+            sim.run(h * 3_600_000L, speed);
+            if (h == hours || speed > 0 || h % 6 == 0) {
+                System.out.printf(Locale.ROOT, "  %3dh: %,d attacks, %,d steps, %d active, %.2fs wall%n", h,
+                        sim.attackCount(), sim.transitionCount(), sim.model().activeCount(), (System.nanoTime() - t0) / 1e9);
+            }
+        }
+        double wall = (System.nanoTime() - t0) / 1e9;
+        long events = sim.attackCount() + sim.transitionCount() + sim.staleCount();
+        System.out.printf(Locale.ROOT, "Replayed %dh in %.2fs (%.0fx real time), %.2f M events/s, %,d level changes, %,d superseded steps%n",
+                hours, wall, endMs / 1000.0 / wall, events / wall / 1e6, changes[0], sim.staleCount());
+
+        // exact: attacks applied at their own time on a tick loop, which only checks nextChangeMs;
+        // noticed: attacks applied at the tick that sees them, as the wall-clock timer does
+        long checkMs = Math.min(endMs, 3_600_000L), tickMs = 50;
+        NodeEventSim des = new NodeEventSim(new NodeModel(nodes), poissonAttacks(nodes, perNodePerHour, seed, checkMs), null);
+        NodeModel exact = new NodeModel(nodes), noticed = new NodeModel(nodes);
+        NodeEventSim.ArrivalSource arrivals = poissonAttacks(nodes, perNodePerHour, seed, checkMs);
+        NodeEventSim.Arrival a = new NodeEventSim.Arrival();
+        boolean more = arrivals.next(a);
+        long compared = 0, exactOff = 0, noticedOff = 0, noticedDelta = 0;
+        int maxDelta = 0;
+        for (long t = tickMs; t <= checkMs; t += tickMs) {
+            for (; more && a.timeMs <= t; more = arrivals.next(a)) {
+                exact.applyAttack(a.node, a.type, a.intensity, a.timeMs);
+                noticed.applyAttack(a.node, a.type, a.intensity, t);
+            }
+            exact.advance(t);
+            noticed.advance(t);
+            if (t % 60_000 != 0) continue;
+            des.runUntil(t);
+            NodeModel m = des.model();
+            for (int n = 0; n < nodes; n++) {
+                compared++;
+                if (m.cpu(n) != exact.cpu(n) || m.mem(n) != exact.mem(n)) exactOff++;
+                int d = Math.max(Math.abs(m.cpu(n) - noticed.cpu(n)), Math.abs(m.mem(n) - noticed.mem(n)));
+                if (d != 0) noticedOff++;
+                noticedDelta += d;
+                maxDelta = Math.max(maxDelta, d);
+            }
+        }
+        System.out.printf(Locale.ROOT, "First %d min, node states compared every minute (%,d):%n", checkMs / 60_000, compared);
+        System.out.printf(Locale.ROOT, "  vs exact-time ticks (nextChangeMs self-consistency): %,d differ%n", exactOff);
+        System.out.printf(Locale.ROOT, "  vs %dms tick mode, attacks seen at the next tick: %,d differ (%.2f%%), mean |diff| %.3f, max %d points%n",
+                tickMs, noticedOff, 100.0 * noticedOff / compared, (double) noticedDelta / compared, maxDelta);
+    }
+
+    private static void runProcScan(int scans, int topN) throws InterruptedException {
+        if (!ProcScanner.isSupported()) {
+            System.out.println("/proc is not available on this system.");
+            return;
+        }
+        try (ProcScanner scanner = new ProcScanner(topN, ProcScanner.Order.CPU)) {
+            long b0 = allocatedBytes(), t0 = System.nanoTime();
+            int live = scanner.scan();
+            System.out.printf(Locale.ROOT, "First scan (list + open): %d processes, %s, %,d bytes%n", live,
+                    LatencyHistogram.nanos(System.nanoTime() - t0), allocatedBytes() - b0);
+            LatencyHistogram steady = new LatencyHistogram();
+            long bytes = 0;
+            for (int i = 1; i < scans; i++) {
+                Thread.sleep(250);
+                b0 = allocatedBytes();
+                t0 = System.nanoTime();
+                live = scanner.scan();
+                steady.record(System.nanoTime() - t0);
+                bytes += allocatedBytes() - b0;
+            }
+            // includes the periodic directory relist and the top-N statm opens
+            System.out.printf(Locale.ROOT, "Steady scans: %d processes (%d stat files held open), %s, %,d bytes/scan%n",
+                    live, scanner.openCount(), steady.summary(), bytes / (scans - 1));
+            System.out.printf(Locale.ROOT, "%8s %-16s %8s %12s%n", "pid", "name", "cpu%", "rss");
+            for (int k = 0; k < scanner.topCount(); k++) {
+                System.out.printf(Locale.ROOT, "%8d %-16s %8.1f %9d MiB%n", scanner.topPid(k), scanner.topName(k),
+                        scanner.topCpuPercent(k), scanner.topRssBytes(k) >> 20);
+            }
+        }
+    }
+
+    /**
+     * Times the four GenericProcessor queries three ways: streams over a {@code List<Attacker>},
+     * and scalar and vector kernels over an AttackBatch of up to 16M rows, passed over repeatedly
+     * until {@code events} rows are covered. Streams cover at most 10M rows; all figures are per row.
+     */
+    private static void runColumns(int events) {
+        int types = Attacker.AttackType.values().length;
+        GenericProcessor<Attacker<String>> proc = new GenericProcessor<>(Attacker::getIntensity,
+                a -> a.getType().ordinal(), a -> a.getTimestamp().toEpochMilli(), types);
+        GenericProcessor<Attacker<String>> scalar = proc.scalar();
+        long now = System.currentTimeMillis(), minTs = now - 86_400_000L, maxTs = now + 60_000;
+
+        List<Attacker<String>> list = List.of(newAttackerPool(1_000_000));
+        AttackBatch small = proc.columns(list);
+        double avg = list.stream().mapToInt(Attacker::getIntensity).average().orElse(Double.NaN);
+        Map<Integer, Long> hist = list.stream().collect(Collectors.groupingBy(Attacker::getIntensity, Collectors.counting()));
+        long[] kernelHist = proc.severityHistogram(small);
+        boolean histMatch = true;
+        for (int v = 0; v < kernelHist.length; v++) histMatch &= kernelHist[v] == hist.getOrDefault(v, 0L);
+        long extreme = list.stream().filter(a -> a.getIntensity() >= 9).count();
+        boolean listMatch = avg == proc.averageSeverity(small) && histMatch
+                && extreme == proc.filterExtreme(small, 9).length && proc.validate(small, minTs, maxTs);
+
+        int rows = Math.min(events, 16_000_000);
+        AttackBatch batch = new AttackBatch(rows);
+        SplittableRandom r = new SplittableRandom(7);
+        for (int i = 0; i < rows; i++) {
+            // about one row in a thousand out of range, so validation has something to find
+            batch.add(r.nextInt(types), r.nextInt(1000) == 0 ? r.nextInt(2) * 11 : 1 + r.nextInt(10), now - (rows - i));
+        }
+        int[] out = new int[rows];
+        boolean batchMatch = proc.averageSeverity(batch) == scalar.averageSeverity(batch)
+                && Arrays.equals(proc.severityHistogram(batch), scalar.severityHistogram(batch))
+                && proc.filterExtreme(batch, 9, out) == scalar.filterExtreme(batch, 9, out)
+                && proc.countInvalid(batch, minTs, maxTs) == scalar.countInvalid(batch, minTs, maxTs);
+
+        System.out.printf(Locale.ROOT, "%,d rows per pass, %,d events; kernels: %s%n", rows, events, proc.kernels());
+        if (proc.kernels().equals("scalar")) System.out.println("(build src-vector and start with --add-modules jdk.incubator.vector for the vector kernels, see README)");
+        long[] sink = {0};
+        String[] ops = {"average severity", "severity histogram", "filter severity >= 9", "validate"};
+        Runnable[] streamOps = {
+                () -> sink[0] += (long) list.stream().mapToInt(Attacker::getIntensity).average().orElse(0),
+                () -> sink[0] += list.stream().collect(Collectors.groupingBy(Attacker::getIntensity, Collectors.counting())).size(),
+                () -> sink[0] += list.stream().filter(a -> a.getIntensity() >= 9).toList().size(),
+                () -> sink[0] += list.stream().filter(a -> a.getIntensity() < 1 || a.getIntensity() > 10
+                        || a.getTimestamp().toEpochMilli() < minTs || a.getTimestamp().toEpochMilli() > maxTs).count()};
+        System.out.printf(Locale.ROOT, "%-22s %12s %12s %12s %10s%n", "ns/event", "streams", "scalar", proc.kernels(), "speedup");
+        for (int op = 0; op < ops.length; op++) {
+            double stream = nsPerRow(Math.min(events, 10_000_000), list.size(), streamOps[op]);
+            double[] k = new double[2];
+            for (int j = 0; j < 2; j++) {
+                GenericProcessor<Attacker<String>> p = j == 0 ? scalar : proc;
+                int o = op;
+                k[j] = nsPerRow(events, rows, () -> sink[0] += switch (o) {
+                    case 0 -> (long) p.averageSeverity(batch);
+                    case 1 -> p.severityHistogram(batch)[10];
+                    case 2 -> p.filterExtreme(batch, 9, out);
+                    default -> p.countInvalid(batch, minTs, maxTs);
+                });
+            }
+            System.out.printf(Locale.ROOT, "%-22s %12.2f %12.2f %12.2f %9.1fx%n", ops[op], stream, k[0], k[1], stream / k[1]);
+        }
+        System.out.println("Kernels match streams on the attacker list: " + listMatch + "; "
+                + proc.kernels() + " matches scalar on the batch: " + batchMatch);
+        if (sink[0] == 42) System.out.println();   // keeps the results live
+    }
+
+    /**
+     * Runs {@code pass} for half a second (and at least 3 times) to warm up, then until
+     * {@code events} rows are covered; ns per row. The Vector API is very slow until compiled.
+     */
+    private static double nsPerRow(long events, int rows, Runnable pass) {
+        long warm = System.nanoTime() + 500_000_000L;
+        for (int i = 0; i < 3 || System.nanoTime() < warm; i++) pass.run();
+        long passes = Math.max(1, events / rows);
+        long t0 = System.nanoTime();
+        for (long p = 0; p < passes; p++) pass.run();
+        return (double) (System.nanoTime() - t0) / (passes * rows);
+    }
+
+    /** Cluster-wide Poisson arrivals of random type and intensity until {@code endMs}. */
+    private static NodeEventSim.ArrivalSource poissonAttacks(int nodes, int perNodePerHour, long seed, long endMs) {
+        SplittableRandom r = new SplittableRandom(seed);
+        double ratePerMs = (double) nodes * perNodePerHour / 3_600_000.0;
+        Attacker.AttackType[] types = Attacker.AttackType.values();
+        double[] t = {0};
+        return out -> {
+            t[0] += -Math.log(1 - r.nextDouble()) / ratePerMs;
+            if (t[0] > endMs) return false;
+            out.timeMs = (long) t[0];
+            out.node = r.nextInt(nodes);
+            out.type = types[r.nextInt(types.length)];
+            out.intensity = 1 + r.nextInt(10);
+            return true;
+        };
+    }
+
+    private static void printPace(MonteCarloResult r, int seconds) {
+        System.out.printf(Locale.ROOT, "  %d threads: %.0f scenarios/s, %.0fx real time (%.2fs)%n", r.threads(),
+                r.scenariosPerSecond(), r.scenariosPerSecond() * seconds, r.elapsedNanos() / 1e9);
+    }
+
+    /** Bytes allocated by this thread so far, or 0 where the JVM does not report it. */
+    private static long allocatedBytes() {
+        return ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t
+                ? t.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Attacker<String>[] newAttackerPool(int n) {
+        Attacker<String>[] pool = new Attacker[n];
+        for (int i = 0; i < n; i++) pool[i] = Attacker.random();
+        return pool;
+    }
+
     private static void launchSimulator(int nodes) {
         try {
             SimulatorSwing sim = new SimulatorSwing(nodes);
@@ -0,0 +1,25 @@
+package cep;
+
+import cti.Ipv4;
+
+/** What a {@link SequenceRule} correlates events on. Keys are non-negative and fit in 32 bits. */
+public enum KeyBy {
+    IP, SUBNET, NODE;
+
+    long key(int node, int ip) {
+        switch (this) {
+            case IP: return ip & 0xFFFFFFFFL;
+            case SUBNET: return ip >>> 8;
+            default: return node & 0xFFFFFFFFL;
+        }
+    }
+
+    /** Human-readable form of a key produced by this keying. */
+    public String format(long key) {
+        switch (this) {
+            case IP: return Ipv4.format((int) key);
+            case SUBNET: return Ipv4.format((int) key << 8) + "/24";
+            default: return "node " + key;
+        }
+    }
+}
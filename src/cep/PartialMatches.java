@@ -0,0 +1,266 @@
+package cep;
+
+import cti.Attacker;
+
+import java.util.Arrays;
+
+/**
+ * One {@link SequenceRule} compiled to an NFA over its steps, with per-key state. Runs at the
+ * same state are collapsed to the latest start time (it keeps the most window left), so a key
+ * costs {@code steps - 1} longs however many events it sees. An event advances each state at
+ * most once, consuming the run it advances; states are visited last-to-first for that reason.
+ * Keyed slots sit on a hashed timer wheel at their earliest expiry, which clears expired runs
+ * and frees slots left without any. Single-threaded and allocation-free once warmed up.
+ */
+final class PartialMatches {
+
+    private static final long NONE = Long.MIN_VALUE;
+    private static final long EMPTY_KEY = -1;
+    private static final int WHEEL = 128;             // > window / tick + 1, so a bucket never holds a later revolution
+    private static final int TICKS_PER_WINDOW = 64;
+
+    final SequenceRule rule;
+    private final int steps;
+    private final int[] maskByType;
+    private final int[] minIntensity;
+    private final long windowMs;
+    private final long tickMs;
+    private final int maxKeys;
+
+    // key -> slot, open addressing with linear probing and backward-shift deletion
+    private long[] tableKeys;
+    private int[] tableSlots;
+
+    // per slot: runs[slot * (steps - 1) + s - 1] is the start of a run that has matched s steps
+    private long[] slotKey;
+    private long[] runs;
+    private int[] slotRuns;
+    private long[] slotTick;
+    private int[] next;
+    private int[] free;
+    private int freeCount;
+    private int slotCount;
+
+    private final int[] wheelHead = new int[WHEEL];
+    private long lastTick = NONE;
+
+    long active;
+    long keys;
+    long dropped;
+    long alerts;
+
+    PartialMatches(SequenceRule rule, int maxKeys) {
+        this.rule = rule;
+        this.steps = rule.steps();
+        Attacker.AttackType[] types = Attacker.AttackType.values();
+        this.maskByType = new int[types.length];
+        for (Attacker.AttackType t : types) maskByType[t.ordinal()] = rule.stepMask(t);
+        this.minIntensity = new int[steps];
+        for (int i = 0; i < steps; i++) minIntensity[i] = rule.minIntensity(i);
+        this.windowMs = rule.windowMs();
+        this.tickMs = Math.max(1, (windowMs + TICKS_PER_WINDOW - 1) / TICKS_PER_WINDOW);
+        this.maxKeys = maxKeys;
+        tableKeys = new long[2048];
+        Arrays.fill(tableKeys, EMPTY_KEY);
+        tableSlots = new int[2048];
+        growSlots(Math.min(1024, maxKeys));
+        Arrays.fill(wheelHead, -1);
+    }
+
+    /** Returns the number of alerts raised. {@code ts} must not be earlier than the last {@link #advance}. */
+    int onEvent(long ts, int node, int ip, Attacker.AttackType type, int intensity, PatternEngine.AlertListener listener) {
+        int mask = maskByType[type.ordinal()];
+        if (mask == 0) return 0;
+        long key = rule.keyBy().key(node, ip);
+        if (steps == 1) {
+            if (intensity < minIntensity[0]) return 0;
+            alerts++;
+            listener.onAlert(rule, key, ts, ts);
+            return 1;
+        }
+        boolean starts = (mask & 1) != 0 && intensity >= minIntensity[0];
+        int slot = find(key);
+        if (slot < 0) {
+            if (!starts) return 0;
+            slot = allocate(key);
+            if (slot < 0) { dropped++; return 0; }
+        }
+        int base = slot * (steps - 1);
+        int fired = 0;
+        for (int j = steps - 1; j >= 1; j--) {
+            if ((mask & (1 << j)) == 0 || intensity < minIntensity[j]) continue;
+            long start = runs[base + j - 1];
+            if (start == NONE) continue;
+            clear(slot, base + j - 1);
+            if (ts - start > windowMs) continue;
+            if (j == steps - 1) {
+                fired++;
+                alerts++;
+                listener.onAlert(rule, key, start, ts);
+            } else {
+                set(slot, base + j, start);
+            }
+        }
+        if (starts) set(slot, base, ts);
+        return fired;
+    }
+
+    /** Runs the wheel up to {@code nowMs}: expired runs are dropped, empty slots freed. */
+    void advance(long nowMs) {
+        long nowTick = nowMs / tickMs;
+        if (lastTick == NONE) { lastTick = nowTick; return; }
+        if (nowTick <= lastTick) return;
+        for (long t = Math.max(lastTick + 1, nowTick - WHEEL + 1); t <= nowTick; t++) {
+            int b = (int) (t & (WHEEL - 1));
+            int slot = wheelHead[b];
+            wheelHead[b] = -1;
+            while (slot >= 0) {
+                int n = next[slot];
+                if (slotTick[slot] > t) {
+                    link(slot, b);
+                } else {
+                    expire(slot, nowMs);
+                }
+                slot = n;
+            }
+        }
+        lastTick = nowTick;
+    }
+
+    private void expire(int slot, long nowMs) {
+        slotTick[slot] = NONE;
+        int base = slot * (steps - 1);
+        long earliest = Long.MAX_VALUE;
+        for (int s = 0; s < steps - 1; s++) {
+            long start = runs[base + s];
+            if (start == NONE) continue;
+            if (nowMs - start > windowMs) clear(slot, base + s);
+            else earliest = Math.min(earliest, start);
+        }
+        if (slotRuns[slot] == 0) release(slot);
+        else schedule(slot, earliest + windowMs);
+    }
+
+    private void set(int slot, int idx, long start) {
+        if (runs[idx] == NONE) {
+            runs[idx] = start;
+            slotRuns[slot]++;
+            active++;
+            // a slot already on the wheel is due no later than any run it holds
+            if (slotTick[slot] == NONE) schedule(slot, start + windowMs);
+        } else if (start > runs[idx]) {
+            runs[idx] = start;
+        }
+    }
+
+    private void clear(int slot, int idx) {
+        runs[idx] = NONE;
+        slotRuns[slot]--;
+        active--;
+    }
+
+    private void schedule(int slot, long deadlineMs) {
+        long tick = deadlineMs / tickMs + 1;
+        if (lastTick != NONE && tick <= lastTick) tick = lastTick + 1;
+        slotTick[slot] = tick;
+        link(slot, (int) (tick & (WHEEL - 1)));
+    }
+
+    private void link(int slot, int bucket) {
+        next[slot] = wheelHead[bucket];
+        wheelHead[bucket] = slot;
+    }
+
+    // ---- slots -----------------------------------------------------------------------------
+
+    private int allocate(long key) {
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            if (slotCount == maxKeys) return -1;
+            if (slotCount == slotKey.length) growSlots(Math.min(maxKeys, slotKey.length * 2));
+            slot = slotCount++;
+        }
+        slotKey[slot] = key;
+        slotTick[slot] = NONE;
+        put(key, slot);
+        keys++;
+        return slot;
+    }
+
+    private void release(int slot) {
+        remove(slotKey[slot]);
+        free[freeCount++] = slot;
+        keys--;
+    }
+
+    private void growSlots(int cap) {
+        int stride = steps - 1;
+        int old = slotKey == null ? 0 : slotKey.length;
+        slotKey = slotKey == null ? new long[cap] : Arrays.copyOf(slotKey, cap);
+        runs = runs == null ? new long[cap * stride] : Arrays.copyOf(runs, cap * stride);
+        Arrays.fill(runs, old * stride, cap * stride, NONE);
+        slotRuns = slotRuns == null ? new int[cap] : Arrays.copyOf(slotRuns, cap);
+        slotTick = slotTick == null ? new long[cap] : Arrays.copyOf(slotTick, cap);
+        next = next == null ? new int[cap] : Arrays.copyOf(next, cap);
+        free = free == null ? new int[cap] : Arrays.copyOf(free, cap);
+    }
+
+    // ---- key table -------------------------------------------------------------------------
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int find(long key) {
+        int mask = tableKeys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            long k = tableKeys[i];
+            if (k == key) return tableSlots[i];
+            if (k == EMPTY_KEY) return -1;
+        }
+    }
+
+    private void put(long key, int slot) {
+        if (2 * (keys + 1) > tableKeys.length) rehash(tableKeys.length * 2);
+        int mask = tableKeys.length - 1;
+        int i = hash(key) & mask;
+        while (tableKeys[i] != EMPTY_KEY) i = (i + 1) & mask;
+        tableKeys[i] = key;
+        tableSlots[i] = slot;
+    }
+
+    private void remove(long key) {
+        int mask = tableKeys.length - 1;
+        int i = hash(key) & mask;
+        while (tableKeys[i] != key) i = (i + 1) & mask;
+        // shift later entries of the probe chain back so lookups never stop early
+        for (int j = (i + 1) & mask; tableKeys[j] != EMPTY_KEY; j = (j + 1) & mask) {
+            int home = hash(tableKeys[j]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                tableKeys[i] = tableKeys[j];
+                tableSlots[i] = tableSlots[j];
+                i = j;
+            }
+        }
+        tableKeys[i] = EMPTY_KEY;
+    }
+
+    private void rehash(int cap) {
+        long[] oldKeys = tableKeys;
+        int[] oldSlots = tableSlots;
+        tableKeys = new long[cap];
+        Arrays.fill(tableKeys, EMPTY_KEY);
+        tableSlots = new int[cap];
+        int mask = cap - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY_KEY) continue;
+            int j = hash(oldKeys[i]) & mask;
+            while (tableKeys[j] != EMPTY_KEY) j = (j + 1) & mask;
+            tableKeys[j] = oldKeys[i];
+            tableSlots[j] = oldSlots[i];
+        }
+    }
+}
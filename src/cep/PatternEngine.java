@@ -0,0 +1,104 @@
+package cep;
+
+import cti.Attacker;
+import cti.Ipv4;
+import metrics.Counter;
+import metrics.Gauge;
+import metrics.Metrics;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Multi-step attack pattern detection over a stream of events. Each {@link SequenceRule} is
+ * compiled into its own keyed NFA ({@link PartialMatches}); an event only touches the rules that
+ * have a step for its type. Expired partial matches are evicted on a timer wheel driven by event
+ * time, so memory is bounded by the keys active within a window (and capped per rule).
+ * <p>
+ * Event timestamps are expected to be non-decreasing; a late event is treated as arriving at the
+ * current clock. Not thread-safe: feed it from one thread, e.g. the one applying attacks.
+ */
+public final class PatternEngine {
+
+    /** Receives completed matches; {@code key} is formatted with the rule's {@link KeyBy}. */
+    public interface AlertListener {
+        void onAlert(SequenceRule rule, long key, long firstMs, long lastMs);
+    }
+
+    public static final int DEFAULT_MAX_KEYS = 1 << 20;
+
+    private static final Counter ALERTS = Metrics.counter("cep.alerts");
+    private static final Gauge ACTIVE = Metrics.gauge("cep.partial.active");
+
+    private final PartialMatches[] rules;
+    private final AlertListener listener;
+    private long clock = Long.MIN_VALUE;
+    private long events;
+
+    public PatternEngine(List<SequenceRule> rules, AlertListener listener) {
+        this(rules, listener, DEFAULT_MAX_KEYS);
+    }
+
+    /** {@code maxKeysPerRule} caps tracked keys; partial matches beyond it are dropped and counted. */
+    public PatternEngine(List<SequenceRule> rules, AlertListener listener, int maxKeysPerRule) {
+        if (maxKeysPerRule < 1) throw new IllegalArgumentException("maxKeysPerRule must be positive");
+        this.rules = new PartialMatches[rules.size()];
+        for (int i = 0; i < this.rules.length; i++) this.rules[i] = new PartialMatches(rules.get(i), maxKeysPerRule);
+        this.listener = listener;
+    }
+
+    /** Returns the number of alerts this event completed. */
+    public int onEvent(long tsMs, int node, int ip, Attacker.AttackType type, int intensity) {
+        if (tsMs > clock) advance(tsMs);
+        long ts = clock;
+        events++;
+        int fired = 0;
+        for (PartialMatches r : rules) fired += r.onEvent(ts, node, ip, type, intensity, listener);
+        if (fired > 0) ALERTS.add(fired);
+        return fired;
+    }
+
+    public int onEvent(int node, Attacker<?> a) {
+        return onEvent(a.getTimestamp().toEpochMilli(), node, Ipv4.pack(a.getIp()), a.getType(), a.getIntensity());
+    }
+
+    /** Moves the clock forward without an event, evicting what expired meanwhile. */
+    public void advance(long nowMs) {
+        if (nowMs <= clock) return;
+        clock = nowMs;
+        for (PartialMatches r : rules) r.advance(nowMs);
+        ACTIVE.set(activePartialMatches());
+    }
+
+    /** Partial matches still inside their window (plus any expired since the last wheel tick). */
+    public long activePartialMatches() {
+        long n = 0;
+        for (PartialMatches r : rules) n += r.active;
+        return n;
+    }
+
+    public long activeKeys() {
+        long n = 0;
+        for (PartialMatches r : rules) n += r.keys;
+        return n;
+    }
+
+    public long alertCount() {
+        long n = 0;
+        for (PartialMatches r : rules) n += r.alerts;
+        return n;
+    }
+
+    public long droppedCount() {
+        long n = 0;
+        for (PartialMatches r : rules) n += r.dropped;
+        return n;
+    }
+
+    public long eventCount() { return events; }
+
+    public String stats() {
+        return String.format(Locale.ROOT, "patterns: %d partial / %d keys, %d alerts%s", activePartialMatches(),
+                activeKeys(), alertCount(), droppedCount() == 0 ? "" : ", " + droppedCount() + " dropped");
+    }
+}
@@ -0,0 +1,99 @@
+package cep;
+
+import cti.Attacker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An ordered attack pattern: the steps must be seen in order, from the same key, with the last
+ * step no later than {@code windowMs} after the first. Unrelated events in between are skipped.
+ * Text form: {@code PORT_FLOOD -> ANOMALY_SPIKE -> CPU_OVERLOAD>=7 within 5s by subnet}.
+ */
+public final class SequenceRule {
+
+    public static final int MAX_STEPS = 16;
+
+    private final String name;
+    private final Attacker.AttackType[] types;
+    private final int[] minIntensity;
+    private final long windowMs;
+    private final KeyBy keyBy;
+
+    public SequenceRule(String name, Attacker.AttackType[] types, int[] minIntensity, long windowMs, KeyBy keyBy) {
+        if (types.length < 1 || types.length > MAX_STEPS) throw new IllegalArgumentException("1.." + MAX_STEPS + " steps: " + name);
+        if (minIntensity.length != types.length) throw new IllegalArgumentException("one intensity per step: " + name);
+        if (windowMs < 1) throw new IllegalArgumentException("window must be positive: " + name);
+        this.name = name;
+        this.types = types.clone();
+        this.minIntensity = minIntensity.clone();
+        this.windowMs = windowMs;
+        this.keyBy = keyBy;
+    }
+
+    /** Parses the text form; the window takes ms, s or m, and {@code by} defaults to ip. */
+    public static SequenceRule parse(String name, String text) {
+        String s = text.trim();
+        KeyBy keyBy = KeyBy.IP;
+        int by = s.lastIndexOf(" by ");
+        if (by >= 0) {
+            keyBy = KeyBy.valueOf(s.substring(by + 4).trim().toUpperCase(Locale.ROOT));
+            s = s.substring(0, by);
+        }
+        int within = s.lastIndexOf(" within ");
+        if (within < 0) throw new IllegalArgumentException("missing 'within <window>': " + text);
+        long windowMs = parseWindow(s.substring(within + 8).trim());
+        List<Attacker.AttackType> types = new ArrayList<>();
+        List<Integer> mins = new ArrayList<>();
+        for (String step : s.substring(0, within).split("->")) {
+            String t = step.trim();
+            int ge = t.indexOf(">=");
+            mins.add(ge < 0 ? 1 : Integer.parseInt(t.substring(ge + 2).trim()));
+            types.add(Attacker.AttackType.valueOf((ge < 0 ? t : t.substring(0, ge)).trim().toUpperCase(Locale.ROOT)));
+        }
+        int[] min = new int[mins.size()];
+        for (int i = 0; i < min.length; i++) min[i] = mins.get(i);
+        return new SequenceRule(name, types.toArray(new Attacker.AttackType[0]), min, windowMs, keyBy);
+    }
+
+    private static long parseWindow(String w) {
+        if (w.endsWith("ms")) return Long.parseLong(w.substring(0, w.length() - 2).trim());
+        if (w.endsWith("s")) return Math.round(Double.parseDouble(w.substring(0, w.length() - 1).trim()) * 1000);
+        if (w.endsWith("m")) return Math.round(Double.parseDouble(w.substring(0, w.length() - 1).trim()) * 60_000);
+        return Long.parseLong(w);
+    }
+
+    /** Campaign shapes the simulator watches for by default. */
+    public static List<SequenceRule> defaults() {
+        return List.of(
+                parse("recon-to-takeover", "PORT_FLOOD -> ANOMALY_SPIKE -> CPU_OVERLOAD within 5s by subnet"),
+                parse("memory-exhaustion", "MEM_FILL>=7 -> MEM_FILL>=7 -> CPU_OVERLOAD>=7 within 3s by node"),
+                parse("flood-burst", "PORT_FLOOD>=8 -> PORT_FLOOD>=8 -> PORT_FLOOD>=8 within 2s by ip"));
+    }
+
+    public String name() { return name; }
+    public int steps() { return types.length; }
+    public Attacker.AttackType type(int step) { return types[step]; }
+    public int minIntensity(int step) { return minIntensity[step]; }
+    public long windowMs() { return windowMs; }
+    public KeyBy keyBy() { return keyBy; }
+
+    /** Bit {@code i} is set when step {@code i} expects {@code type}. */
+    int stepMask(Attacker.AttackType type) {
+        int mask = 0;
+        for (int i = 0; i < types.length; i++) if (types[i] == type) mask |= 1 << i;
+        return mask;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(name).append(": ");
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0) sb.append(" -> ");
+            sb.append(types[i].name());
+            if (minIntensity[i] > 1) sb.append(">=").append(minIntensity[i]);
+        }
+        return sb.append(" within ").append(windowMs).append("ms by ").append(keyBy.name().toLowerCase(Locale.ROOT)).toString();
+    }
+}
@@ -0,0 +1,82 @@
+package cluster;
+
+import cti.Attacker;
+import metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Saturation benchmark for the sharded mode: for 1, 2, 4 ... {@code maxWorkers} worker JVMs,
+ * producer threads push random attacks through {@link ShardCoordinator} as fast as the
+ * acknowledgement window allows, and the table reports applied events/s, speed-up over one
+ * worker and batch round-trip latency.
+ */
+public final class ShardBenchmark {
+
+    private ShardBenchmark() {}
+
+    public static String report(int maxWorkers, int nodeCount, int seconds) throws IOException, InterruptedException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Sharded run: %d nodes, %ds per step, %d cores, batch %d, window %d%n",
+                nodeCount, seconds, Runtime.getRuntime().availableProcessors(), ShardCoordinator.BATCH_EVENTS,
+                ShardCoordinator.WINDOW));
+        sb.append(String.format(Locale.ROOT, "%8s %10s %14s %8s %10s %10s %10s%n",
+                "workers", "producers", "events/s", "speedup", "rtt p50", "rtt p99", "rtt max"));
+        double base = 0;
+        String lastDashboard = "";
+        for (int step = 1; ; step *= 2) {
+            int workers = Math.min(step, maxWorkers);
+            try (ShardCoordinator c = ShardCoordinator.start(workers, nodeCount)) {
+                int producers = Math.max(1, Math.min(workers, Runtime.getRuntime().availableProcessors() / 2));
+                long warmupEnd = System.nanoTime() + 1_000_000_000L;
+                drive(c, producers, warmupEnd);
+                c.awaitAcked(10_000);
+                c.batchRoundTrip().reset();
+                long acked0 = c.ackedCount();
+                long t0 = System.nanoTime();
+                drive(c, producers, t0 + seconds * 1_000_000_000L);
+                c.awaitAcked(10_000);
+                double secs = (System.nanoTime() - t0) / 1e9;
+                double rate = (c.ackedCount() - acked0) / secs;
+                if (base == 0) base = rate;
+                LatencyHistogram rtt = c.batchRoundTrip();
+                sb.append(String.format(Locale.ROOT, "%8d %10d %14.0f %7.2fx %10s %10s %10s%n", workers, producers,
+                        rate, rate / base, LatencyHistogram.nanos(rtt.percentile(50)),
+                        LatencyHistogram.nanos(rtt.percentile(99)), LatencyHistogram.nanos(rtt.max())));
+                c.awaitState(2 * ShardWorker.STATE_INTERVAL_MS + 500);
+                lastDashboard = c.dashboard();
+            }
+            if (workers == maxWorkers) break;
+        }
+        return sb.append("Dashboard of the last run:\n").append(lastDashboard).toString();
+    }
+
+    private static void drive(ShardCoordinator c, int producers, long endNanos) throws InterruptedException {
+        Thread[] threads = new Thread[producers];
+        int nodes = c.nodeCount();
+        Attacker.AttackType[] types = Attacker.AttackType.values();
+        for (int p = 0; p < producers; p++) {
+            long seed = 31L * p + 7;
+            threads[p] = new Thread(() -> {
+                SplittableRandom r = new SplittableRandom(seed);
+                ShardCoordinator.Router router = c.router();
+                try {
+                    while (System.nanoTime() < endNanos) {
+                        long now = System.currentTimeMillis();
+                        for (int i = 0; i < 4096; i++) {
+                            router.route(r.nextInt(nodes), types[r.nextInt(types.length)], 1 + r.nextInt(10),
+                                    r.nextInt(), now);
+                        }
+                    }
+                    router.flush();
+                } catch (IOException e) {
+                    System.err.println("producer failed: " + e.getMessage());
+                }
+            }, "shard-producer-" + p);
+            threads[p].start();
+        }
+        for (Thread t : threads) t.join();
+    }
+}
@@ -0,0 +1,349 @@
+package cluster;
+
+import cti.Attacker;
+import cti.NodeModel;
+import metrics.LatencyHistogram;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shards nodes across local worker JVMs. Starts {@code workers} {@link ShardWorker} processes,
+ * routes attack events to the owner of each node (consistent hashing, see {@link ShardRing})
+ * in batched {@link Wire} frames over TCP_NODELAY localhost sockets, and merges the node levels
+ * the workers stream back into one dashboard view.
+ *
+ * <p>Events are submitted through a {@link Router}; each producer thread owns one. A batch goes
+ * out when it is full or when the producer calls {@link Router#flush()}, so nothing waits on
+ * Nagle or a timer. At most {@link #WINDOW} batches per worker are unacknowledged; beyond that
+ * producers block, which bounds queueing and keeps the batch round-trip latency honest.
+ */
+public final class ShardCoordinator implements Closeable {
+
+    public static final int BATCH_EVENTS = 512;
+    public static final int WINDOW = 256;
+    private static final long START_TIMEOUT_MS = 30_000;
+
+    private final int nodeCount;
+    private final byte[] owners;
+    private final Link[] links;
+    private final List<Process> processes = new ArrayList<>();
+    private final ServerSocketChannel server;
+
+    // dashboard view, written by the link readers (one writer per node)
+    private final byte[] cpu;
+    private final byte[] mem;
+
+    private final LatencyHistogram batchRtt = new LatencyHistogram();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder acked = new LongAdder();
+
+    private ShardCoordinator(int workers, int nodeCount) throws IOException {
+        this.nodeCount = nodeCount;
+        this.owners = new ShardRing(workers).ownerTable(nodeCount);
+        this.links = new Link[workers];
+        this.cpu = new byte[nodeCount];
+        this.mem = new byte[nodeCount];
+        Arrays.fill(cpu, (byte) NodeModel.BASE_CPU);
+        Arrays.fill(mem, (byte) NodeModel.BASE_MEM);
+        this.server = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    /** Launches the worker JVMs and waits until every one has connected. */
+    public static ShardCoordinator start(int workers, int nodeCount) throws IOException {
+        if (nodeCount < 1) throw new IllegalArgumentException("nodeCount must be >= 1");
+        ShardCoordinator c = new ShardCoordinator(workers, nodeCount);
+        try {
+            c.launch();
+            return c;
+        } catch (IOException | RuntimeException e) {
+            c.close();
+            throw e;
+        }
+    }
+
+    private void launch() throws IOException {
+        InetSocketAddress addr = (InetSocketAddress) server.getLocalAddress();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        for (int w = 0; w < links.length; w++) {
+            ProcessBuilder pb = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    "-XX:+UseParallelGC", ShardWorker.class.getName(), addr.getHostString(),
+                    String.valueOf(addr.getPort()), String.valueOf(w), String.valueOf(links.length),
+                    String.valueOf(nodeCount));
+            pb.redirectOutput(ProcessBuilder.Redirect.DISCARD).redirectError(ProcessBuilder.Redirect.INHERIT);
+            processes.add(pb.start());
+        }
+        server.configureBlocking(false);
+        long deadline = System.currentTimeMillis() + START_TIMEOUT_MS;
+        int connected = 0;
+        ByteBuffer hello = ByteBuffer.allocate(Wire.FRAME_HEADER + 4);
+        while (connected < links.length) {
+            SocketChannel ch = server.accept();
+            if (ch == null) {
+                if (System.currentTimeMillis() > deadline) throw new IOException("workers did not connect in time");
+                for (Process p : processes) {
+                    if (!p.isAlive()) throw new IOException("worker exited with status " + p.exitValue());
+                }
+                sleep(5);
+                continue;
+            }
+            ch.configureBlocking(true);
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            hello.clear();
+            while (hello.hasRemaining()) if (ch.read(hello) < 0) throw new IOException("worker closed during hello");
+            if (hello.get(4) != Wire.HELLO) throw new IOException("expected HELLO from worker");
+            int id = hello.getInt(Wire.FRAME_HEADER);
+            links[id] = new Link(id, ch);
+            connected++;
+        }
+        for (Link l : links) l.startReader();
+    }
+
+    public int workers() { return links.length; }
+    public int nodeCount() { return nodeCount; }
+    public int ownerOf(int node) { return owners[node]; }
+
+    /** Dashboard view of a node, as last reported by its worker. */
+    public int cpu(int node) { return cpu[node]; }
+    public int mem(int node) { return mem[node]; }
+
+    public long submittedCount() { return submitted.sum(); }
+    public long ackedCount() { return acked.sum(); }
+
+    /** Time from a batch leaving the coordinator to its acknowledgement (events applied). */
+    public LatencyHistogram batchRoundTrip() { return batchRtt; }
+
+    /** A new per-producer router; not thread-safe, use one per thread. */
+    public Router router() { return new Router(); }
+
+    /** Waits until every submitted event has been acknowledged; false on timeout. */
+    public boolean awaitAcked(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (acked.sum() < submitted.sum()) {
+            if (System.currentTimeMillis() > deadline) return false;
+            sleep(1);
+        }
+        return true;
+    }
+
+    /** Waits for one more STATE report from every worker, so the dashboard reflects recent work. */
+    public void awaitState(long timeoutMs) {
+        long[] seen = new long[links.length];
+        for (int i = 0; i < links.length; i++) seen[i] = links[i].stateFrames.get();
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        for (int i = 0; i < links.length; i++) {
+            while (links[i].stateFrames.get() == seen[i] && System.currentTimeMillis() < deadline) sleep(1);
+        }
+    }
+
+    /** One line per worker plus the hottest nodes. */
+    public String dashboard() {
+        StringBuilder sb = new StringBuilder();
+        int[] ownedCounts = new int[links.length];
+        for (byte o : owners) ownedCounts[o]++;
+        for (Link l : links) {
+            sb.append(String.format(Locale.ROOT, "worker %d: nodes=%d applied=%d active=%d batches=%d%n",
+                    l.id, ownedCounts[l.id], l.applied, l.active, l.acks.get()));
+        }
+        int[] hottest = new int[Math.min(5, nodeCount)];
+        Arrays.fill(hottest, -1);
+        for (int node = 0; node < nodeCount; node++) {
+            for (int i = 0; i < hottest.length; i++) {
+                if (hottest[i] < 0 || cpu[node] > cpu[hottest[i]]) {
+                    System.arraycopy(hottest, i, hottest, i + 1, hottest.length - i - 1);
+                    hottest[i] = node;
+                    break;
+                }
+            }
+        }
+        sb.append("hottest:");
+        for (int node : hottest) {
+            if (node >= 0) sb.append(" node").append(node).append("=").append(cpu[node]).append('%');
+        }
+        return sb.append('\n').toString();
+    }
+
+    /** Asks every worker to stop, waits for their final state, and reaps the processes. */
+    @Override
+    public void close() throws IOException {
+        for (Link l : links) {
+            if (l != null) l.bye();
+        }
+        for (Link l : links) {
+            if (l != null) l.awaitClosed(5_000);
+        }
+        for (Process p : processes) {
+            try {
+                if (!p.waitFor(5, TimeUnit.SECONDS)) p.destroyForcibly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                p.destroyForcibly();
+            }
+        }
+        server.close();
+    }
+
+    /**
+     * Batches events per worker for one producer thread. Events for a node always go through the
+     * same worker connection, so per-node order is preserved per producer.
+     */
+    public final class Router {
+        private final ByteBuffer[] batches = new ByteBuffer[links.length];
+        private final int[] counts = new int[links.length];
+        private final long[] baseTs = new long[links.length];
+
+        private Router() {
+            for (int w = 0; w < batches.length; w++) {
+                batches[w] = ByteBuffer.allocateDirect(Wire.ATTACKS_HEADER + BATCH_EVENTS * Wire.EVENT_BYTES);
+            }
+        }
+
+        public void route(int node, Attacker.AttackType type, int intensity, int ip, long tsMs) throws IOException {
+            int w = owners[node];
+            ByteBuffer b = batches[w];
+            if (counts[w] == 0) {
+                baseTs[w] = tsMs;
+                b.clear().position(Wire.ATTACKS_HEADER);
+            }
+            b.putInt(node).put((byte) Wire.code(type, intensity)).putInt(ip).putInt((int) (tsMs - baseTs[w]));
+            if (++counts[w] == BATCH_EVENTS) send(w);
+        }
+
+        /** Sends every partially filled batch now. */
+        public void flush() throws IOException {
+            for (int w = 0; w < counts.length; w++) {
+                if (counts[w] > 0) send(w);
+            }
+        }
+
+        private void send(int w) throws IOException {
+            ByteBuffer b = batches[w];
+            int count = counts[w];
+            int payload = b.position() - Wire.FRAME_HEADER;
+            b.putInt(0, payload + 1).put(4, Wire.ATTACKS).putLong(Wire.FRAME_HEADER + 4, baseTs[w])
+                    .putInt(Wire.FRAME_HEADER + 12, count);
+            b.flip();
+            submitted.add(count);
+            links[w].send(b);
+            counts[w] = 0;
+        }
+    }
+
+    /** One worker connection: producers write under a lock, a virtual thread reads. */
+    private final class Link {
+        final int id;
+        final SocketChannel channel;
+        final Semaphore window = new Semaphore(WINDOW);
+        final AtomicLongArray sentAt = new AtomicLongArray(WINDOW);
+        final AtomicLong acks = new AtomicLong();
+        final AtomicLong stateFrames = new AtomicLong();
+        volatile long applied;
+        volatile int active;
+        private int seq;
+        private Thread reader;
+
+        Link(int id, SocketChannel channel) {
+            this.id = id;
+            this.channel = channel;
+        }
+
+        void startReader() {
+            reader = Thread.ofVirtual().name("shard-link-" + id).start(this::readLoop);
+        }
+
+        void send(ByteBuffer frame) throws IOException {
+            window.acquireUninterruptibly();
+            synchronized (this) {
+                int s = seq++;
+                frame.putInt(Wire.FRAME_HEADER, s);
+                sentAt.set(s & (WINDOW - 1), System.nanoTime());
+                Wire.writeFully(channel, frame);
+            }
+        }
+
+        synchronized void bye() {
+            try {
+                ByteBuffer b = ByteBuffer.allocate(Wire.FRAME_HEADER);
+                Wire.header(b, Wire.BYE, 0).flip();
+                Wire.writeFully(channel, b);
+            } catch (IOException e) {
+                // worker already gone; the reader will see EOF
+            }
+        }
+
+        void awaitClosed(long timeoutMs) {
+            try {
+                if (reader != null) reader.join(timeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private void readLoop() {
+            ByteBuffer in = ByteBuffer.allocateDirect(Wire.MAX_FRAME + 64 * 1024);
+            try {
+                boolean open = true;
+                while (open) {
+                    if (channel.read(in) < 0) break;
+                    in.flip();
+                    open = Wire.drain(in, this::onFrame);
+                }
+            } catch (IOException e) {
+                if (channel.isOpen()) System.err.println("shard link " + id + " failed: " + e.getMessage());
+            } finally {
+                // release any producer still waiting on this worker
+                window.release(WINDOW);
+            }
+        }
+
+        private void onFrame(byte type, ByteBuffer p) {
+            long now = System.nanoTime();
+            if (type == Wire.ACK) {
+                int s = p.getInt();
+                int count = p.getInt();
+                batchRtt.record(now - sentAt.get(s & (WINDOW - 1)));
+                acked.add(count);
+                acks.incrementAndGet();
+                window.release();
+            } else if (type == Wire.STATE) {
+                applied = p.getLong();
+                active = p.getInt();
+                int n = p.getInt();
+                for (int i = 0; i < n; i++) {
+                    int node = p.getInt();
+                    cpu[node] = p.get();
+                    mem[node] = p.get();
+                }
+                stateFrames.incrementAndGet();
+            }
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
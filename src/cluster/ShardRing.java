@@ -0,0 +1,63 @@
+package cluster;
+
+import java.util.Arrays;
+
+/**
+ * Consistent-hash ring mapping node ids to workers. Each worker owns many virtual points on the
+ * ring, so nodes spread evenly and adding a worker moves only about 1/n of them.
+ */
+public final class ShardRing {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+    public static final int MAX_WORKERS = 64;
+
+    private final int workers;
+    private final long[] points;
+    private final int[] owners;
+
+    public ShardRing(int workers) {
+        this(workers, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ShardRing(int workers, int virtualNodes) {
+        if (workers < 1 || workers > MAX_WORKERS) throw new IllegalArgumentException("workers must be 1.." + MAX_WORKERS);
+        this.workers = workers;
+        int n = workers * virtualNodes;
+        long[] hashes = new long[n];
+        for (int w = 0, i = 0; w < workers; w++) {
+            for (int v = 0; v < virtualNodes; v++, i++) hashes[i] = mix(((long) w << 32) | v);
+        }
+        // sort points together with their owner by sorting indices keyed on the hash
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+        points = new long[n];
+        owners = new int[n];
+        for (int i = 0; i < n; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = order[i] / virtualNodes;
+        }
+    }
+
+    public int workers() { return workers; }
+
+    /** Worker owning {@code node}: the first ring point at or after the node's hash. */
+    public int workerFor(int node) {
+        int i = Arrays.binarySearch(points, mix(node));
+        if (i < 0) i = -i - 1;
+        return owners[i == points.length ? 0 : i];
+    }
+
+    /** Owner of every node in {@code [0, nodeCount)}, for O(1) routing on the hot path. */
+    public byte[] ownerTable(int nodeCount) {
+        byte[] table = new byte[nodeCount];
+        for (int node = 0; node < nodeCount; node++) table[node] = (byte) workerFor(node);
+        return table;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,167 @@
+package cluster;
+
+import cti.NodeModel;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * One shard of the distributed simulation, run in its own JVM by {@link ShardCoordinator}.
+ * Owns the nodes the {@link ShardRing} assigns to it, applies routed attack batches to a local
+ * {@link NodeModel}, acknowledges each batch, and streams changed node levels back every
+ * {@link #STATE_INTERVAL_MS}. Single-threaded: one selector loop does all of it.
+ *
+ * <p>Usage: {@code java cluster.ShardWorker <host> <port> <workerId> <workers> <nodeCount>}
+ */
+public final class ShardWorker {
+
+    static final long STATE_INTERVAL_MS = 100;
+    private static final long ADVANCE_INTERVAL_MS = 10;
+
+    private final int id;
+    private final int[] owned;       // local index -> node id
+    private final int[] local;       // node id -> local index, -1 if another shard's
+    private final NodeModel model;
+    private final byte[] lastCpu, lastMem;
+
+    private final ByteBuffer in = ByteBuffer.allocateDirect(Wire.MAX_FRAME + 64 * 1024);
+    private final ByteBuffer out = ByteBuffer.allocateDirect(256 * 1024);
+    private SocketChannel channel;
+    private Selector writeSelector;
+    private long nowMs;
+
+    ShardWorker(int id, int workers, int nodeCount) {
+        this.id = id;
+        byte[] owners = new ShardRing(workers).ownerTable(nodeCount);
+        int count = 0;
+        for (byte o : owners) if (o == id) count++;
+        owned = new int[count];
+        local = new int[nodeCount];
+        for (int node = 0, i = 0; node < nodeCount; node++) {
+            if (owners[node] == id) {
+                owned[i] = node;
+                local[node] = i++;
+            } else {
+                local[node] = -1;
+            }
+        }
+        model = new NodeModel(Math.max(1, count));
+        lastCpu = new byte[Math.max(1, count)];
+        lastMem = new byte[Math.max(1, count)];
+        for (int i = 0; i < lastCpu.length; i++) {
+            lastCpu[i] = NodeModel.BASE_CPU;
+            lastMem[i] = NodeModel.BASE_MEM;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 5) {
+            System.err.println("usage: ShardWorker <host> <port> <workerId> <workers> <nodeCount>");
+            System.exit(2);
+        }
+        ShardWorker worker = new ShardWorker(Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+        worker.run(new InetSocketAddress(args[0], Integer.parseInt(args[1])));
+    }
+
+    void run(InetSocketAddress coordinator) throws IOException {
+        try (SocketChannel ch = SocketChannel.open(coordinator);
+             Selector readSelector = Selector.open();
+             Selector ws = Selector.open()) {
+            channel = ch;
+            writeSelector = ws;
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            ch.configureBlocking(false);
+            ch.register(readSelector, SelectionKey.OP_READ);
+            ch.register(ws, SelectionKey.OP_WRITE);
+
+            Wire.header(out, Wire.HELLO, 4).putInt(id);
+            flush();
+
+            long lastAdvance = 0, lastState = System.currentTimeMillis();
+            boolean open = true;
+            while (open) {
+                readSelector.select(ADVANCE_INTERVAL_MS);
+                readSelector.selectedKeys().clear();
+                nowMs = System.currentTimeMillis();
+                int n = ch.read(in);
+                if (n < 0) return;   // coordinator went away
+                if (n > 0) {
+                    in.flip();
+                    open = Wire.drain(in, this::onFrame);
+                }
+                if (nowMs - lastAdvance >= ADVANCE_INTERVAL_MS) {
+                    model.advance(nowMs);
+                    lastAdvance = nowMs;
+                }
+                if (nowMs - lastState >= STATE_INTERVAL_MS || !open) {
+                    writeState();
+                    lastState = nowMs;
+                }
+                flush();
+            }
+            Wire.header(out, Wire.BYE, 0);
+            flush();
+        }
+    }
+
+    private void onFrame(byte type, ByteBuffer p) throws IOException {
+        if (type == Wire.ATTACKS) {
+            int seq = p.getInt();
+            p.getLong();
+            int count = p.getInt();
+            for (int i = 0; i < count; i++) {
+                int node = p.getInt();
+                int code = p.get();
+                p.getInt();   // ip and event time are not used by the node model
+                p.getInt();
+                int idx = node >= 0 && node < local.length ? local[node] : -1;
+                if (idx >= 0) model.applyAttack(idx, Wire.type(code), Wire.intensity(code), nowMs);
+            }
+            ensureOut(Wire.FRAME_HEADER + 8);
+            Wire.header(out, Wire.ACK, 8).putInt(seq).putInt(count);
+        }
+    }
+
+    /** Sends every owned node whose level changed since the last report, in bounded chunks. */
+    private void writeState() throws IOException {
+        model.advance(nowMs);
+        int i = 0;
+        boolean sentAny = false;
+        while (i < owned.length || !sentAny) {
+            ensureOut(Wire.FRAME_HEADER + 16 + Wire.MAX_STATE_NODES * Wire.NODE_STATE_BYTES);
+            int start = out.position();
+            Wire.header(out, Wire.STATE, 0).putLong(model.appliedCount()).putInt(model.activeCount()).putInt(0);
+            int n = 0;
+            for (; i < owned.length && n < Wire.MAX_STATE_NODES; i++) {
+                byte cpu = (byte) model.cpu(i), mem = (byte) model.mem(i);
+                if (cpu == lastCpu[i] && mem == lastMem[i]) continue;
+                lastCpu[i] = cpu;
+                lastMem[i] = mem;
+                out.putInt(owned[i]).put(cpu).put(mem);
+                n++;
+            }
+            out.putInt(start, out.position() - start - 4).putInt(start + Wire.FRAME_HEADER + 12, n);
+            sentAny = true;
+        }
+    }
+
+    private void ensureOut(int bytes) throws IOException {
+        if (out.remaining() < bytes) flush();
+    }
+
+    private void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            if (channel.write(out) == 0) {
+                writeSelector.select(10);
+                writeSelector.selectedKeys().clear();
+            }
+        }
+        out.clear();
+    }
+}
@@ -0,0 +1,79 @@
+package cluster;
+
+import cti.Attacker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Length-prefixed binary frames exchanged between {@link ShardCoordinator} and
+ * {@link ShardWorker}: {@code length(int32) type(u8) payload}, where length counts the type
+ * byte and payload. Big-endian, as {@link ByteBuffer} defaults.
+ *
+ * <pre>
+ * HELLO    worker -> coord   workerId(int32)
+ * ATTACKS  coord -> worker   seq(int32) baseTsMs(int64) count(int32) count * event
+ *          event := node(int32) code(u8: type ordinal | intensity << 2) ip(int32) tsDeltaMs(int32)
+ * ACK      worker -> coord   seq(int32) count(int32)
+ * STATE    worker -> coord   applied(int64) active(int32) n(int32) n * (node(int32) cpu(u8) mem(u8))
+ * BYE      both ways         (empty) - coordinator asks to stop; worker answers after a final STATE
+ * </pre>
+ */
+final class Wire {
+
+    static final byte HELLO = 1, ATTACKS = 2, ACK = 3, STATE = 4, BYE = 5;
+
+    static final int FRAME_HEADER = 5;
+    static final int ATTACKS_HEADER = FRAME_HEADER + 4 + 8 + 4;
+    static final int EVENT_BYTES = 13;
+    static final int NODE_STATE_BYTES = 6;
+    static final int MAX_FRAME = 1 << 20;
+    /** STATE frames are split so one never exceeds {@link #MAX_FRAME}. */
+    static final int MAX_STATE_NODES = 16_384;
+
+    private static final Attacker.AttackType[] TYPES = Attacker.AttackType.values();
+
+    private Wire() {}
+
+    interface Handler {
+        /** {@code payload} is positioned at the first payload byte and limited to this frame. */
+        void frame(byte type, ByteBuffer payload) throws IOException;
+    }
+
+    static int code(Attacker.AttackType type, int intensity) { return type.ordinal() | (intensity << 2); }
+    static Attacker.AttackType type(int code) { return TYPES[code & 3]; }
+    static int intensity(int code) { return code >>> 2; }
+
+    /**
+     * Dispatches every complete frame in {@code buf} (in read mode), then compacts it so the
+     * next read appends after any partial frame. Returns false once a BYE has been seen.
+     */
+    static boolean drain(ByteBuffer buf, Handler handler) throws IOException {
+        boolean open = true;
+        while (buf.remaining() >= FRAME_HEADER) {
+            int start = buf.position();
+            int len = buf.getInt(start);
+            if (len < 1 || len > MAX_FRAME) throw new IOException("bad frame length " + len);
+            if (buf.remaining() < 4 + len) break;
+            byte type = buf.get(start + 4);
+            int end = start + 4 + len;
+            int limit = buf.limit();
+            buf.position(start + FRAME_HEADER).limit(end);
+            handler.frame(type, buf);
+            buf.limit(limit).position(end);
+            if (type == BYE) open = false;
+        }
+        buf.compact();
+        return open;
+    }
+
+    /** Writes a header for a frame whose payload will be {@code payloadBytes} long. */
+    static ByteBuffer header(ByteBuffer buf, byte type, int payloadBytes) {
+        return buf.putInt(payloadBytes + 1).put(type);
+    }
+
+    static void writeFully(SocketChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) ch.write(buf);
+    }
+}
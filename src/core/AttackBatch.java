@@ -0,0 +1,45 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * Attack events as primitive columns: one byte of intensity and one of type ordinal per event,
+ * plus an epoch-millisecond timestamp. Kernels in {@link GenericProcessor} stream over these
+ * arrays instead of chasing one object per event. Rows {@code [0, size)} are valid.
+ */
+public final class AttackBatch {
+
+    byte[] intensity;
+    byte[] type;
+    long[] timestampMs;
+    int size;
+
+    public AttackBatch(int capacity) {
+        intensity = new byte[capacity];
+        type = new byte[capacity];
+        timestampMs = new long[capacity];
+    }
+
+    public void add(int typeOrdinal, int intensity, long timestampMs) {
+        if (size == this.intensity.length) grow();
+        this.intensity[size] = (byte) intensity;
+        this.type[size] = (byte) typeOrdinal;
+        this.timestampMs[size] = timestampMs;
+        size++;
+    }
+
+    public void clear() { size = 0; }
+
+    public int size() { return size; }
+    public int capacity() { return intensity.length; }
+    public int intensity(int row) { return intensity[row] & 0xFF; }
+    public int type(int row) { return type[row] & 0xFF; }
+    public long timestampMs(int row) { return timestampMs[row]; }
+
+    private void grow() {
+        int n = Math.max(16, intensity.length * 2);
+        intensity = Arrays.copyOf(intensity, n);
+        type = Arrays.copyOf(type, n);
+        timestampMs = Arrays.copyOf(timestampMs, n);
+    }
+}
@@ -0,0 +1,38 @@
+package core;
+
+/**
+ * The loops behind {@link GenericProcessor}. Bytes are read unsigned everywhere, so every
+ * implementation agrees on out-of-range input too.
+ */
+interface ColumnKernels {
+
+    /** Sum of {@code a[0..n)}. */
+    long sum(byte[] a, int n);
+
+    /** Adds the count of each value {@code v < counts.length} to {@code counts[v]}; larger values are skipped. */
+    void histogram(byte[] a, int n, long[] counts);
+
+    /** Writes the indexes of values {@code >= threshold} to {@code out} in order; returns how many. Slots past the count may be overwritten. */
+    int filterAtLeast(byte[] a, int n, int threshold, int[] out);
+
+    /** Rows whose intensity is outside 1..10, type is not below {@code types} or timestamp is outside [min, max]. */
+    int countInvalid(byte[] intensity, byte[] type, long[] ts, int n, int types, long minTs, long maxTs);
+
+    String name();
+
+    /**
+     * The Vector API kernels when they were compiled from {@code src-vector} and the JVM was started
+     * with {@code --add-modules jdk.incubator.vector} (and {@code -Dcore.vector=false} is not set),
+     * the scalar ones otherwise.
+     */
+    static ColumnKernels best() {
+        if (!Boolean.parseBoolean(System.getProperty("core.vector", "true"))) return new ScalarKernels();
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return new ScalarKernels();
+        try {
+            // loaded by name: it lives in src-vector, which only compiles with the incubator module
+            return (ColumnKernels) Class.forName("core.VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarKernels();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package core;
+
+import metrics.Counter;
+import metrics.Metrics;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Severity analytics over any attack-like type {@code T}: average severity, severity histogram,
+ * extreme-attack filtering and validation. The accessors only run once per element, in
+ * {@link #columns}; every query then runs over the primitive columns of an {@link AttackBatch}
+ * with the Vector API kernels when available and plain loops otherwise.
+ */
+public final class GenericProcessor<T> {
+
+    public static final int MAX_SEVERITY = 10;
+
+    private static final Counter ROWS = Metrics.counter("core.rows.scanned");
+
+    private final ToIntFunction<? super T> severity;
+    private final ToIntFunction<? super T> type;
+    private final ToLongFunction<? super T> timestampMs;
+    private final int types;
+    private final ColumnKernels kernels;
+
+    /** {@code types} is the number of valid type ordinals; at most 256. */
+    public GenericProcessor(ToIntFunction<? super T> severity, ToIntFunction<? super T> type,
+                            ToLongFunction<? super T> timestampMs, int types) {
+        this(severity, type, timestampMs, types, ColumnKernels.best());
+    }
+
+    GenericProcessor(ToIntFunction<? super T> severity, ToIntFunction<? super T> type,
+                     ToLongFunction<? super T> timestampMs, int types, ColumnKernels kernels) {
+        if (types < 1 || types > 256) throw new IllegalArgumentException("types must be 1..256: " + types);
+        this.severity = severity;
+        this.type = type;
+        this.timestampMs = timestampMs;
+        this.types = types;
+        this.kernels = kernels;
+    }
+
+    /** Same accessors, scalar kernels only; for comparing against the vector path. */
+    public GenericProcessor<T> scalar() {
+        return new GenericProcessor<>(severity, type, timestampMs, types, new ScalarKernels());
+    }
+
+    /** Appends {@code items} to {@code batch} (cleared first) and returns it. */
+    public AttackBatch columns(Collection<? extends T> items, AttackBatch batch) {
+        batch.clear();
+        for (T t : items) batch.add(type.applyAsInt(t), severity.applyAsInt(t), timestampMs.applyAsLong(t));
+        return batch;
+    }
+
+    public AttackBatch columns(Collection<? extends T> items) {
+        return columns(items, new AttackBatch(items.size()));
+    }
+
+    /** Mean severity, or NaN for an empty batch. */
+    public double averageSeverity(AttackBatch b) {
+        ROWS.add(b.size);
+        return b.size == 0 ? Double.NaN : (double) kernels.sum(b.intensity, b.size) / b.size;
+    }
+
+    /** Count per severity 0..{@value #MAX_SEVERITY}; anything above is not counted. */
+    public long[] severityHistogram(AttackBatch b) {
+        ROWS.add(b.size);
+        long[] counts = new long[MAX_SEVERITY + 1];
+        kernels.histogram(b.intensity, b.size, counts);
+        return counts;
+    }
+
+    /** Rows with severity at least {@code threshold}, in order. */
+    public int[] filterExtreme(AttackBatch b, int threshold) {
+        int[] out = new int[b.size];
+        return Arrays.copyOf(out, filterExtreme(b, threshold, out));
+    }
+
+    /** As {@link #filterExtreme(AttackBatch, int)} into {@code out} (at least {@code size()} long); returns the count. */
+    public int filterExtreme(AttackBatch b, int threshold, int[] out) {
+        if (out.length < b.size) throw new IllegalArgumentException("out holds " + out.length + " of " + b.size + " rows");
+        ROWS.add(b.size);
+        return kernels.filterAtLeast(b.intensity, b.size, threshold, out);
+    }
+
+    /** Rows with severity outside 1..{@value #MAX_SEVERITY}, an unknown type or a timestamp outside [min, max]. */
+    public int countInvalid(AttackBatch b, long minTs, long maxTs) {
+        ROWS.add(b.size);
+        return kernels.countInvalid(b.intensity, b.type, b.timestampMs, b.size, types, minTs, maxTs);
+    }
+
+    public boolean validate(AttackBatch b, long minTs, long maxTs) {
+        return countInvalid(b, minTs, maxTs) == 0;
+    }
+
+    /** {@code scalar} or {@code vector-<bits>}. */
+    public String kernels() { return kernels.name(); }
+}
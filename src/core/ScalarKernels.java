@@ -0,0 +1,47 @@
+package core;
+
+/** Plain loops: the fallback without the incubator module, and the reference the vector kernels match. */
+final class ScalarKernels implements ColumnKernels {
+
+    @Override
+    public long sum(byte[] a, int n) { return sum(a, 0, n); }
+
+    @Override
+    public void histogram(byte[] a, int n, long[] counts) { histogram(a, 0, n, counts); }
+
+    @Override
+    public int filterAtLeast(byte[] a, int n, int threshold, int[] out) {
+        int c = 0;
+        for (int i = 0; i < n; i++) {
+            // branch-free: write every index, advance only on a match
+            out[c] = i;
+            c += (a[i] & 0xFF) >= threshold ? 1 : 0;
+        }
+        return c;
+    }
+
+    @Override
+    public int countInvalid(byte[] intensity, byte[] type, long[] ts, int n, int types, long minTs, long maxTs) {
+        int bad = 0;
+        for (int i = 0; i < n; i++) {
+            int v = intensity[i] & 0xFF;
+            if (v < 1 || v > 10 || (type[i] & 0xFF) >= types || ts[i] < minTs || ts[i] > maxTs) bad++;
+        }
+        return bad;
+    }
+
+    @Override public String name() { return "scalar"; }
+
+    static long sum(byte[] a, int from, int to) {
+        long s = 0;
+        for (int i = from; i < to; i++) s += a[i] & 0xFF;
+        return s;
+    }
+
+    static void histogram(byte[] a, int from, int to, long[] counts) {
+        for (int i = from; i < to; i++) {
+            int v = a[i] & 0xFF;
+            if (v < counts.length) counts[v]++;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package cti;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.BinaryOperator;
+
+/**
+ * Bounded, priority-aware inbox between attack producers and the thread that applies them.
+ * Events are banded by intensity: CRITICAL ({@code >= 9}), HIGH (7..8) and LOW. Below the low
+ * watermark everything is admitted. Above it, a LOW event is first merged into the node's
+ * already-queued LOW event if there is one, otherwise admitted one in {@code sampleEvery}.
+ * At capacity, CRITICAL and HIGH events evict the oldest lower-band event, and anything else
+ * is shed. {@link #poll()} serves CRITICAL, then HIGH, then LOW, so under overload the queue
+ * holds only what is worth applying and CRITICAL latency stays flat. Every event that is not
+ * admitted is counted.
+ * <p>
+ * Safe for many producers and one consumer.
+ */
+public final class AdmissionQueue<T> {
+
+    public enum Outcome { ADMITTED, COALESCED, SHED }
+
+    public static final int CRITICAL = 0, HIGH = 1, LOW = 2;
+
+    private static final Counter ADMITTED = Metrics.counter("admission.admitted");
+    private static final Counter COALESCED = Metrics.counter("admission.coalesced");
+    private static final Counter SHED_SAMPLED = Metrics.counter("admission.shed.sampled");
+    private static final Counter SHED_FULL = Metrics.counter("admission.shed.full");
+    private static final Counter SHED_EVICTED = Metrics.counter("admission.shed.evicted");
+
+    private static final class Entry<T> {
+        T item;
+        final int node;
+        final int band;
+        final long enqueuedNanos;
+
+        Entry(T item, int node, int band, long enqueuedNanos) {
+            this.item = item;
+            this.node = node;
+            this.band = band;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    private final int capacity;
+    private final int lowWatermark;
+    private final int sampleEvery;
+    private final BinaryOperator<T> merge;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ArrayDeque<Entry<T>>[] bands = new ArrayDeque[]{new ArrayDeque<>(), new ArrayDeque<>(), new ArrayDeque<>()};
+    private final Entry<T>[] pendingLow;
+    private int size;
+    private long lowSeen;
+    private final LatencyHistogram[] wait = {new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram()};
+
+    private long admitted, coalesced, sampledOut, full, evicted;
+    private int maxSize;
+
+    /**
+     * @param nodes       node count, for per-node coalescing (node ids are taken modulo it)
+     * @param merge       combines a queued LOW event with a newer one for the same node
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public AdmissionQueue(int capacity, int lowWatermark, int sampleEvery, int nodes, BinaryOperator<T> merge) {
+        if (capacity < 1 || lowWatermark < 0 || lowWatermark > capacity || sampleEvery < 1 || nodes < 1) {
+            throw new IllegalArgumentException("need capacity >= 1, 0 <= lowWatermark <= capacity, sampleEvery >= 1, nodes >= 1");
+        }
+        this.capacity = capacity;
+        this.lowWatermark = lowWatermark;
+        this.sampleEvery = sampleEvery;
+        this.merge = merge;
+        this.pendingLow = new Entry[nodes];
+    }
+
+    /** Half the capacity as low watermark, one LOW event in 8 sampled above it. */
+    public AdmissionQueue(int capacity, int nodes, BinaryOperator<T> merge) {
+        this(capacity, capacity / 2, 8, nodes, merge);
+    }
+
+    public static int band(int intensity) {
+        return intensity >= 9 ? CRITICAL : intensity >= 7 ? HIGH : LOW;
+    }
+
+    public synchronized Outcome offer(T item, int node, int intensity) {
+        int band = band(intensity);
+        int slot = Math.floorMod(node, pendingLow.length);
+        if (band == LOW && size >= lowWatermark) {
+            Entry<T> pending = pendingLow[slot];
+            if (pending != null) {
+                pending.item = merge.apply(pending.item, item);
+                coalesced++;
+                COALESCED.increment();
+                return Outcome.COALESCED;
+            }
+            if (++lowSeen % sampleEvery != 0) {
+                sampledOut++;
+                SHED_SAMPLED.increment();
+                return Outcome.SHED;
+            }
+        }
+        if (size >= capacity && !evictBelow(band)) {
+            full++;
+            SHED_FULL.increment();
+            return Outcome.SHED;
+        }
+        Entry<T> e = new Entry<>(item, slot, band, System.nanoTime());
+        bands[band].addLast(e);
+        if (band == LOW && pendingLow[slot] == null) pendingLow[slot] = e;
+        if (++size > maxSize) maxSize = size;
+        admitted++;
+        ADMITTED.increment();
+        return Outcome.ADMITTED;
+    }
+
+    /** Drops the oldest event of the lowest band below {@code band}; false if there is none. */
+    private boolean evictBelow(int band) {
+        for (int b = LOW; b > band; b--) {
+            Entry<T> victim = bands[b].pollFirst();
+            if (victim == null) continue;
+            if (pendingLow[victim.node] == victim) pendingLow[victim.node] = null;
+            size--;
+            evicted++;
+            SHED_EVICTED.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /** Highest-priority, oldest event, or null when empty. */
+    public synchronized T poll() {
+        for (ArrayDeque<Entry<T>> q : bands) {
+            Entry<T> e = q.pollFirst();
+            if (e == null) continue;
+            if (pendingLow[e.node] == e) pendingLow[e.node] = null;
+            size--;
+            wait[e.band].record(System.nanoTime() - e.enqueuedNanos);
+            return e.item;
+        }
+        return null;
+    }
+
+    /** Time events of a band spent queued before {@link #poll()} returned them. */
+    public LatencyHistogram queueWait(int band) { return wait[band]; }
+
+    public synchronized int size() { return size; }
+
+    public synchronized int size(int band) { return bands[band].size(); }
+
+    public synchronized void clear() {
+        for (ArrayDeque<Entry<T>> q : bands) q.clear();
+        Arrays.fill(pendingLow, null);
+        size = 0;
+    }
+
+    public int capacity() { return capacity; }
+
+    public synchronized long admittedCount() { return admitted; }
+
+    public synchronized long coalescedCount() { return coalesced; }
+
+    /** Deepest the queue has been. */
+    public synchronized int maxSize() { return maxSize; }
+
+    /** Events not admitted as their own entry: merged, sampled out, rejected when full, or evicted later. */
+    public synchronized long shedCount() { return coalesced + sampledOut + full + evicted; }
+
+    public synchronized String stats() {
+        return String.format(Locale.ROOT,
+                "inbox %d/%d (max %d) admitted=%d coalesced=%d sampled-out=%d full=%d evicted=%d",
+                size, capacity, maxSize, admitted, coalesced, sampledOut, full, evicted);
+    }
+}
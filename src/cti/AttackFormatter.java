@@ -0,0 +1,174 @@
+package cti;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Renders attack events in the {@link Attacker#toString()} layout without per-event garbage:
+ * {@code event(...)} encodes into a reusable char array, and the line is then copied into a
+ * caller's {@link StringBuilder}, {@link CharBuffer} or {@link ByteBuffer}. The ISO-8601 timestamp
+ * prefix ({@code yyyy-MM-ddTHH:mm:ss}) is cached per epoch second, so only the fraction is
+ * rendered per event. Ids that are not strings, char sequences or integral boxes go through
+ * {@code String.valueOf}.
+ * <p>
+ * Not thread-safe: keep one instance per thread, or use {@link #local()}.
+ */
+public final class AttackFormatter {
+
+    private static final ThreadLocal<AttackFormatter> LOCAL = ThreadLocal.withInitial(AttackFormatter::new);
+
+    private static final char[] ID = "Attacker{id=".toCharArray();
+    private static final char[] IP = ", ip=".toCharArray();
+    private static final char[] TYPE = ", type=".toCharArray();
+    private static final char[] INTENSITY = ", intensity=".toCharArray();
+    private static final char[] TS = ", ts=".toCharArray();
+    private static final char[] NULL = "null".toCharArray();
+    private static final char[][] TYPE_NAMES;
+    static {
+        Attacker.AttackType[] types = Attacker.AttackType.values();
+        TYPE_NAMES = new char[types.length][];
+        for (int i = 0; i < types.length; i++) TYPE_NAMES[i] = types[i].name().toCharArray();
+    }
+
+    private char[] line = new char[128];
+    private int len;
+    private final char[] secondPrefix = new char[32];
+    private int secondPrefixLen;
+    private long cachedSecond = Long.MIN_VALUE;
+
+    /** The calling thread's formatter. */
+    public static AttackFormatter local() { return LOCAL.get(); }
+
+    public AttackFormatter event(Attacker<?> a) {
+        Instant ts = a.getTimestamp();
+        len = 0;
+        put(ID); putId(a.getId());
+        put(IP);
+        String ip = a.getIp();
+        if (ip == null) put(NULL); else putChars(ip);
+        return finish(a.getType(), a.getIntensity(), ts.getEpochSecond(), ts.getNano());
+    }
+
+    /** Same layout for an event held as primitives, with the address packed as by {@link Ipv4#pack}. */
+    public AttackFormatter event(Object id, int ip, Attacker.AttackType type, int intensity, long epochSecond, int nanos) {
+        len = 0;
+        put(ID); putId(id);
+        put(IP);
+        ensure(15);
+        putLong(ip >>> 24); line[len++] = '.';
+        putLong((ip >>> 16) & 0xFF); line[len++] = '.';
+        putLong((ip >>> 8) & 0xFF); line[len++] = '.';
+        putLong(ip & 0xFF);
+        return finish(type, intensity, epochSecond, nanos);
+    }
+
+    /** Epoch milliseconds variant of {@link #event(Object, int, Attacker.AttackType, int, long, int)}. */
+    public AttackFormatter event(Object id, int ip, Attacker.AttackType type, int intensity, long epochMillis) {
+        return event(id, ip, type, intensity, Math.floorDiv(epochMillis, 1000), Math.floorMod(epochMillis, 1000) * 1_000_000);
+    }
+
+    /** Length of the last encoded line. */
+    public int length() { return len; }
+
+    public StringBuilder appendTo(StringBuilder sb) { return sb.append(line, 0, len); }
+
+    /** Writes the whole line or nothing; throws {@link BufferOverflowException} if it does not fit. */
+    public CharBuffer writeTo(CharBuffer out) { return out.put(line, 0, len); }
+
+    /** US-ASCII; characters outside it become {@code '?'}. Writes the whole line or nothing. */
+    public ByteBuffer writeTo(ByteBuffer out) {
+        if (out.remaining() < len) throw new BufferOverflowException();
+        int p = out.position();
+        for (int i = 0; i < len; i++) {
+            char c = line[i];
+            out.put(p + i, c < 0x80 ? (byte) c : (byte) '?');
+        }
+        return out.position(p + len);
+    }
+
+    /** Convenience for {@code event(a).appendTo(sb)}. */
+    public StringBuilder append(Attacker<?> a, StringBuilder sb) { return event(a).appendTo(sb); }
+
+    /** The last encoded line as a new String (the only allocation on this path). */
+    @Override
+    public String toString() { return new String(line, 0, len); }
+
+    private AttackFormatter finish(Attacker.AttackType type, int intensity, long epochSecond, int nanos) {
+        put(TYPE); put(TYPE_NAMES[type.ordinal()]);
+        put(INTENSITY); ensure(20); putLong(intensity);
+        put(TS); putTimestamp(epochSecond, nanos);
+        ensure(1);
+        line[len++] = '}';
+        return this;
+    }
+
+    // same text as Instant.toString(): the fraction is omitted when zero, otherwise printed in groups of three digits
+    private void putTimestamp(long epochSecond, int nanos) {
+        if (epochSecond != cachedSecond) {
+            String s = DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochSecond(epochSecond));
+            secondPrefixLen = s.length() - 1;   // without the trailing 'Z'
+            s.getChars(0, secondPrefixLen, secondPrefix, 0);
+            cachedSecond = epochSecond;
+        }
+        ensure(secondPrefixLen + 11);
+        System.arraycopy(secondPrefix, 0, line, len, secondPrefixLen);
+        len += secondPrefixLen;
+        if (nanos != 0) {
+            int digits = nanos % 1_000_000 == 0 ? 3 : nanos % 1000 == 0 ? 6 : 9;
+            int v = digits == 3 ? nanos / 1_000_000 : digits == 6 ? nanos / 1000 : nanos;
+            line[len++] = '.';
+            for (int i = len + digits - 1; i >= len; i--, v /= 10) line[i] = (char) ('0' + v % 10);
+            len += digits;
+        }
+        line[len++] = 'Z';
+    }
+
+    private void putId(Object id) {
+        if (id == null) put(NULL);
+        else if (id instanceof String s) putChars(s);
+        else if (id instanceof Integer || id instanceof Long || id instanceof Short || id instanceof Byte) {
+            ensure(20);
+            putLong(((Number) id).longValue());
+        } else if (id instanceof CharSequence cs) {
+            ensure(cs.length());
+            for (int i = 0, n = cs.length(); i < n; i++) line[len++] = cs.charAt(i);
+        } else putChars(String.valueOf(id));
+    }
+
+    private void put(char[] chars) {
+        ensure(chars.length);
+        System.arraycopy(chars, 0, line, len, chars.length);
+        len += chars.length;
+    }
+
+    private void putChars(String s) {
+        ensure(s.length());
+        s.getChars(0, s.length(), line, len);
+        len += s.length();
+    }
+
+    /** Caller ensures 20 free chars. */
+    private void putLong(long v) {
+        if (v < 0) {
+            if (v == Long.MIN_VALUE) { putChars("-9223372036854775808"); return; }
+            line[len++] = '-';
+            v = -v;
+        }
+        int start = len;
+        do {
+            line[len++] = (char) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        for (int i = start, j = len - 1; i < j; i++, j--) {
+            char t = line[i]; line[i] = line[j]; line[j] = t;
+        }
+    }
+
+    private void ensure(int n) {
+        if (len + n > line.length) line = Arrays.copyOf(line, Math.max(len + n, line.length * 2));
+    }
+}
@@ -0,0 +1,373 @@
+package cti;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams attack events to CSV or NDJSON files from a dedicated writer thread.
+ * Producers only enqueue a small row object into a bounded queue; the writer drains it in
+ * batches and encodes rows straight into a reusable byte buffer (no per-row Strings or
+ * String.format), optionally gzipping on the fly. Files roll by uncompressed size or age.
+ */
+public final class AttackLogExporter implements Closeable {
+
+    public enum Format { CSV, NDJSON }
+
+    /** What {@link #offer} does when the queue is full. */
+    public enum Backpressure { BLOCK, DROP }
+
+    public static final int DEFAULT_CAPACITY = 65_536;
+    public static final long DEFAULT_ROLL_BYTES = 64L * 1024 * 1024;
+    public static final long DEFAULT_ROLL_MILLIS = 60L * 60 * 1000;
+
+    private static final Counter ROWS_WRITTEN = Metrics.counter("export.rows.written");
+    private static final Counter ROWS_DROPPED = Metrics.counter("export.rows.dropped");
+    private static final LatencyHistogram BATCH_WRITE = Metrics.histogram("export.batch.write");
+
+    private static final int BATCH = 4096;
+    private static final int BUFFER_BYTES = 256 * 1024;
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final byte[] CSV_HEADER = "ts_ms,node,id,ip,type,intensity,source\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DIGITS = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    private static final class Row {
+        final long tsMillis;
+        final int node;
+        final Object id;
+        final String ip;
+        final Attacker.AttackType type;
+        final int intensity;
+        final String source;
+
+        Row(int node, Attacker<?> a, String source) {
+            this.tsMillis = a.getTimestamp().toEpochMilli();
+            this.node = node;
+            this.id = a.getId();
+            this.ip = a.getIp();
+            this.type = a.getType();
+            this.intensity = a.getIntensity();
+            this.source = source;
+        }
+    }
+
+    private final Path dir;
+    private final String baseName;
+    private final Format format;
+    private final boolean gzip;
+    private final long rollBytes;
+    private final long rollMillis;
+    private final Backpressure backpressure;
+    private final BlockingQueue<Row> queue;
+
+    private final Thread writer;
+    private volatile boolean running;
+    private volatile IOException failure;
+
+    // writer-thread state
+    private byte[] buf = new byte[BUFFER_BYTES];
+    private int pos;
+    private OutputStream out;
+    private Path current;
+    private long fileBytes;
+    private long fileOpenedMs;
+    private int fileSeq;
+    private final List<Path> written = new ArrayList<>();
+
+    public AttackLogExporter(Path dir, String baseName, Format format, boolean gzip) {
+        this(dir, baseName, format, gzip, DEFAULT_ROLL_BYTES, DEFAULT_ROLL_MILLIS, DEFAULT_CAPACITY, Backpressure.DROP);
+    }
+
+    public AttackLogExporter(Path dir, String baseName, Format format, boolean gzip, long rollBytes, long rollMillis,
+                             int capacity, Backpressure backpressure) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1");
+        this.dir = dir;
+        this.baseName = baseName;
+        this.format = format;
+        this.gzip = gzip;
+        this.rollBytes = rollBytes > 0 ? rollBytes : Long.MAX_VALUE;
+        this.rollMillis = rollMillis > 0 ? rollMillis : Long.MAX_VALUE;
+        this.backpressure = backpressure;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::writeLoop, "attack-export-writer");
+        this.writer.setDaemon(true);
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) return;
+        Files.createDirectories(dir);
+        openNext();
+        running = true;
+        writer.start();
+    }
+
+    /**
+     * Enqueues one event. Returns false if the row was dropped (DROP policy and queue full,
+     * or exporter not running). Under BLOCK the caller waits for space while the exporter runs.
+     */
+    public boolean offer(int node, Attacker<?> attacker, String source) {
+        if (!running) return false;
+        Row row = new Row(node, attacker, source);
+        if (backpressure == Backpressure.BLOCK) {
+            try {
+                // bounded waits, so a blocked producer notices when the writer stops
+                while (running) {
+                    if (queue.offer(row, 100, TimeUnit.MILLISECONDS)) return enqueued(row);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else if (queue.offer(row)) {
+            return enqueued(row);
+        }
+        ROWS_DROPPED.increment();
+        return false;
+    }
+
+    /**
+     * If the exporter stopped while the row went in, takes it back out and counts it as dropped.
+     * A row already gone from the queue was taken by the writer, which writes it or counts it.
+     */
+    private boolean enqueued(Row row) {
+        if (running || !queue.remove(row)) return true;
+        ROWS_DROPPED.increment();
+        return false;
+    }
+
+    public int queued() { return queue.size(); }
+    public boolean isRunning() { return running; }
+    public Path currentFile() { return current; }
+
+    /** Files completed or in progress so far; only meaningful after {@link #close}. */
+    public synchronized List<Path> files() { return new ArrayList<>(written); }
+
+    /** Last I/O error seen by the writer thread, if any. */
+    public IOException failure() { return failure; }
+
+    /**
+     * Stops accepting rows, drains what is queued, and closes the current file. Throws the
+     * writer's failure if it stopped early, also when that happened before this call.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) throw failure;
+    }
+
+    private void writeLoop() {
+        List<Row> batch = new ArrayList<>(BATCH);
+        try {
+            while (running || !queue.isEmpty()) {
+                Row first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    flushBuffer();
+                    if (System.currentTimeMillis() - fileOpenedMs >= rollMillis) roll();
+                    continue;
+                }
+                long t0 = System.nanoTime();
+                batch.add(first);
+                queue.drainTo(batch, BATCH - 1);
+                for (int i = 0, n = batch.size(); i < n; i++) {
+                    if (format == Format.CSV) encodeCsv(batch.get(i)); else encodeJson(batch.get(i));
+                }
+                ROWS_WRITTEN.add(batch.size());
+                batch.clear();
+                if (queue.isEmpty()) flushBuffer();
+                if (fileBytes + pos >= rollBytes || System.currentTimeMillis() - fileOpenedMs >= rollMillis) roll();
+                BATCH_WRITE.record(System.nanoTime() - t0);
+            }
+            flushBuffer();
+        } catch (IOException e) {
+            failure = e;
+            System.err.println("Attack export stopped: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // an encoding bug must not kill the writer silently: surface it through close()
+            failure = new IOException("Attack export writer failed", e);
+            pos = 0;   // the buffer may hold half a row
+            System.err.println("Attack export stopped: " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running = false;
+            // rows of a failed batch and anything still queued will not be written
+            int lost = batch.size();
+            lost += queue.drainTo(batch);
+            ROWS_DROPPED.add(lost);
+            batch.clear();
+            closeCurrent();
+        }
+    }
+
+    private void openNext() throws IOException {
+        String ext = (format == Format.CSV ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+        String name = baseName + "-" + LocalDateTime.now().format(FILE_STAMP) + "-" + (fileSeq++) + ext;
+        current = dir.resolve(name);
+        OutputStream raw = new FileOutputStream(current.toFile());
+        out = gzip ? new FastGzip(raw, 64 * 1024) : raw;
+        synchronized (this) { written.add(current); }
+        fileBytes = 0;
+        fileOpenedMs = System.currentTimeMillis();
+        if (format == Format.CSV) {
+            System.arraycopy(CSV_HEADER, 0, buf, pos, CSV_HEADER.length);
+            pos += CSV_HEADER.length;
+        }
+    }
+
+    /** GZIP at {@link Deflater#BEST_SPEED}; the level is only reachable from a subclass. */
+    private static final class FastGzip extends GZIPOutputStream {
+        FastGzip(OutputStream out, int size) throws IOException {
+            super(out, size);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+
+    private void roll() throws IOException {
+        flushBuffer();
+        closeCurrent();
+        openNext();
+    }
+
+    private void closeCurrent() {
+        if (out == null) return;
+        try {
+            if (pos > 0) flushBuffer();
+            out.close();
+        } catch (IOException e) {
+            if (failure == null) failure = e;
+        }
+        out = null;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (pos == 0) return;
+        out.write(buf, 0, pos);
+        fileBytes += pos;
+        pos = 0;
+    }
+
+    private void ensure(int n) throws IOException {
+        if (pos + n <= buf.length) return;
+        flushBuffer();
+        if (n > buf.length) buf = new byte[Math.max(n, buf.length * 2)];
+    }
+
+    // ---- encoding ------------------------------------------------------------------------
+
+    private void encodeCsv(Row r) throws IOException {
+        String idText = String.valueOf(r.id);
+        ensure(64 + maxBytes(r.ip) + maxBytes(r.source) + maxBytes(idText));
+        putLong(r.tsMillis); put(',');
+        putLong(r.node); put(',');
+        putCsv(idText); put(',');
+        putCsv(r.ip); put(',');
+        putAscii(r.type.name()); put(',');
+        putLong(r.intensity); put(',');
+        putCsv(r.source); put('\n');
+    }
+
+    private void encodeJson(Row r) throws IOException {
+        String idText = String.valueOf(r.id);
+        ensure(128 + maxBytes(r.ip) + maxBytes(r.source) + maxBytes(idText));
+        putAscii("{\"ts_ms\":"); putLong(r.tsMillis);
+        putAscii(",\"node\":"); putLong(r.node);
+        putAscii(",\"id\":"); putJson(idText);
+        putAscii(",\"ip\":"); putJson(r.ip);
+        putAscii(",\"type\":\""); putAscii(r.type.name());
+        putAscii("\",\"intensity\":"); putLong(r.intensity);
+        putAscii(",\"source\":"); putJson(r.source);
+        put('}'); put('\n');
+    }
+
+    /** Worst case encoded size: every char escaped or three UTF-8 bytes, plus quotes. */
+    private static int maxBytes(String s) { return s == null ? 8 : s.length() * 6 + 2; }
+
+    private void put(char c) { buf[pos++] = (byte) c; }
+
+    private void putAscii(String s) {
+        for (int i = 0, n = s.length(); i < n; i++) buf[pos++] = (byte) s.charAt(i);
+    }
+
+    private void putLong(long v) {
+        if (v < 0) {
+            if (v == Long.MIN_VALUE) { putAscii("-9223372036854775808"); return; }
+            buf[pos++] = '-';
+            v = -v;
+        }
+        int start = pos;
+        do {
+            buf[pos++] = DIGITS[(int) (v % 10)];
+            v /= 10;
+        } while (v != 0);
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            byte t = buf[i]; buf[i] = buf[j]; buf[j] = t;
+        }
+    }
+
+    private void putCsv(String s) {
+        if (s == null) return;
+        boolean quote = false;
+        for (int i = 0, n = s.length(); i < n && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (quote) put('"');
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c == '"') put('"');
+            putChar(c);
+        }
+        if (quote) put('"');
+    }
+
+    private void putJson(String s) {
+        if (s == null) { putAscii("null"); return; }
+        put('"');
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') { put('\\'); put(c); }
+            else if (c < 0x20) {
+                putAscii("\\u00");
+                buf[pos++] = (byte) Character.forDigit(c >> 4, 16);
+                buf[pos++] = (byte) Character.forDigit(c & 0xF, 16);
+            } else putChar(c);
+        }
+        put('"');
+    }
+
+    private void putChar(char c) {
+        if (c < 0x80) {
+            buf[pos++] = (byte) c;
+        } else if (c < 0x800) {
+            buf[pos++] = (byte) (0xC0 | (c >> 6));
+            buf[pos++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            buf[pos++] = '?';
+        } else {
+            buf[pos++] = (byte) (0xE0 | (c >> 12));
+            buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buf[pos++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+}
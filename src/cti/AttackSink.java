@@ -0,0 +1,10 @@
+package cti;
+
+/**
+ * Entry point for attack events produced off the UI thread (swarm attackers, schedulers,
+ * external feeds). Implementations must be safe to call from many threads at once.
+ */
+@FunctionalInterface
+public interface AttackSink {
+    void submit(int node, Attacker<String> attacker);
+}
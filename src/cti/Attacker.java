@@ -42,9 +42,9 @@ public class Attacker<TId> {
         return new Attacker<>(id, ip, t, intensity);
     }
 
+    /** {@code Attacker{id=.., ip=.., type=.., intensity=.., ts=..}}; hot paths should use an {@link AttackFormatter} directly. */
     @Override
     public String toString() {
-        return String.format("Attacker{id=%s, ip=%s, type=%s, intensity=%d, ts=%s}",
-                String.valueOf(id), ip, type.name(), intensity, timestamp.toString());
+        return AttackFormatter.local().event(this).toString();
     }
 }
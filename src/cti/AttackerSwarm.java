@@ -0,0 +1,202 @@
+package cti;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Botnet-style swarm where every simulated attacker is its own virtual thread with its own
+ * identity, IP and behaviour profile. Attackers sleep, burst and escalate independently and
+ * hand their events to an {@link AttackSink}. Scales to ~1M attackers on one JVM.
+ */
+public final class AttackerSwarm {
+
+    public enum Profile { STEADY, BURSTY, ESCALATING }
+
+    public static final class Stats {
+        public final int alive;
+        public final long events;
+        public final double eventsPerSecond;
+        public final double carrierUtilisation;   // 0..1, -1 when carrier CPU time is unavailable
+        public final long pinnedEvents;           // -1 when JFR is unavailable
+
+        Stats(int alive, long events, double eventsPerSecond, double carrierUtilisation, long pinnedEvents) {
+            this.alive = alive;
+            this.events = events;
+            this.eventsPerSecond = eventsPerSecond;
+            this.carrierUtilisation = carrierUtilisation;
+            this.pinnedEvents = pinnedEvents;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "swarm{alive=%d, events=%d, ev/s=%.0f, carrier=%s, pinned=%s}",
+                    alive, events, eventsPerSecond,
+                    carrierUtilisation < 0 ? "n/a" : String.format(Locale.ROOT, "%.0f%%", carrierUtilisation * 100),
+                    pinnedEvents < 0 ? "n/a" : String.valueOf(pinnedEvents));
+        }
+    }
+
+    private static final Pattern CARRIER_NAME = Pattern.compile("ForkJoinPool-\\d+-worker-\\d+");
+    private static final int CARRIERS = Integer.getInteger("jdk.virtualThreadScheduler.parallelism",
+            Runtime.getRuntime().availableProcessors());
+
+    private final int size;
+    private final int nodeCount;
+    private final long meanPeriodMs;
+    private final long seed;
+    private final AttackSink sink;
+
+    private final LongAdder events = new LongAdder();
+    private final LongAdder alive = new LongAdder();
+    private final LongAdder pinned = new LongAdder();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private volatile boolean running;
+    private Thread[] attackers;
+    private RecordingStream pinningStream;
+
+    private long lastEvents, lastNanos, lastCarrierCpu = -1;
+
+    public AttackerSwarm(int size, int nodeCount, long meanPeriodMs, long seed, AttackSink sink) {
+        if (size < 1) throw new IllegalArgumentException("swarm size must be >= 1");
+        if (nodeCount < 1) throw new IllegalArgumentException("nodeCount must be >= 1");
+        this.size = size;
+        this.nodeCount = nodeCount;
+        this.meanPeriodMs = Math.max(1, meanPeriodMs);
+        this.seed = seed;
+        this.sink = sink;
+    }
+
+    public int size() { return size; }
+    public boolean isRunning() { return running; }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        pinningStream = openPinningStream();
+        lastNanos = System.nanoTime();
+        lastCarrierCpu = carrierCpuNanos();
+        attackers = new Thread[size];
+        Thread.Builder builder = Thread.ofVirtual().name("attacker-", 0);
+        for (int i = 0; i < size; i++) {
+            int idx = i;
+            attackers[i] = builder.start(() -> runAttacker(idx));
+        }
+    }
+
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        for (Thread t : attackers) t.interrupt();
+        for (Thread t : attackers) {
+            try { t.join(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); break; }
+        }
+        attackers = null;
+        if (pinningStream != null) pinningStream.close();
+        pinningStream = null;
+    }
+
+    /** Rates are measured since the previous call. */
+    public synchronized Stats stats() {
+        long now = System.nanoTime();
+        long ev = events.sum();
+        double secs = Math.max(1e-9, (now - lastNanos) / 1e9);
+        double rate = (ev - lastEvents) / secs;
+        long cpu = carrierCpuNanos();
+        double util = cpu < 0 || lastCarrierCpu < 0 ? -1
+                : Math.min(1.0, (cpu - lastCarrierCpu) / ((now - lastNanos) * (double) CARRIERS));
+        lastEvents = ev;
+        lastNanos = now;
+        lastCarrierCpu = cpu;
+        return new Stats(alive.intValue(), ev, rate, util, pinningStream == null ? -1 : pinned.sum());
+    }
+
+    private void runAttacker(int idx) {
+        alive.increment();
+        try {
+            SplittableRandom rnd = new SplittableRandom(seed ^ (idx * 0x9E3779B97F4A7C15L));
+            Profile profile = Profile.values()[rnd.nextInt(Profile.values().length)];
+            String id = "swarm-" + idx;
+            String ip = (10 + rnd.nextInt(200)) + "." + rnd.nextInt(256) + "." + rnd.nextInt(256) + "." + rnd.nextInt(256);
+            Attacker.AttackType[] types = Attacker.AttackType.values();
+            Attacker.AttackType favourite = types[rnd.nextInt(types.length)];
+            int node = rnd.nextInt(nodeCount);
+            int intensity = 1 + rnd.nextInt(4);
+
+            // stagger the first wake-up so a million threads do not fire in lock-step
+            Thread.sleep(rnd.nextLong(meanPeriodMs));
+            while (running) {
+                if (rnd.nextInt(10) == 0) node = rnd.nextInt(nodeCount);
+                Attacker.AttackType type = rnd.nextInt(4) == 0 ? types[rnd.nextInt(types.length)] : favourite;
+                switch (profile) {
+                    case STEADY:
+                        emit(node, id, ip, type, intensity);
+                        Thread.sleep(jitter(rnd, meanPeriodMs));
+                        break;
+                    case BURSTY:
+                        int burst = 3 + rnd.nextInt(8);
+                        for (int b = 0; b < burst && running; b++) {
+                            emit(node, id, ip, type, intensity + rnd.nextInt(3));
+                            Thread.sleep(1 + rnd.nextInt(5));
+                        }
+                        Thread.sleep(jitter(rnd, meanPeriodMs * burst));
+                        break;
+                    case ESCALATING:
+                        emit(node, id, ip, type, intensity);
+                        if (intensity < 10) {
+                            intensity++;
+                            Thread.sleep(jitter(rnd, Math.max(1, meanPeriodMs * (11 - intensity) / 10)));
+                        } else {
+                            intensity = 1 + rnd.nextInt(3);   // campaign over, cool down
+                            Thread.sleep(jitter(rnd, meanPeriodMs * 5));
+                        }
+                        break;
+                }
+            }
+        } catch (InterruptedException stopped) {
+            // swarm stopped
+        } finally {
+            alive.decrement();
+        }
+    }
+
+    private void emit(int node, String id, String ip, Attacker.AttackType type, int intensity) {
+        sink.submit(node, new Attacker<>(id, ip, type, intensity));
+        events.increment();
+    }
+
+    private static long jitter(SplittableRandom rnd, long meanMs) {
+        return meanMs / 2 + rnd.nextLong(meanMs + 1);
+    }
+
+    private long carrierCpuNanos() {
+        if (!threads.isThreadCpuTimeSupported()) return -1;
+        long total = 0;
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info == null || !CARRIER_NAME.matcher(info.getThreadName()).matches()) continue;
+            long t = threads.getThreadCpuTime(info.getThreadId());
+            if (t > 0) total += t;
+        }
+        return total;
+    }
+
+    private RecordingStream openPinningStream() {
+        try {
+            RecordingStream rs = new RecordingStream();
+            rs.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(1));
+            rs.onEvent("jdk.VirtualThreadPinned", e -> pinned.increment());
+            rs.startAsync();
+            return rs;
+        } catch (Throwable jfrUnavailable) {
+            return null;
+        }
+    }
+}
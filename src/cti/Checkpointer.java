@@ -0,0 +1,85 @@
+package cti;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic non-blocking snapshots of a live {@link NodeModel}. The model's owner thread calls
+ * {@link #maybeCheckpoint} at a tick boundary, where the state is consistent; when a snapshot is
+ * due that thread only pays for an array copy, and a background thread writes the file. A due
+ * snapshot is skipped while the previous one is still being written.
+ */
+public final class Checkpointer implements AutoCloseable {
+
+    private static final LatencyHistogram COPY = Metrics.histogram("snapshot.copy");
+    private static final LatencyHistogram WRITE = Metrics.histogram("snapshot.write");
+    private static final Counter SKIPPED = Metrics.counter("snapshot.skipped");
+
+    private final Path file;
+    private final long intervalMs;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "snapshot-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private long lastMs;
+    private volatile boolean writing;
+    private volatile long written;
+    private volatile IOException failure;
+
+    public Checkpointer(Path file, long intervalMs) {
+        this.file = file;
+        this.intervalMs = intervalMs;
+    }
+
+    /** Call from the thread that owns {@code model}; returns true if a snapshot was started. */
+    public boolean maybeCheckpoint(NodeModel model, long nowMs) {
+        if (nowMs - lastMs < intervalMs) return false;
+        lastMs = nowMs;
+        if (writing) {
+            SKIPPED.increment();
+            return false;
+        }
+        long t0 = System.nanoTime();
+        NodeModel copy = model.copy();
+        COPY.record(System.nanoTime() - t0);
+        writing = true;
+        writer.execute(() -> {
+            long w0 = System.nanoTime();
+            try {
+                NodeSnapshot.write(copy, nowMs, file);
+                written++;
+                WRITE.record(System.nanoTime() - w0);
+            } catch (IOException e) {
+                failure = e;
+                System.err.println("Snapshot failed: " + e.getMessage());
+            } finally {
+                writing = false;
+            }
+        });
+        return true;
+    }
+
+    public Path file() { return file; }
+    public long writtenCount() { return written; }
+    public IOException failure() { return failure; }
+
+    /** Waits for an in-progress write, then stops the writer thread. */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package cti;
+
+/** Dotted-quad IPv4 addresses packed into one int (first octet in the high byte). */
+public final class Ipv4 {
+
+    private Ipv4() {}
+
+    /** Packs {@code a.b.c.d}; returns 0 (0.0.0.0) for null or anything that is not a dotted quad. */
+    public static int pack(CharSequence s) {
+        if (s == null) return 0;
+        int value = 0, octet = -1, dots = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) return 0;
+            } else if (c == '.' && octet >= 0 && dots < 3) {
+                value = (value << 8) | octet;
+                octet = -1;
+                dots++;
+            } else {
+                return 0;
+            }
+        }
+        if (dots != 3 || octet < 0) return 0;
+        return (value << 8) | octet;
+    }
+
+    public static StringBuilder append(int ip, StringBuilder sb) {
+        return sb.append(ip >>> 24).append('.').append((ip >>> 16) & 0xFF).append('.')
+                .append((ip >>> 8) & 0xFF).append('.').append(ip & 0xFF);
+    }
+
+    public static String format(int ip) {
+        return append(ip, new StringBuilder(15)).toString();
+    }
+}
@@ -0,0 +1,199 @@
+package cti;
+
+import metrics.Counter;
+import metrics.Metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Discrete-event driver for {@link NodeModel} on a virtual clock. Instead of re-evaluating every
+ * node on a timer tick, each active node has exactly one pending event in a binary heap: its next
+ * ramp / hold / decay step from {@link NodeModel#nextChangeMs}. The clock jumps straight to the
+ * earliest of that and the next attack from the {@link ArrivalSource}. A new attack on a busy node
+ * bumps the node's generation, so its old pending step is skipped when it comes up. States at any
+ * time are the ones {@link NodeModel#advance} would give on a wall clock.
+ * <p>
+ * {@link #run} can pace the virtual clock at a speed factor, or run flat out. Not thread-safe.
+ */
+public final class NodeEventSim {
+
+    private static final Counter EVENTS = Metrics.counter("sim.des.events");
+
+    /** Attacks in non-decreasing time order; fills {@code out} and returns false at the end. */
+    @FunctionalInterface
+    public interface ArrivalSource {
+        boolean next(Arrival out);
+    }
+
+    /** Mutable so a source can refill one instance per attack. */
+    public static final class Arrival {
+        public long timeMs;
+        public int node;
+        public Attacker.AttackType type;
+        public int intensity;
+    }
+
+    /** Called whenever a node's CPU or memory level changes. */
+    @FunctionalInterface
+    public interface ChangeListener {
+        void onChange(long timeMs, int node, int cpu, int mem);
+    }
+
+    private final NodeModel model;
+    private final ArrivalSource source;
+    private final ChangeListener listener;
+    private final Arrival pending = new Arrival();
+    private boolean hasPending;
+    private final int[] generation;
+
+    // min-heap on (time, seq); seq keeps same-time events in scheduling order
+    private long[] heapTime = new long[64];
+    private long[] heapSeq = new long[64];
+    private int[] heapNode = new int[64];
+    private int[] heapGen = new int[64];
+    private int heapSize;
+    private long seq;
+
+    private long clock = Long.MIN_VALUE;
+    private long attacks, transitions, stale;
+
+    // pacing anchor, kept across run() calls at the same speed so gaps between calls are paced too
+    private long wallAnchor, virtualAnchor = Long.MIN_VALUE;
+    private double pacedSpeed;
+
+    public NodeEventSim(NodeModel model, ArrivalSource source, ChangeListener listener) {
+        this.model = model;
+        this.source = source;
+        this.listener = listener;
+        this.generation = new int[model.size()];
+        hasPending = source.next(pending);
+    }
+
+    /** Time of the next event, or {@link Long#MAX_VALUE} when there is none. */
+    public long nextEventMs() {
+        long t = hasPending ? pending.timeMs : Long.MAX_VALUE;
+        return heapSize > 0 ? Math.min(t, heapTime[0]) : t;
+    }
+
+    /** Processes every event at or before {@code endMs} as fast as possible. */
+    public void runUntil(long endMs) {
+        run(endMs, 0);
+    }
+
+    /**
+     * Processes every event at or before {@code endMs}, with the virtual clock advancing
+     * {@code speed} times as fast as the wall clock, and returns when the paced clock reaches
+     * {@code endMs}; 0 or infinity runs flat out. Consecutive calls at the same speed share one
+     * wall / virtual anchor, so splitting a run into several calls does not drift.
+     */
+    public void run(long endMs, double speed) {
+        boolean paced = speed > 0 && !Double.isInfinite(speed);
+        if (!paced) {
+            virtualAnchor = Long.MIN_VALUE;
+        } else if (virtualAnchor == Long.MIN_VALUE || speed != pacedSpeed) {
+            wallAnchor = System.nanoTime();
+            virtualAnchor = clock != Long.MIN_VALUE ? clock : Math.min(nextEventMs(), endMs);
+            pacedSpeed = speed;
+        }
+        for (long t; (t = nextEventMs()) <= endMs; ) {
+            if (paced) pace(t);
+            step();
+        }
+        if (paced) pace(endMs);
+        if (endMs > clock) clock = endMs;
+    }
+
+    private void pace(long virtualMs) {
+        long due = wallAnchor + (long) ((virtualMs - virtualAnchor) * 1e6 / pacedSpeed);
+        for (long wait; (wait = due - System.nanoTime()) > 0; ) LockSupport.parkNanos(wait);
+    }
+
+    /** Processes the single next event; returns false when there is none. */
+    public boolean step() {
+        long t = nextEventMs();
+        if (t == Long.MAX_VALUE) return false;
+        clock = t;
+        EVENTS.increment();
+        // attacks first on a tie: the node's stale step is then skipped by generation
+        if (hasPending && pending.timeMs <= t) {
+            int node = pending.node;
+            model.applyAttack(node, pending.type, pending.intensity, t);
+            attacks++;
+            schedule(node, ++generation[node], t);
+            hasPending = source.next(pending);
+            return true;
+        }
+        int node = heapNode[0], gen = heapGen[0];
+        pop();
+        if (gen != generation[node]) {
+            stale++;
+            return true;
+        }
+        int cpu = model.cpu(node), mem = model.mem(node);
+        transitions++;
+        if (model.advanceNode(node, t)) schedule(node, gen, t);
+        if (listener != null && (model.cpu(node) != cpu || model.mem(node) != mem)) {
+            listener.onChange(t, node, model.cpu(node), model.mem(node));
+        }
+        return true;
+    }
+
+    private void schedule(int node, int gen, long now) {
+        long at = model.nextChangeMs(node, now);
+        if (at >= 0) push(at, node, gen);
+    }
+
+    private void push(long time, int node, int gen) {
+        if (heapSize == heapTime.length) {
+            int n = heapSize * 2;
+            heapTime = Arrays.copyOf(heapTime, n);
+            heapSeq = Arrays.copyOf(heapSeq, n);
+            heapNode = Arrays.copyOf(heapNode, n);
+            heapGen = Arrays.copyOf(heapGen, n);
+        }
+        long s = seq++;
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapTime[parent] < time || (heapTime[parent] == time && heapSeq[parent] < s)) break;
+            move(parent, i);
+            i = parent;
+        }
+        set(i, time, s, node, gen);
+    }
+
+    private void pop() {
+        int last = --heapSize;
+        long time = heapTime[last], s = heapSeq[last];
+        int node = heapNode[last], gen = heapGen[last];
+        int i = 0;
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= last) break;
+            if (c + 1 < last && (heapTime[c + 1] < heapTime[c] || (heapTime[c + 1] == heapTime[c] && heapSeq[c + 1] < heapSeq[c]))) c++;
+            if (time < heapTime[c] || (time == heapTime[c] && s < heapSeq[c])) break;
+            move(c, i);
+            i = c;
+        }
+        if (last > 0) set(i, time, s, node, gen);
+    }
+
+    private void move(int from, int to) {
+        set(to, heapTime[from], heapSeq[from], heapNode[from], heapGen[from]);
+    }
+
+    private void set(int i, long time, long s, int node, int gen) {
+        heapTime[i] = time;
+        heapSeq[i] = s;
+        heapNode[i] = node;
+        heapGen[i] = gen;
+    }
+
+    public NodeModel model() { return model; }
+    public long clockMs() { return clock; }
+    public long attackCount() { return attacks; }
+    public long transitionCount() { return transitions; }
+    public long staleCount() { return stale; }
+    public int pendingCount() { return heapSize; }
+}
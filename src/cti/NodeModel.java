@@ -0,0 +1,206 @@
+package cti;
+
+import java.util.Arrays;
+
+/**
+ * Headless node reaction model: the same ramp / hold / decay curve the Swing node panels
+ * animate, kept in primitive arrays so it can run for many nodes without timers.
+ * Time is passed in explicitly, so the model runs equally well on a wall clock or a
+ * virtual one. Not thread-safe: confine each instance to one thread.
+ */
+public final class NodeModel {
+
+    public static final int BASE_CPU = 10;
+    public static final int BASE_MEM = 20;
+    public static final int RAMP_STEPS = 8;
+    public static final int DECAY_STEPS = 12;
+
+    static final byte IDLE = 0, RAMP = 1, HOLD = 2, DECAY = 3;
+
+    final int[] cpu;
+    final int[] mem;
+    final byte[] phase;
+    final long[] startMs;
+    final int[] baseCpu, baseMem, peakCpu, peakMem;
+    final int[] stepMs, holdMs, decayStepMs;
+
+    // active nodes kept densely so advance() never walks idle ones
+    final int[] active;
+    final int[] activePos;
+    int activeCount;
+    long applied;
+    long recovered;
+
+    public NodeModel(int nodeCount) {
+        if (nodeCount < 1) throw new IllegalArgumentException("nodeCount must be >= 1");
+        cpu = new int[nodeCount];
+        mem = new int[nodeCount];
+        phase = new byte[nodeCount];
+        startMs = new long[nodeCount];
+        baseCpu = new int[nodeCount];
+        baseMem = new int[nodeCount];
+        peakCpu = new int[nodeCount];
+        peakMem = new int[nodeCount];
+        stepMs = new int[nodeCount];
+        holdMs = new int[nodeCount];
+        decayStepMs = new int[nodeCount];
+        active = new int[nodeCount];
+        activePos = new int[nodeCount];
+        Arrays.fill(cpu, BASE_CPU);
+        Arrays.fill(mem, BASE_MEM);
+        Arrays.fill(activePos, -1);
+    }
+
+    private NodeModel(NodeModel o) {
+        cpu = o.cpu.clone();
+        mem = o.mem.clone();
+        phase = o.phase.clone();
+        startMs = o.startMs.clone();
+        baseCpu = o.baseCpu.clone();
+        baseMem = o.baseMem.clone();
+        peakCpu = o.peakCpu.clone();
+        peakMem = o.peakMem.clone();
+        stepMs = o.stepMs.clone();
+        holdMs = o.holdMs.clone();
+        decayStepMs = o.decayStepMs.clone();
+        active = o.active.clone();
+        activePos = o.activePos.clone();
+        activeCount = o.activeCount;
+        applied = o.applied;
+        recovered = o.recovered;
+    }
+
+    /** Deep copy, e.g. to hand a consistent state to a background snapshot writer. */
+    public NodeModel copy() { return new NodeModel(this); }
+
+    public int size() { return cpu.length; }
+    public int cpu(int node) { return cpu[node]; }
+    public int mem(int node) { return mem[node]; }
+    public boolean isActive(int node) { return phase[node] != IDLE; }
+    public int activeCount() { return activeCount; }
+    public long appliedCount() { return applied; }
+    public long recoveredCount() { return recovered; }
+
+    /** Peak CPU increase for an attack, shared with the Swing node panels. */
+    public static int peakIncrease(Attacker.AttackType type, int intensity) {
+        double impact = intensity / 10.0;
+        switch (type) {
+            case CPU_OVERLOAD: return (int) Math.round(30 + impact * 60);
+            case MEM_FILL: return (int) Math.round(25 + impact * 70);
+            case PORT_FLOOD: return (int) Math.round(15 + impact * 50);
+            default: return (int) Math.round(10 + impact * 40);
+        }
+    }
+
+    /** Nominal duration of an attack's effect, shared with the Swing node panels. */
+    public static int durationMs(Attacker.AttackType type, int intensity) {
+        switch (type) {
+            case CPU_OVERLOAD: return 3000 + intensity * 200;
+            case MEM_FILL: return 3500 + intensity * 250;
+            case PORT_FLOOD: return 2000 + intensity * 150;
+            default: return 1500 + intensity * 120;
+        }
+    }
+
+    public static int rampStepMs(int durationMs) { return Math.max(50, durationMs / (RAMP_STEPS + 4)); }
+    public static int holdMs(int durationMs) { return Math.max(200, durationMs / 6); }
+    public static int decayStepMs(int durationMs) { return Math.max(50, (durationMs + 600) / DECAY_STEPS); }
+
+    public void applyAttack(int node, Attacker.AttackType type, int intensity, long nowMs) {
+        applyIncrease(node, peakIncrease(type, intensity), durationMs(type, intensity), nowMs);
+    }
+
+    /** Starts a new ramp from the node's current level; a running schedule is replaced. */
+    public void applyIncrease(int node, int peakIncrease, int durationMs, long nowMs) {
+        if (phase[node] != IDLE) update(node, nowMs);
+        baseCpu[node] = cpu[node];
+        baseMem[node] = mem[node];
+        peakCpu[node] = Math.min(100, cpu[node] + peakIncrease);
+        peakMem[node] = Math.min(100, mem[node] + peakIncrease / 2);
+        stepMs[node] = rampStepMs(durationMs);
+        holdMs[node] = holdMs(durationMs);
+        decayStepMs[node] = decayStepMs(durationMs);
+        startMs[node] = nowMs;
+        phase[node] = RAMP;
+        if (activePos[node] < 0) {
+            activePos[node] = activeCount;
+            active[activeCount++] = node;
+        }
+        applied++;
+    }
+
+    /** Brings every active node to its state at {@code nowMs}. */
+    public void advance(long nowMs) {
+        for (int i = 0; i < activeCount; ) {
+            int node = active[i];
+            if (update(node, nowMs)) i++;
+            else deactivate(i);
+        }
+    }
+
+    /** Brings one node to {@code nowMs}, dropping it from the active set once it has recovered. */
+    public boolean advanceNode(int node, long nowMs) {
+        if (phase[node] == IDLE) return false;
+        if (update(node, nowMs)) return true;
+        deactivate(activePos[node]);
+        return false;
+    }
+
+    /**
+     * Time of the node's next ramp / hold / decay step after {@code nowMs}, or -1 when it is idle.
+     * Between two such times {@link #update} yields the same levels, so an event-driven clock can
+     * jump from one to the next.
+     */
+    public long nextChangeMs(int node, long nowMs) {
+        if (phase[node] == IDLE) return -1;
+        long start = startMs[node], elapsed = nowMs - start;
+        int step = stepMs[node], ds = decayStepMs[node];
+        long rampEnd = (long) RAMP_STEPS * step;
+        long holdEnd = rampEnd + holdMs[node];
+        if (elapsed < rampEnd) return start + (elapsed / step + 1) * step;
+        if (elapsed < holdEnd) return start + holdEnd;
+        return start + holdEnd + ((elapsed - holdEnd) / ds + 1) * ds;
+    }
+
+    /** Evaluates one node at {@code nowMs}; returns false once it has fully recovered. */
+    boolean update(int node, long nowMs) {
+        long elapsed = nowMs - startMs[node];
+        int step = stepMs[node];
+        long rampEnd = (long) RAMP_STEPS * step;
+        long holdEnd = rampEnd + holdMs[node];
+        long decayEnd = holdEnd + (long) DECAY_STEPS * decayStepMs[node];
+        int bc = baseCpu[node], bm = baseMem[node], pc = peakCpu[node], pm = peakMem[node];
+        if (elapsed < rampEnd) {
+            long k = Math.max(0, elapsed / step);
+            double frac = (double) k / RAMP_STEPS;
+            cpu[node] = bc + (int) Math.round((pc - bc) * frac);
+            mem[node] = bm + (int) Math.round((pm - bm) * frac);
+            phase[node] = RAMP;
+        } else if (elapsed < holdEnd) {
+            cpu[node] = pc;
+            mem[node] = pm;
+            phase[node] = HOLD;
+        } else if (elapsed < decayEnd) {
+            long s = (elapsed - holdEnd) / decayStepMs[node];
+            double frac = (double) s / DECAY_STEPS;
+            cpu[node] = pc - (int) Math.round((pc - bc) * frac);
+            mem[node] = pm - (int) Math.round((pm - bm) * frac);
+            phase[node] = DECAY;
+        } else {
+            cpu[node] = bc;
+            mem[node] = bm;
+            phase[node] = IDLE;
+            recovered++;
+            return false;
+        }
+        return true;
+    }
+
+    private void deactivate(int i) {
+        int node = active[i];
+        int last = active[--activeCount];
+        active[i] = last;
+        activePos[last] = i;
+        activePos[node] = -1;
+    }
+}
@@ -0,0 +1,218 @@
+package cti;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Versioned binary checkpoint of a {@link NodeModel}: every per-node array, including the
+ * in-flight ramp / hold / decay schedules, so a restart resumes attacks where they were.
+ * Arrays are stored raw and little-endian; writing and restoring are bulk copies through a 1 MiB
+ * buffer with plain channel reads and writes, with a CRC32C over the payload. The file is never
+ * memory-mapped: on Windows a live mapping blocks renaming over, truncating or deleting it.
+ *
+ * <pre>
+ * header  := MAGIC VERSION nodeCount(int32) activeCount(int32)
+ *            applied(int64) recovered(int64) takenAtMs(int64) payloadBytes(int64) crc32c(int64)
+ * payload := startMs(int64[n]) cpu mem baseCpu baseMem peakCpu peakMem stepMs holdMs decayStepMs (int32[n] each)
+ *            active(int32[activeCount]) phase(u8[n])
+ * </pre>
+ */
+public final class NodeSnapshot {
+
+    static final int MAGIC = 0x50534E4E;   // "NNSP"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 56;
+    static final int CHUNK_BYTES = 1 << 20;
+
+    private NodeSnapshot() {}
+
+    /**
+     * Writes {@code model} to {@code file} through a temporary file and an atomic rename, so a
+     * crash mid-write leaves the previous snapshot intact. The model must not change meanwhile;
+     * pass a {@link NodeModel#copy()} when it is live.
+     */
+    public static void write(NodeModel model, long takenAtMs, Path file) throws IOException {
+        int n = model.size();
+        long payload = 8L * n + 9 * 4L * n + 4L * model.activeCount + n;
+        if (HEADER_BYTES + payload > Integer.MAX_VALUE) throw new IOException("model too large for one snapshot: " + n + " nodes");
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Chunks out = new Chunks(ch);
+            ch.position(HEADER_BYTES);
+            out.putLongs(model.startMs, n);
+            for (int[] a : intArrays(model)) out.putInts(a, n);
+            out.putInts(model.active, model.activeCount);
+            out.putBytes(model.phase, n);
+            out.flush();
+
+            ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            h.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(model.activeCount)
+                    .putLong(model.applied).putLong(model.recovered).putLong(takenAtMs)
+                    .putLong(payload).putLong(out.crc.getValue()).flip();
+            while (h.hasRemaining()) ch.write(h, h.position());
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restores a model. Schedules are shifted by {@code nowMs - takenAtMs}, so in-flight attacks
+     * continue from the point they had reached rather than jumping ahead by the downtime.
+     */
+    public static NodeModel read(Path file, long nowMs) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES) throw new IOException("not a node snapshot: " + file);
+            ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (h.hasRemaining() && ch.read(h, h.position()) > 0) { }
+            if (h.getInt(0) != MAGIC) throw new IOException("not a node snapshot: " + file);
+            if (h.getInt(4) != VERSION) throw new IOException("unsupported snapshot version " + h.getInt(4));
+            int n = h.getInt(8), activeCount = h.getInt(12);
+            long payload = h.getLong(40);
+            if (n < 1 || activeCount < 0 || activeCount > n
+                    || payload != 8L * n + 9 * 4L * n + 4L * activeCount + n || HEADER_BYTES + payload != size) {
+                throw new IOException("corrupt node snapshot header: " + file);
+            }
+
+            NodeModel m = new NodeModel(n);
+            Chunks in = new Chunks(ch);
+            ch.position(HEADER_BYTES);
+            in.buf.limit(0);
+            in.getLongs(m.startMs, n);
+            for (int[] a : intArrays(m)) in.getInts(a, n);
+            in.getInts(m.active, activeCount);
+            in.getBytes(m.phase, n);
+            if (in.crc.getValue() != h.getLong(48)) throw new IOException("node snapshot checksum mismatch: " + file);
+
+            m.activeCount = activeCount;
+            m.applied = h.getLong(16);
+            m.recovered = h.getLong(24);
+            Arrays.fill(m.activePos, -1);
+            for (int i = 0; i < activeCount; i++) {
+                int node = m.active[i];
+                if (node < 0 || node >= n) throw new IOException("corrupt node snapshot: active node " + node);
+                m.activePos[node] = i;
+            }
+            long shift = nowMs - h.getLong(32);
+            if (shift != 0) {
+                for (int i = 0; i < activeCount; i++) m.startMs[m.active[i]] += shift;
+            }
+            return m;
+        }
+    }
+
+    /** Capture time recorded in a snapshot header, or -1 if the file is not a snapshot. */
+    public static long takenAt(Path file) {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            ch.read(b, 0);
+            return b.position() == HEADER_BYTES && b.getInt(0) == MAGIC ? b.getLong(32) : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static int[][] intArrays(NodeModel m) {
+        return new int[][]{m.cpu, m.mem, m.baseCpu, m.baseMem, m.peakCpu, m.peakMem, m.stepMs, m.holdMs, m.decayStepMs};
+    }
+
+    /**
+     * Streams arrays to or from the channel's current position through one buffer, keeping a
+     * CRC32C of every payload byte. Bulk views copy between the buffer and the arrays; the
+     * position is advanced by hand.
+     */
+    private static final class Chunks {
+        final FileChannel ch;
+        final ByteBuffer buf = ByteBuffer.allocate(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        final CRC32C crc = new CRC32C();
+
+        Chunks(FileChannel ch) { this.ch = ch; }
+
+        void putInts(int[] a, int n) throws IOException {
+            for (int i = 0; i < n; ) {
+                if (buf.remaining() < 4) flush();
+                int k = Math.min(n - i, buf.remaining() / 4);
+                buf.asIntBuffer().put(a, i, k);
+                buf.position(buf.position() + 4 * k);
+                i += k;
+            }
+        }
+
+        void putLongs(long[] a, int n) throws IOException {
+            for (int i = 0; i < n; ) {
+                if (buf.remaining() < 8) flush();
+                int k = Math.min(n - i, buf.remaining() / 8);
+                buf.asLongBuffer().put(a, i, k);
+                buf.position(buf.position() + 8 * k);
+                i += k;
+            }
+        }
+
+        void putBytes(byte[] a, int n) throws IOException {
+            for (int i = 0; i < n; ) {
+                if (!buf.hasRemaining()) flush();
+                int k = Math.min(n - i, buf.remaining());
+                buf.put(a, i, k);
+                i += k;
+            }
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            crc.update(buf);
+            buf.rewind();
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.clear();
+        }
+
+        void getInts(int[] a, int n) throws IOException {
+            for (int i = 0; i < n; ) {
+                if (buf.remaining() < 4) fill();
+                int k = Math.min(n - i, buf.remaining() / 4);
+                buf.asIntBuffer().get(a, i, k);
+                buf.position(buf.position() + 4 * k);
+                i += k;
+            }
+        }
+
+        void getLongs(long[] a, int n) throws IOException {
+            for (int i = 0; i < n; ) {
+                if (buf.remaining() < 8) fill();
+                int k = Math.min(n - i, buf.remaining() / 8);
+                buf.asLongBuffer().get(a, i, k);
+                buf.position(buf.position() + 8 * k);
+                i += k;
+            }
+        }
+
+        void getBytes(byte[] a, int n) throws IOException {
+            for (int i = 0; i < n; ) {
+                if (!buf.hasRemaining()) fill();
+                int k = Math.min(n - i, buf.remaining());
+                buf.get(a, i, k);
+                i += k;
+            }
+        }
+
+        /** Keeps the unread tail, reads until the buffer is full or the file ends. */
+        void fill() throws IOException {
+            buf.compact();
+            int from = buf.position();
+            while (buf.hasRemaining() && ch.read(buf) > 0) { }
+            if (buf.position() == from) throw new EOFException("node snapshot is truncated");
+            int end = buf.position();
+            crc.update(buf.flip().position(from));
+            buf.position(0).limit(end);
+        }
+    }
+}
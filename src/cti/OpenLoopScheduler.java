@@ -0,0 +1,108 @@
+package cti;
+
+import metrics.LatencyHistogram;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop event scheduler. Every event gets an intended send time derived from the
+ * {@link RateProfile}; the scheduler thread wakes once per tick and emits every event that is
+ * due, in one batch. A stalled consumer or a late wake-up never skips events: they are sent late
+ * and carry their original intended time, so latency measured against it is free of
+ * coordinated omission.
+ */
+public final class OpenLoopScheduler {
+
+    public static final double MIN_RATE = 1;
+    public static final double MAX_RATE = 1_000_000;
+    public static final long DEFAULT_TICK_NANOS = 1_000_000L;
+
+    public interface Emitter {
+        /** Called on the scheduler thread for each due event, in intended-time order. */
+        void emit(long intendedNanos);
+
+        /** Called once after each batch; a convenient place to advance a model. */
+        default void endOfTick(long nowNanos) {}
+    }
+
+    private final RateProfile profile;
+    private final Emitter emitter;
+    private final long tickNanos;
+    private final LatencyHistogram sendLag = new LatencyHistogram();
+
+    private volatile boolean running;
+    private volatile long sent;
+    private volatile double currentRate;
+    private volatile long startNanos;
+    private Thread thread;
+
+    public OpenLoopScheduler(RateProfile profile, Emitter emitter) {
+        this(profile, emitter, DEFAULT_TICK_NANOS);
+    }
+
+    public OpenLoopScheduler(RateProfile profile, Emitter emitter, long tickNanos) {
+        this.profile = profile;
+        this.emitter = emitter;
+        this.tickNanos = Math.max(100_000L, tickNanos);
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::loop, "open-loop-scheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isRunning() { return running; }
+    public long sentCount() { return sent; }
+    public double currentRate() { return currentRate; }
+
+    /** Actual send time minus intended send time, per event. */
+    public LatencyHistogram sendLag() { return sendLag; }
+
+    public double elapsedSeconds() {
+        long s = startNanos;
+        return s == 0 ? 0 : (System.nanoTime() - s) / 1e9;
+    }
+
+    public static double clampRate(double rate) {
+        if (!(rate >= MIN_RATE)) return MIN_RATE;
+        return Math.min(MAX_RATE, rate);
+    }
+
+    private void loop() {
+        long start = System.nanoTime();
+        startNanos = start;
+        double next = start;
+        long count = 0;
+        currentRate = clampRate(profile.rateAt(0));
+        while (running) {
+            long now = System.nanoTime();
+            while (next <= now && running) {
+                long intended = (long) next;
+                emitter.emit(intended);
+                sendLag.record(System.nanoTime() - intended);
+                count++;
+                double rate = clampRate(profile.rateAt((intended - start) / 1e9));
+                currentRate = rate;
+                next += 1e9 / rate;
+            }
+            sent = count;
+            emitter.endOfTick(now);
+            long sleep = Math.min((long) next, now + tickNanos) - System.nanoTime();
+            if (sleep > 0) LockSupport.parkNanos(this, sleep);
+        }
+    }
+}
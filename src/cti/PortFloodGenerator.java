@@ -0,0 +1,189 @@
+package cti;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Flood generator for {@link PortFloodTarget}. Opens TCP connections and sends UDP datagrams
+ * at a rate scaled from attack intensity, paced open-loop against the wall clock.
+ * A connect that is reset counts as refused; one that never completes within
+ * {@link #CONNECT_TIMEOUT_MS} counts as a backlog overflow (Linux drops the SYN when the
+ * accept queue is full instead of resetting).
+ */
+public final class PortFloodGenerator {
+
+    public static final int CONNECT_TIMEOUT_MS = 250;
+    private static final int PAYLOAD_BYTES = 512;
+    private static final int MAX_IN_FLIGHT = 2048;
+
+    public static final class Result {
+        public final int intensity;
+        public final long durationMs;
+        public final long attempts;
+        public final long connected;
+        public final long refused;
+        public final long backlogOverflows;
+        public final long datagramsSent;
+        public final long bytesSent;
+        public final long targetAccepted;
+        public final long targetBytesRead;
+
+        Result(int intensity, long durationMs, long attempts, long connected, long refused, long backlogOverflows,
+               long datagramsSent, long bytesSent, long targetAccepted, long targetBytesRead) {
+            this.intensity = intensity;
+            this.durationMs = durationMs;
+            this.attempts = attempts;
+            this.connected = connected;
+            this.refused = refused;
+            this.backlogOverflows = backlogOverflows;
+            this.datagramsSent = datagramsSent;
+            this.bytesSent = bytesSent;
+            this.targetAccepted = targetAccepted;
+            this.targetBytesRead = targetBytesRead;
+        }
+
+        public double acceptsPerSecond() { return durationMs <= 0 ? 0 : targetAccepted * 1000.0 / durationMs; }
+
+        /** Fraction of connection attempts that were refused or overflowed the backlog. */
+        public double dropRatio() { return attempts == 0 ? 0 : (double) (refused + backlogOverflows) / attempts; }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "flood{i=%d, %dms, attempts=%d, accepted/s=%.0f, refused=%d, overflows=%d, datagrams=%d, read=%d B}",
+                    intensity, durationMs, attempts, acceptsPerSecond(), refused, backlogOverflows,
+                    datagramsSent, targetBytesRead);
+        }
+    }
+
+    private final PortFloodTarget target;
+
+    public PortFloodGenerator(PortFloodTarget target) { this.target = target; }
+
+    public static int connectsPerSecond(int intensity) { return 40 * intensity * intensity; }
+    public static int datagramsPerSecond(int intensity) { return 150 * intensity * intensity; }
+
+    public Result run(int intensity, long durationMs) throws IOException {
+        int i = Math.max(1, Math.min(10, intensity));
+        double connectIntervalNs = 1e9 / connectsPerSecond(i);
+        double datagramIntervalNs = 1e9 / datagramsPerSecond(i);
+        InetSocketAddress tcp = target.tcpAddress();
+        InetSocketAddress udpAddr = target.udpAddress();
+
+        long acceptedBefore = target.acceptedCount();
+        long readBefore = target.bytesRead();
+        long attempts = 0, connected = 0, refused = 0, overflows = 0, datagrams = 0, bytes = 0;
+
+        ByteBuffer payload = ByteBuffer.allocateDirect(PAYLOAD_BYTES);
+        for (int b = 0; b < PAYLOAD_BYTES; b++) payload.put((byte) ('A' + b % 26));
+        payload.flip();
+
+        try (Selector selector = Selector.open();
+             DatagramChannel udp = DatagramChannel.open(StandardProtocolFamily.INET)) {
+            udp.configureBlocking(false);
+            long start = System.nanoTime();
+            long end = start + durationMs * 1_000_000L;
+            long nextConnect = start, nextDatagram = start;
+            long stopped = 0;   // when sending ended; the connect drain after it is not timed
+            int inFlight = 0;
+
+            while (true) {
+                long now = System.nanoTime();
+                boolean sending = now < end;
+                if (!sending && stopped == 0) stopped = now;
+                if (!sending && inFlight == 0) break;
+
+                while (sending && nextConnect <= now && inFlight < MAX_IN_FLIGHT) {
+                    attempts++;
+                    nextConnect = start + (long) (attempts * connectIntervalNs);
+                    SocketChannel ch = SocketChannel.open();
+                    ch.configureBlocking(false);
+                    try {
+                        if (ch.connect(tcp)) {
+                            connected++;
+                            bytes += writeAndClose(ch, payload);
+                        } else {
+                            ch.register(selector, SelectionKey.OP_CONNECT, now);
+                            inFlight++;
+                        }
+                    } catch (ConnectException e) {
+                        refused++;
+                        ch.close();
+                    }
+                }
+                if (sending && nextConnect <= now && inFlight >= MAX_IN_FLIGHT) {
+                    nextConnect = now;  // generator saturated: do not build an unbounded catch-up burst
+                }
+
+                for (int batch = 0; sending && nextDatagram <= now && batch < 64; batch++) {
+                    payload.rewind();
+                    if (udp.send(payload, udpAddr) == 0) break;   // socket buffer full, retry next round
+                    datagrams++;
+                    bytes += PAYLOAD_BYTES;
+                    nextDatagram = start + (long) ((datagrams + 1) * datagramIntervalNs);
+                }
+
+                selector.selectNow();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    SocketChannel ch = (SocketChannel) key.channel();
+                    try {
+                        // not finished yet: the key stays registered for OP_CONNECT (and the timeout)
+                        if (!ch.finishConnect()) continue;
+                        key.cancel();
+                        inFlight--;
+                        connected++;
+                        bytes += writeAndClose(ch, payload);
+                    } catch (IOException e) {
+                        key.cancel();
+                        inFlight--;
+                        refused++;
+                        ch.close();
+                    }
+                }
+
+                long deadline = now - CONNECT_TIMEOUT_MS * 1_000_000L;
+                for (SelectionKey key : selector.keys()) {
+                    if (key.isValid() && (Long) key.attachment() < deadline) {
+                        key.cancel();
+                        key.channel().close();
+                        inFlight--;
+                        overflows++;
+                    }
+                }
+
+                long wait = sending ? Math.min(nextConnect, nextDatagram) - System.nanoTime() : 10_000_000L;
+                if (wait > 200_000) selector.select(Math.max(1, wait / 1_000_000));
+            }
+            long elapsedMs = (stopped - start) / 1_000_000;
+            payload.rewind();
+            return new Result(i, elapsedMs, attempts, connected, refused, overflows, datagrams, bytes,
+                    target.acceptedCount() - acceptedBefore, target.bytesRead() - readBefore);
+        }
+    }
+
+    private static int writeAndClose(SocketChannel ch, ByteBuffer payload) throws IOException {
+        payload.rewind();
+        int n = 0;
+        try {
+            int w;
+            while (payload.hasRemaining() && (w = ch.write(payload)) > 0) n += w;
+        } catch (IOException ignored) {
+            // target closed the connection first; the connect itself still counted
+        } finally {
+            ch.close();
+        }
+        return n;
+    }
+}
@@ -0,0 +1,190 @@
+package cti;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in service for PORT_FLOOD: a selector based TCP + UDP listener bound to
+ * 127.0.0.1. One acceptor thread accepts connections and reads datagrams, accepted
+ * sockets are handed round-robin to worker selectors which drain and count the bytes.
+ */
+public final class PortFloodTarget implements Closeable {
+
+    private static final int READ_BUFFER = 16 * 1024;
+
+    private final int backlog;
+    private final Worker[] workers;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder datagrams = new LongAdder();
+
+    private Selector acceptSelector;
+    private ServerSocketChannel server;
+    private DatagramChannel udp;
+    private Thread acceptThread;
+    private volatile boolean running;
+
+    public PortFloodTarget(int backlog, int workerCount) {
+        if (backlog < 1) throw new IllegalArgumentException("backlog must be >= 1");
+        if (workerCount < 1) throw new IllegalArgumentException("workerCount must be >= 1");
+        this.backlog = backlog;
+        this.workers = new Worker[workerCount];
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) return;
+        acceptSelector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", 0), backlog);
+        server.configureBlocking(false);
+        server.register(acceptSelector, SelectionKey.OP_ACCEPT);
+
+        udp = DatagramChannel.open(StandardProtocolFamily.INET);
+        udp.bind(new InetSocketAddress("127.0.0.1", 0));
+        udp.configureBlocking(false);
+        udp.register(acceptSelector, SelectionKey.OP_READ);
+
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(Selector.open());
+            Thread t = new Thread(workers[i]::loop, "flood-worker-" + i);
+            t.setDaemon(true);
+            workers[i].thread = t;
+        }
+        running = true;
+        for (Worker w : workers) w.thread.start();
+        acceptThread = new Thread(this::acceptLoop, "flood-acceptor");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    public InetSocketAddress tcpAddress() throws IOException { return (InetSocketAddress) server.getLocalAddress(); }
+    public InetSocketAddress udpAddress() throws IOException { return (InetSocketAddress) udp.getLocalAddress(); }
+    public boolean isRunning() { return running; }
+    public int getBacklog() { return backlog; }
+    public int getWorkerCount() { return workers.length; }
+
+    public long acceptedCount() { return accepted.sum(); }
+    public long closedCount() { return closed.sum(); }
+    public long bytesRead() { return bytesRead.sum(); }
+    public long datagramsRead() { return datagrams.sum(); }
+
+    private void acceptLoop() {
+        ByteBuffer buf = ByteBuffer.allocateDirect(READ_BUFFER);
+        int next = 0;
+        try {
+            while (running) {
+                acceptSelector.select(200);
+                Iterator<SelectionKey> it = acceptSelector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        SocketChannel ch;
+                        while ((ch = server.accept()) != null) {
+                            accepted.increment();
+                            workers[next].hand(ch);
+                            next = (next + 1) % workers.length;
+                        }
+                    } else if (key.isReadable()) {
+                        buf.clear();
+                        while (udp.receive(buf) != null) {
+                            datagrams.increment();
+                            bytesRead.add(buf.position());
+                            buf.clear();
+                        }
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) System.err.println("Flood acceptor stopped: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!running) return;
+        running = false;
+        closeQuietly(server);
+        closeQuietly(udp);
+        closeQuietly(acceptSelector);
+        for (Worker w : workers) if (w != null) w.shutdown();
+    }
+
+    private static void closeQuietly(Closeable c) {
+        try { if (c != null) c.close(); } catch (IOException ignored) {}
+    }
+
+    private final class Worker {
+        final Selector selector;
+        final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        Thread thread;
+
+        Worker(Selector selector) { this.selector = selector; }
+
+        void hand(SocketChannel ch) {
+            pending.add(ch);
+            selector.wakeup();
+        }
+
+        void loop() {
+            ByteBuffer buf = ByteBuffer.allocateDirect(READ_BUFFER);
+            try {
+                while (running) {
+                    SocketChannel ch;
+                    while ((ch = pending.poll()) != null) {
+                        ch.configureBlocking(false);
+                        ch.register(selector, SelectionKey.OP_READ);
+                    }
+                    selector.select(200);
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        if (!key.isValid() || !key.isReadable()) continue;
+                        SocketChannel sc = (SocketChannel) key.channel();
+                        int n;
+                        try {
+                            buf.clear();
+                            while ((n = sc.read(buf)) > 0) {
+                                bytesRead.add(n);
+                                buf.clear();
+                            }
+                        } catch (IOException reset) {
+                            n = -1;
+                        }
+                        if (n < 0) {
+                            key.cancel();
+                            closeQuietly(sc);
+                            closed.increment();
+                        }
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (running) System.err.println("Flood worker stopped: " + e.getMessage());
+            } finally {
+                for (SelectionKey k : selector.keys()) closeQuietly(k.channel());
+                SocketChannel ch;
+                while ((ch = pending.poll()) != null) closeQuietly(ch);
+                closeQuietly(selector);
+            }
+        }
+
+        void shutdown() { selector.wakeup(); }
+    }
+}
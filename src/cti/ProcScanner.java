@@ -0,0 +1,478 @@
+package cti;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+import metrics.Counter;
+import metrics.Gauge;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Incremental Linux process monitor over {@code /proc}. Up to {@code maxOpen} tracked processes
+ * keep their {@code /proc/[pid]/stat} open and are re-read with a positional read at offset 0
+ * (procfs regenerates the text on every read), so a steady-state scan is one syscall per process
+ * into a reused buffer, parsed by hand. The default cap is half the descriptors this JVM may
+ * still open; processes beyond it are opened, read and closed on every scan. A failed open other
+ * than the process being gone (descriptor exhaustion, usually) is counted, halves the cap and
+ * hands the surplus descriptors back straight away; the process is retried on the next scan.
+ * The directory itself is listed only every {@link #relistEveryNanos} to pick up new processes;
+ * vanished ones drop out when their read fails. CPU% is the utime + stime delta between scans,
+ * as a share of one core. The top N by CPU or RSS are kept in a bounded min-heap, and only those
+ * get their {@code /proc/[pid]/statm} read. Not thread-safe.
+ */
+public final class ProcScanner implements AutoCloseable {
+
+    public enum Order { CPU, RSS }
+
+    /** USER_HZ: the unit of utime / stime, 100 on every mainstream Linux build. */
+    static final int TICKS_PER_SECOND = 100;
+    /** Page size statm and stat's rss are counted in; 4 KiB on x86-64 and most arm64 kernels. */
+    static final long PAGE_BYTES = 4096;
+    static final int COMM_MAX = 16;
+    /** Cap on held stat channels when the descriptor limit cannot be read. */
+    static final int FALLBACK_MAX_OPEN = 256;
+    private static final int SKIP = -2;
+
+    private static final LatencyHistogram SCAN_TIME = Metrics.histogram("proc.scan");
+    private static final Counter FAILED_OPENS = Metrics.counter("proc.open.failed");
+    private static final Gauge TRACKED = Metrics.gauge("proc.tracked");
+
+    private final Path proc;
+    private final int topN;
+    private final Order order;
+    private final long relistEveryNanos;
+    private int maxOpen;
+    private int openCount;
+    private final ByteBuffer io = ByteBuffer.allocateDirect(1024);
+    private final byte[] buf = new byte[1024];
+
+    // dense per-process slots; compacted on every relist
+    private int count;
+    private int[] pid = new int[256];
+    private long[] startTime = new long[256];
+    private long[] ticks = new long[256];
+    private long[] rssPages = new long[256];
+    private float[] cpu = new float[256];
+    private boolean[] fresh = new boolean[256];
+    private boolean[] dead = new boolean[256];
+    private int[] seen = new int[256];
+    private byte[] comm = new byte[256 * COMM_MAX];
+    private byte[] commLen = new byte[256];
+    private String[] name = new String[256];
+    private FileChannel[] stat = new FileChannel[256];
+    private Path[] statPath = new Path[256];
+    private int generation;
+
+    // pid -> slot + 1, rebuilt on relist
+    private int[] index = new int[1024];
+
+    private final int[] top;
+    private int topCount;
+    private final long[] topResident, topShared;
+
+    private long lastScanNanos, lastRelistNanos;
+    private long scans;
+
+    public ProcScanner(int topN, Order order) {
+        this(Path.of("/proc"), topN, order, 2_000_000_000L, defaultMaxOpen());
+    }
+
+    /** Half of the descriptors the JVM may still open, leaving the rest to the application. */
+    public static int defaultMaxOpen() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof UnixOperatingSystemMXBean os) {
+            long free = os.getMaxFileDescriptorCount() - os.getOpenFileDescriptorCount();
+            if (free > 0) return (int) Math.min(Integer.MAX_VALUE, free / 2);
+        }
+        return FALLBACK_MAX_OPEN;
+    }
+
+    public ProcScanner(Path proc, int topN, Order order, long relistEveryNanos, int maxOpen) {
+        if (topN < 1) throw new IllegalArgumentException("topN must be positive");
+        if (maxOpen < 0) throw new IllegalArgumentException("maxOpen must not be negative");
+        this.proc = proc;
+        this.topN = topN;
+        this.order = order;
+        this.relistEveryNanos = relistEveryNanos;
+        this.maxOpen = maxOpen;
+        this.top = new int[topN];
+        this.topResident = new long[topN];
+        this.topShared = new long[topN];
+    }
+
+    /** True when {@code /proc/self/stat} is readable, i.e. on Linux. */
+    public static boolean isSupported() {
+        return new File("/proc/self/stat").canRead();
+    }
+
+    /** Refreshes every tracked process and the top-N; returns the number of live processes. */
+    public int scan() {
+        long t0 = System.nanoTime();
+        if (scans == 0 || t0 - lastRelistNanos >= relistEveryNanos) relist(t0);
+        double seconds = scans == 0 ? 0 : (t0 - lastScanNanos) / 1e9;
+        for (int s = 0; s < count; s++) {
+            if (!dead[s]) refresh(s, seconds);
+        }
+        rank();
+        lastScanNanos = t0;
+        scans++;
+        SCAN_TIME.record(System.nanoTime() - t0);
+        return liveCount();
+    }
+
+    private void relist(long now) {
+        lastRelistNanos = now;
+        String[] names = proc.toFile().list();
+        // unlistable (out of descriptors too): keep tracking what we have until the next relist
+        if (names == null) return;
+        generation++;
+        for (String n : names) {
+            int p = parsePid(n);
+            if (p <= 0) continue;
+            int s = find(p);
+            if (s < 0) s = add(p);
+            seen[s] = generation;
+        }
+        // drop gone processes, then rebuild the pid index over the compacted slots
+        int out = 0;
+        for (int s = 0; s < count; s++) {
+            if (dead[s] || seen[s] != generation) {
+                closeStat(s);
+                continue;
+            }
+            if (out != s) moveSlot(s, out);
+            out++;
+        }
+        for (int s = out; s < count; s++) {
+            stat[s] = null;
+            statPath[s] = null;
+            name[s] = null;
+        }
+        count = out;
+        int cap = Integer.highestOneBit(Math.max(1024, count * 4 - 1)) << 1;
+        if (index.length != cap) index = new int[cap];
+        else Arrays.fill(index, 0);
+        for (int s = 0; s < count; s++) insert(pid[s], s);
+        TRACKED.set(count);
+    }
+
+    private static int parsePid(String n) {
+        int p = 0;
+        for (int i = 0; i < n.length(); i++) {
+            char c = n.charAt(i);
+            if (c < '0' || c > '9' || p > 100_000_000) return -1;
+            p = p * 10 + (c - '0');
+        }
+        return n.isEmpty() ? -1 : p;
+    }
+
+    private int add(int p) {
+        if (count == pid.length) grow();
+        int s = count++;
+        pid[s] = p;
+        startTime[s] = -1;
+        fresh[s] = true;
+        dead[s] = false;
+        name[s] = null;
+        commLen[s] = 0;
+        stat[s] = null;
+        statPath[s] = proc.resolve(Integer.toString(p)).resolve("stat");
+        insert(p, s);
+        return s;
+    }
+
+    private void refresh(int s, double seconds) {
+        int n = readStat(s);
+        if (n == SKIP) return;
+        if (n <= 0) {
+            dead[s] = true;
+            return;
+        }
+        // pid (comm) state ppid ... : comm may hold spaces and parentheses, so cut at the last ')'
+        int open = indexOf(buf, 0, n, (byte) '(');
+        int close = lastIndexOf(buf, n, (byte) ')');
+        if (open < 0 || close < open) {
+            dead[s] = true;
+            return;
+        }
+        int i = close + 2;                       // at field 3 (state)
+        i = skipFields(buf, i, n, 11);           // to field 14
+        long utime = parseLong(buf, i, n);
+        i = skipFields(buf, i, n, 1);
+        long stime = parseLong(buf, i, n);
+        i = skipFields(buf, i, n, 7);            // to field 22
+        long start = parseLong(buf, i, n);
+        i = skipFields(buf, i, n, 2);            // to field 24
+        long rss = parseLong(buf, i, n);
+
+        long t = utime + stime;
+        if (start != startTime[s]) {
+            // first sight, or the pid was reused since the last scan
+            startTime[s] = start;
+            fresh[s] = true;
+            int len = Math.min(COMM_MAX, close - open - 1);
+            System.arraycopy(buf, open + 1, comm, s * COMM_MAX, len);
+            commLen[s] = (byte) len;
+            name[s] = null;
+        }
+        cpu[s] = fresh[s] || seconds <= 0 ? 0f : (float) ((t - ticks[s]) * 100.0 / TICKS_PER_SECOND / seconds);
+        fresh[s] = false;
+        ticks[s] = t;
+        rssPages[s] = rss;
+    }
+
+    /** Bounded min-heap of the best N slots, then sorted best first; statm for just those. */
+    private void rank() {
+        int h = 0;
+        for (int s = 0; s < count; s++) {
+            if (dead[s] || startTime[s] < 0) continue;   // never read yet
+            if (h < topN) {
+                top[h] = s;
+                siftUp(h++);
+            } else if (better(s, top[0])) {
+                top[0] = s;
+                siftDown(0, h);
+            }
+        }
+        topCount = h;
+        for (int end = h - 1; end > 0; end--) {
+            int tmp = top[0];
+            top[0] = top[end];
+            top[end] = tmp;
+            siftDown(0, end);
+        }
+        for (int k = 0; k < topCount; k++) readStatm(k);
+    }
+
+    private void readStatm(int k) {
+        topResident[k] = rssPages[top[k]];
+        topShared[k] = 0;
+        try (FileChannel ch = FileChannel.open(proc.resolve(Integer.toString(pid[top[k]])).resolve("statm"))) {
+            int n = readAt0(ch);
+            int i = skipFields(buf, 0, n, 1);
+            topResident[k] = parseLong(buf, i, n);
+            topShared[k] = parseLong(buf, skipFields(buf, i, n, 1), n);
+        } catch (IOException | SecurityException e) {
+            // exited between the stat and statm reads: keep stat's rss
+        }
+    }
+
+    private boolean better(int a, int b) {
+        if (order == Order.CPU && cpu[a] != cpu[b]) return cpu[a] > cpu[b];
+        return rssPages[a] > rssPages[b];
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(top[parent], top[i])) break;
+            swap(parent, i);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int n) {
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= n) return;
+            if (c + 1 < n && better(top[c], top[c + 1])) c++;
+            if (!better(top[i], top[c])) return;
+            swap(i, c);
+            i = c;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int t = top[a];
+        top[a] = top[b];
+        top[b] = t;
+    }
+
+    /** Bytes read, -1 if the process is gone, or {@link #SKIP} if it could not be opened this time. */
+    private int readStat(int s) {
+        if (stat[s] != null) return readAt0(stat[s]);
+        FileChannel ch;
+        try {
+            ch = FileChannel.open(statPath[s]);
+        } catch (NoSuchFileException | AccessDeniedException e) {
+            return -1;
+        } catch (IOException | SecurityException e) {
+            // most likely out of descriptors: keep the process, hold fewer, try again next scan
+            FAILED_OPENS.increment();
+            maxOpen = Math.min(maxOpen, openCount / 2);
+            shed();
+            return SKIP;
+        }
+        if (openCount < maxOpen) {
+            stat[s] = ch;
+            openCount++;
+            return readAt0(ch);
+        }
+        try {
+            return readAt0(ch);
+        } finally {
+            closeQuietly(ch);
+        }
+    }
+
+    /** Closes held channels, newest slots first, down to the cap. */
+    private void shed() {
+        for (int s = count - 1; s >= 0 && openCount > maxOpen; s--) closeStat(s);
+    }
+
+    private void closeStat(int s) {
+        if (stat[s] == null) return;
+        closeQuietly(stat[s]);
+        stat[s] = null;
+        openCount--;
+    }
+
+    private int readAt0(FileChannel ch) {
+        if (ch == null) return -1;
+        try {
+            io.clear();
+            int total = 0;
+            for (int r; io.hasRemaining() && (r = ch.read(io, total)) > 0; ) total += r;
+            io.get(0, buf, 0, total);
+            return total;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static int indexOf(byte[] b, int from, int n, byte c) {
+        for (int i = from; i < n; i++) if (b[i] == c) return i;
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] b, int n, byte c) {
+        for (int i = n - 1; i >= 0; i--) if (b[i] == c) return i;
+        return -1;
+    }
+
+    /** Index of the field {@code fields} further on from the one starting at {@code i}. */
+    private static int skipFields(byte[] b, int i, int n, int fields) {
+        for (int f = 0; f < fields && i < n; f++) {
+            while (i < n && b[i] != ' ') i++;
+            i++;
+        }
+        return i;
+    }
+
+    private static long parseLong(byte[] b, int i, int n) {
+        long v = 0;
+        boolean neg = i < n && b[i] == '-';
+        if (neg) i++;
+        for (; i < n; i++) {
+            int d = b[i] - '0';
+            if (d < 0 || d > 9) break;
+            v = v * 10 + d;
+        }
+        return neg ? -v : v;
+    }
+
+    private int find(int p) {
+        int mask = index.length - 1;
+        for (int i = hash(p) & mask; index[i] != 0; i = (i + 1) & mask) {
+            if (pid[index[i] - 1] == p) return index[i] - 1;
+        }
+        return -1;
+    }
+
+    private void insert(int p, int s) {
+        if ((count + 1) * 2 > index.length) {
+            // only reachable between rebuilds when many processes appear at once
+            index = new int[index.length * 2];
+            for (int k = 0; k < count; k++) if (k != s) insert(pid[k], k);
+        }
+        int mask = index.length - 1;
+        int i = hash(p) & mask;
+        while (index[i] != 0) i = (i + 1) & mask;
+        index[i] = s + 1;
+    }
+
+    private static int hash(int p) {
+        int h = p * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void moveSlot(int from, int to) {
+        pid[to] = pid[from];
+        startTime[to] = startTime[from];
+        ticks[to] = ticks[from];
+        rssPages[to] = rssPages[from];
+        cpu[to] = cpu[from];
+        fresh[to] = fresh[from];
+        dead[to] = dead[from];
+        seen[to] = seen[from];
+        System.arraycopy(comm, from * COMM_MAX, comm, to * COMM_MAX, COMM_MAX);
+        commLen[to] = commLen[from];
+        name[to] = name[from];
+        stat[to] = stat[from];
+        statPath[to] = statPath[from];
+    }
+
+    private void grow() {
+        int n = pid.length * 2;
+        pid = Arrays.copyOf(pid, n);
+        startTime = Arrays.copyOf(startTime, n);
+        ticks = Arrays.copyOf(ticks, n);
+        rssPages = Arrays.copyOf(rssPages, n);
+        cpu = Arrays.copyOf(cpu, n);
+        fresh = Arrays.copyOf(fresh, n);
+        dead = Arrays.copyOf(dead, n);
+        seen = Arrays.copyOf(seen, n);
+        comm = Arrays.copyOf(comm, n * COMM_MAX);
+        commLen = Arrays.copyOf(commLen, n);
+        name = Arrays.copyOf(name, n);
+        stat = Arrays.copyOf(stat, n);
+        statPath = Arrays.copyOf(statPath, n);
+    }
+
+    private int liveCount() {
+        int live = 0;
+        for (int s = 0; s < count; s++) if (!dead[s]) live++;
+        return live;
+    }
+
+    public int topCount() { return topCount; }
+    public int topPid(int k) { return pid[top[k]]; }
+    public float topCpuPercent(int k) { return cpu[top[k]]; }
+    /** Resident set from statm, in bytes. */
+    public long topRssBytes(int k) { return topResident[k] * PAGE_BYTES; }
+    public long topSharedBytes(int k) { return topShared[k] * PAGE_BYTES; }
+
+    /** Process name; the String is made once per process, on first request. */
+    public String topName(int k) {
+        int s = top[k];
+        if (name[s] == null) name[s] = new String(comm, s * COMM_MAX, commLen[s], StandardCharsets.UTF_8);
+        return name[s];
+    }
+
+    public long scanCount() { return scans; }
+    public int trackedCount() { return count; }
+    public int openCount() { return openCount; }
+
+    @Override
+    public void close() {
+        for (int s = 0; s < count; s++) closeStat(s);
+        count = 0;
+    }
+
+    private static void closeQuietly(FileChannel ch) {
+        if (ch == null) return;
+        try {
+            ch.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package cti;
+
+/**
+ * Target event rate (events per second) as a function of seconds since the run started.
+ * Rates are clamped by {@link OpenLoopScheduler} to {@link OpenLoopScheduler#MIN_RATE} ..
+ * {@link OpenLoopScheduler#MAX_RATE}.
+ */
+@FunctionalInterface
+public interface RateProfile {
+
+    double rateAt(double elapsedSeconds);
+
+    static RateProfile constant(double rate) {
+        return t -> rate;
+    }
+
+    /** Starts at {@code start} and adds {@code increment} every {@code stepSeconds}. */
+    static RateProfile step(double start, double increment, double stepSeconds) {
+        return t -> start + Math.floor(t / stepSeconds) * increment;
+    }
+
+    /** Ramps linearly from {@code from} to {@code to} over {@code seconds}, then holds. */
+    static RateProfile linear(double from, double to, double seconds) {
+        return t -> t >= seconds ? to : from + (to - from) * (t / seconds);
+    }
+
+    /** Oscillates around {@code mean} by {@code amplitude} with the given period. */
+    static RateProfile sinusoid(double mean, double amplitude, double periodSeconds) {
+        return t -> mean + amplitude * Math.sin(2 * Math.PI * t / periodSeconds);
+    }
+
+    /** Builds a profile by name (constant, step, linear, sinusoid) around a base rate. */
+    static RateProfile named(String name, double rate) {
+        switch (name.toLowerCase()) {
+            case "step": return step(rate, rate, 10);
+            case "linear": return linear(1, rate, 30);
+            case "sinusoid": return sinusoid(rate, rate * 0.8, 20);
+            default: return constant(rate);
+        }
+    }
+}
@@ -4,10 +4,34 @@ import javax.swing.Timer;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import javax.swing.border.TitledBorder;
+import anomaly.HostAnomalyMonitor;
+import cep.PatternEngine;
+import cep.SequenceRule;
+import metrics.Counter;
+import metrics.Gauge;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class SimulatorSwing {
+    private static final Counter EVENTS_INGESTED = Metrics.counter("cti.events.ingested");
+    private static final Counter EVENTS_APPLIED = Metrics.counter("cti.events.applied");
+    private static final LatencyHistogram ATTACK_HANDLE = Metrics.histogram("cti.attack.handle");
+    private static final Gauge INBOX_DEPTH = Metrics.gauge("cti.inbox.depth");
+    private static final Gauge TIMERS_ALIVE = Metrics.gauge("cti.swing.timers");
+    private static final LatencyHistogram HOST_DETECT = Metrics.histogram("anomaly.detect.latency");
+    private static final LatencyHistogram PROC_SCAN = Metrics.histogram("proc.scan");
+
     private static class NodePanel {
         final String nodeId;
         final JPanel panel;
@@ -18,6 +42,7 @@ public class SimulatorSwing {
         volatile int cpu = 10;
         volatile int mem = 20;
         Timer decayTimer;
+        boolean process;   // EDT only: bars mirror a real process instead of the model
 
         NodePanel(String nodeId) {
             this.nodeId = nodeId;
@@ -59,30 +84,31 @@ public class SimulatorSwing {
         }
 
         void applyAttack(Attacker.AttackType type, int intensity) {
-            double impact = intensity / 10.0;
-
-            if (decayTimer != null) decayTimer.stop();
+            stopTimer(decayTimer);
 
+            String label;
             switch (type) {
-                case CPU_OVERLOAD:
-                    simulateIncrease("CPU overload", (int) Math.round(30 + impact * 60), (int)(3000 + intensity * 200));
-                    break;
-                case MEM_FILL:
-                    simulateIncrease("Memory fill", (int) Math.round(25 + impact * 70), (int)(3500 + intensity * 250));
-                    break;
-                case PORT_FLOOD:
-                    simulateIncrease("Port flood (spikes CPU)", (int) Math.round(15 + impact * 50), (int)(2000 + intensity * 150));
-                    break;
-                case ANOMALY_SPIKE:
-                    simulateIncrease("Anomaly spike (transient)", (int) Math.round(10 + impact * 40), (int)(1500 + intensity * 120));
-                    break;
+                case CPU_OVERLOAD: label = "CPU overload"; break;
+                case MEM_FILL: label = "Memory fill"; break;
+                case PORT_FLOOD: label = "Port flood (spikes CPU)"; break;
+                default: label = "Anomaly spike (transient)"; break;
             }
+            simulateIncrease(label, NodeModel.peakIncrease(type, intensity), NodeModel.durationMs(type, intensity));
+        }
+
+        void applyFloodResult(PortFloodGenerator.Result r) {
+            stopTimer(decayTimer);
+            appendLog("[flood] " + r);
+            // measured accept rate drives the CPU cost, refused/overflowed connects add on top
+            double load = Math.min(1.0, r.acceptsPerSecond() / FLOOD_REFERENCE_ACCEPTS);
+            int peak = (int) Math.round(15 + load * 50 + r.dropRatio() * 35);
+            simulateIncrease("Port flood (loopback)", Math.min(100, peak), 2000 + r.intensity * 150);
         }
 
         private void simulateIncrease(String label, int peakIncrease, int durationMs) {
             appendLog("[attack] " + label + " -> peak+" + peakIncrease + "% for " + durationMs + "ms");
-            int stepsUp = 8;
-            int stepMs = Math.max(50, durationMs / (stepsUp + 4));
+            int stepsUp = NodeModel.RAMP_STEPS;
+            int stepMs = NodeModel.rampStepMs(durationMs);
             int initialCpu = cpu;
             int initialMem = mem;
             int targetCpu = Math.min(100, initialCpu + peakIncrease);
@@ -95,29 +121,63 @@ public class SimulatorSwing {
                 double frac = Math.min(1.0, (double) step[0] / stepsUp);
                 cpu = initialCpu + (int) Math.round((targetCpu - initialCpu) * frac);
                 mem = initialMem + (int) Math.round((targetMem - initialMem) * frac);
-                cpuBar.setValue(cpu);
-                cpuBar.setString(cpu + "%");
-                memBar.setValue(mem);
-                memBar.setString(mem + "%");
+                paintBars();
                 if (step[0] >= stepsUp) {
-                    ((Timer)e.getSource()).stop();
+                    stopTimer((Timer) e.getSource());
                     scheduleDecay(durationMs, initialCpu, initialMem);
                 }
             });
             upTimer.setRepeats(true);
-            upTimer.start();
+            startTimer(upTimer);
+        }
+
+        /** Simulated levels; skipped while the panel mirrors a real process. */
+        private void paintBars() {
+            if (process) return;
+            cpuBar.setValue(cpu); cpuBar.setString(cpu + "%");
+            memBar.setValue(mem); memBar.setString(mem + "%");
+        }
+
+        void showProcess(String title, float cpuPercent, long rssBytes, long totalBytes) {
+            process = true;
+            ((TitledBorder) panel.getBorder()).setTitle(title);
+            panel.repaint();
+            cpuBar.setValue(Math.round(Math.min(100f, cpuPercent)));
+            cpuBar.setString(String.format(Locale.ROOT, "%.1f%%", cpuPercent));
+            memBar.setValue(totalBytes > 0 ? (int) Math.min(100, rssBytes * 100 / totalBytes) : 0);
+            memBar.setString(rssBytes / (1 << 20) + " MiB");
+        }
+
+        void showSimulated() {
+            process = false;
+            ((TitledBorder) panel.getBorder()).setTitle(nodeId);
+            panel.repaint();
+            paintBars();
+        }
+
+        private void startTimer(Timer t) {
+            t.start();
+            TIMERS_ALIVE.add(1);
+        }
+
+        private void stopTimer(Timer t) {
+            if (t != null && t.isRunning()) {
+                t.stop();
+                TIMERS_ALIVE.add(-1);
+            }
         }
 
         private void scheduleDecay(int holdMs, int initialCpu, int initialMem) {
-            int hold = Math.max(200, holdMs / 6);
+            int hold = NodeModel.holdMs(holdMs);
 
             // Use a single-shot Swing Timer as a non-blocking wait; this avoids sleeping on EDT.
             Timer holdTimer = new Timer(hold, null);
             holdTimer.setRepeats(false);
             holdTimer.addActionListener(ev -> {
+                TIMERS_ALIVE.add(-1);
                 SwingUtilities.invokeLater(() -> {
-                    int decaySteps = 12;
-                    int decayStepMs = Math.max(50, (holdMs + 600) / decaySteps);
+                    int decaySteps = NodeModel.DECAY_STEPS;
+                    int decayStepMs = NodeModel.decayStepMs(holdMs);
                     final int startCpu = cpu;
                     final int startMem = mem;
                     decayTimer = new Timer(decayStepMs, null);
@@ -127,18 +187,59 @@ public class SimulatorSwing {
                         double frac = Math.min(1.0, (double) s[0] / decaySteps);
                         cpu = startCpu - (int) Math.round((startCpu - initialCpu) * frac);
                         mem = startMem - (int) Math.round((startMem - initialMem) * frac);
-                        cpuBar.setValue(cpu); cpuBar.setString(cpu + "%");
-                        memBar.setValue(mem); memBar.setString(mem + "%");
+                        paintBars();
                         if (s[0] >= decaySteps) {
-                            ((Timer)e.getSource()).stop();
+                            stopTimer((Timer) e.getSource());
                             appendLog("[recovered] CPU=" + cpu + "% MEM=" + mem + "%");
                         }
                     });
                     decayTimer.setRepeats(true);
-                    decayTimer.start();
+                    startTimer(decayTimer);
                 });
             });
-            holdTimer.start();
+            startTimer(holdTimer);
+        }
+    }
+
+    private static final int FLOOD_BACKLOG = 64;
+    private static final int FLOOD_WORKERS = 2;
+    private static final int FLOOD_DURATION_MS = 1000;
+    private static final double FLOOD_REFERENCE_ACCEPTS = 4000.0;
+
+    private static final int PUMP_PERIOD_MS = 50;
+    private static final int MAX_APPLY_PER_PUMP = 25;
+    // about two seconds of pump throughput; beyond it events are shed by priority
+    private static final int INBOX_CAPACITY = 1024;
+    private static final long SWARM_MEAN_PERIOD_MS = 2000;
+    private static final Integer[] SWARM_SIZES = { 100, 1_000, 10_000 };
+
+    private static final Path EXPORT_DIR = Path.of("exports");
+
+    private static final double AUTO_DEFAULT_RATE = 1000.0 / 900;
+    private static final String[] RATE_PROFILES = { "constant", "step", "linear", "sinusoid" };
+
+    private static final long HOST_PERIOD_MS = 1000;
+    private static final int HOST_SEASON = 60;
+    private static final String HOST_SOURCE = "Host";
+    private static final long PROC_PERIOD_MS = 1000;
+
+    private static final class Ingested {
+        final int node;
+        final Attacker<String> attacker;
+        final String source;
+        final long intendedNanos;   // 0 when the producer has no schedule
+        final boolean host;         // raised by the host anomaly monitor
+
+        Ingested(int node, Attacker<String> attacker, String source, long intendedNanos) {
+            this(node, attacker, source, intendedNanos, false);
+        }
+
+        Ingested(int node, Attacker<String> attacker, String source, long intendedNanos, boolean host) {
+            this.node = node;
+            this.attacker = attacker;
+            this.source = source;
+            this.intendedNanos = intendedNanos;
+            this.host = host;
         }
     }
 
@@ -149,9 +250,47 @@ public class SimulatorSwing {
     private final JSlider intensitySlider;
     private final JButton startBtn;
     private final JToggleButton autoToggle;
+    private final JCheckBox floodBox;
+    private final JCheckBox exportBox;
+    private final JCheckBox hostBox;
+    private final JCheckBox procBox;
+    private final JLabel hostStatus;
+    private final JLabel procStatus;
+    private final JComboBox<Integer> swarmSize;
+    private final JToggleButton swarmToggle;
+    private final JLabel swarmStatus;
+    private final JSpinner autoRate;
+    private final JComboBox<String> autoProfile;
+    private final JLabel autoStatus;
+    private final JLabel patternStatus;
     private final JTextArea mainLog;
     private final List<NodePanel> nodes = new ArrayList<>();
-    private Timer autoTimer;
+    private OpenLoopScheduler autoScheduler;
+    private Timer autoStatsTimer;
+    private final LatencyHistogram applyLatency = new LatencyHistogram();
+    private PortFloodTarget floodTarget;
+    private final ExecutorService floodExec = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "flood-generator");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean floodBusy = new AtomicBoolean();
+    private final AdmissionQueue<Ingested> inbox;
+    // EDT only: each event is formatted once and copied into both the main and the node log lines
+    private final AttackFormatter formatter = new AttackFormatter();
+    private final StringBuilder nodeLine = new StringBuilder(160);
+    // EDT only: multi-step campaigns across nodes and sources, on top of the single-event CRITICAL check
+    private final PatternEngine patterns = new PatternEngine(SequenceRule.defaults(), this::onPatternAlert);
+    private long shownPartials = -1, shownAlerts = -1;
+    private final AttackSink sink = (node, attacker) -> enqueue(new Ingested(node, attacker, "Ingest", 0));
+    private final Timer pumpTimer;
+    private Timer swarmStatsTimer;
+    private AttackerSwarm swarm;
+    private AttackLogExporter exporter;
+    private HostAnomalyMonitor hostMonitor;
+    private ScheduledExecutorService procExec;
+    private ProcScanner procScanner;
+    private Timer hostStatsTimer;
 
     public SimulatorSwing(int nodeCount) {
         frame = new JFrame("CTI Attack Simulator - Nodes");
@@ -161,6 +300,31 @@ public class SimulatorSwing {
         intensitySlider = new JSlider(1, 10, 6);
         startBtn = new JButton("Start Attack");
         autoToggle = new JToggleButton("Auto: OFF");
+        floodBox = new JCheckBox("Loopback flood");
+        floodBox.setToolTipText("Run PORT_FLOOD against a local NIO listener and feed measured stats into the node");
+        exportBox = new JCheckBox("Export CSV");
+        exportBox.setToolTipText("Stream every applied attack to " + EXPORT_DIR.toAbsolutePath());
+        hostBox = new JCheckBox("Host anomalies");
+        hostBox.setToolTipText("Sample this machine's CPU / memory every " + HOST_PERIOD_MS
+                + "ms and raise ANOMALY_SPIKE on the selected node when EWMA, MAD or Holt-Winters flags a sample");
+        hostStatus = new JLabel("Host idle");
+        procBox = new JCheckBox("Processes as nodes");
+        procBox.setToolTipText("Show the top processes by CPU from /proc on the node panels (Linux)");
+        procBox.setEnabled(ProcScanner.isSupported());
+        procStatus = new JLabel("Processes idle");
+        swarmSize = new JComboBox<>(SWARM_SIZES);
+        swarmSize.setSelectedItem(1_000);
+        swarmToggle = new JToggleButton("Swarm: OFF");
+        swarmStatus = new JLabel("Swarm idle");
+        autoRate = new JSpinner(new SpinnerNumberModel(AUTO_DEFAULT_RATE, OpenLoopScheduler.MIN_RATE,
+                OpenLoopScheduler.MAX_RATE, 1.0));
+        autoProfile = new JComboBox<>(RATE_PROFILES);
+        autoStatus = new JLabel("Auto idle");
+        patternStatus = new JLabel(patterns.stats());
+        patternStatus.setToolTipText("<html>" + String.join("<br>", SequenceRule.defaults().stream().map(Object::toString).toList()) + "</html>");
+        inbox = new AdmissionQueue<>(INBOX_CAPACITY, nodeCount,
+                (queued, newer) -> newer.attacker.getIntensity() >= queued.attacker.getIntensity() ? newer : queued);
+        INBOX_DEPTH.bind(inbox::size);
         mainLog = new JTextArea(8, 60);
         mainLog.setEditable(false);
         mainLog.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
@@ -184,11 +348,32 @@ public class SimulatorSwing {
         intensitySlider.setPaintLabels(true);
         controls.add(intensitySlider);
         controls.add(startBtn);
+        controls.add(new JLabel("Rate/s:"));
+        controls.add(autoRate);
+        controls.add(autoProfile);
         controls.add(autoToggle);
+        controls.add(floodBox);
+        controls.add(exportBox);
+        controls.add(hostBox);
+        controls.add(procBox);
+
+        JPanel swarmRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 2));
+        swarmRow.add(new JLabel("Swarm size:"));
+        swarmRow.add(swarmSize);
+        swarmRow.add(swarmToggle);
+        swarmRow.add(swarmStatus);
+        swarmRow.add(autoStatus);
+        swarmRow.add(patternStatus);
+        swarmRow.add(hostStatus);
+        swarmRow.add(procStatus);
+
+        JPanel north = new JPanel(new GridLayout(2, 1));
+        north.add(controls);
+        north.add(swarmRow);
 
         JPanel main = new JPanel(new BorderLayout(8,8));
         main.add(nodesGrid, BorderLayout.CENTER);
-        main.add(controls, BorderLayout.NORTH);
+        main.add(north, BorderLayout.NORTH);
         main.add(new JScrollPane(mainLog), BorderLayout.SOUTH);
 
         frame.getContentPane().add(main);
@@ -198,10 +383,24 @@ public class SimulatorSwing {
 
         startBtn.addActionListener(this::onStartAttack);
         autoToggle.addActionListener(this::onAutoToggle);
+        swarmToggle.addActionListener(this::onSwarmToggle);
+        exportBox.addActionListener(this::onExportToggle);
+        hostBox.addActionListener(this::onHostToggle);
+        procBox.addActionListener(this::onProcToggle);
+
+        pumpTimer = new Timer(PUMP_PERIOD_MS, ev -> pumpInbox());
+        pumpTimer.start();
 
         frame.addWindowListener(new java.awt.event.WindowAdapter() {
             @Override public void windowClosing(java.awt.event.WindowEvent e) {
                 stopAuto();
+                stopSwarm();
+                pumpTimer.stop();
+                stopExport();
+                stopHost();
+                stopProcesses();
+                floodExec.shutdownNow();
+                closeFloodTarget();
             }
         });
     }
@@ -213,16 +412,264 @@ public class SimulatorSwing {
         NodePanel np = findNode(nodeId);
         if (np == null) return;
 
+        long t0 = System.nanoTime();
         Attacker<String> attacker = new Attacker<>("manual-"+System.currentTimeMillis(), "0.0.0.0", type, intensity);
-        log("Launching attack " + attacker);
-        np.appendLog("Received attack: " + attacker);
-        np.applyAttack(type, intensity);
+        String line = formatter.event(attacker).toString();
+        log("Launching attack " + line);
+        np.appendLog("Received attack: " + line);
+        dispatchAttack(np, type, intensity);
+        ATTACK_HANDLE.record(System.nanoTime() - t0);
+        EVENTS_INGESTED.increment();
+        EVENTS_APPLIED.increment();
+        export(nodes.indexOf(np), attacker, "Manual");
+        patterns.onEvent(nodes.indexOf(np), attacker);
 
         if (intensity >= 9) {
             log("*** CRITICAL ATTACK ON " + nodeId + " ***");
         }
     }
 
+    private void dispatchAttack(NodePanel np, Attacker.AttackType type, int intensity) {
+        if (type != Attacker.AttackType.PORT_FLOOD || !floodBox.isSelected()) {
+            np.applyAttack(type, intensity);
+            return;
+        }
+        if (!floodBusy.compareAndSet(false, true)) {
+            // one loopback flood at a time; overlapping ones fall back to the modelled reaction
+            np.applyAttack(type, intensity);
+            return;
+        }
+        floodExec.execute(() -> {
+            try {
+                PortFloodGenerator.Result r = new PortFloodGenerator(floodTarget()).run(intensity, FLOOD_DURATION_MS);
+                SwingUtilities.invokeLater(() -> np.applyFloodResult(r));
+            } catch (IOException ex) {
+                log("Loopback flood failed: " + ex.getMessage());
+                SwingUtilities.invokeLater(() -> np.applyAttack(type, intensity));
+            } finally {
+                floodBusy.set(false);
+            }
+        });
+    }
+
+    private synchronized PortFloodTarget floodTarget() throws IOException {
+        if (floodTarget == null) {
+            floodTarget = new PortFloodTarget(FLOOD_BACKLOG, FLOOD_WORKERS);
+            floodTarget.start();
+            log("Loopback flood target on tcp " + floodTarget.tcpAddress() + " / udp " + floodTarget.udpAddress()
+                    + " (backlog " + FLOOD_BACKLOG + ", workers " + FLOOD_WORKERS + ")");
+        }
+        return floodTarget;
+    }
+
+    private synchronized void closeFloodTarget() {
+        if (floodTarget != null) floodTarget.close();
+        floodTarget = null;
+    }
+
+    /** Thread-safe entry point for events produced outside the EDT. */
+    public AttackSink sink() { return sink; }
+
+    private void enqueue(Ingested in) {
+        EVENTS_INGESTED.increment();
+        inbox.offer(in, in.node, in.attacker.getIntensity());
+    }
+
+    private void pumpInbox() {
+        Ingested in;
+        int applied = 0;
+        StringBuilder batch = null;
+        while (applied < MAX_APPLY_PER_PUMP && (in = inbox.poll()) != null) {
+            long t0 = System.nanoTime();
+            NodePanel np = nodes.get(Math.floorMod(in.node, nodes.size()));
+            Attacker<String> a = in.attacker;
+            if (batch == null) batch = new StringBuilder();
+            formatter.event(a);
+            formatter.appendTo(batch.append(in.source).append(": ")).append(" -> target ").append(np.nodeId).append('\n');
+            if (a.getIntensity() >= 9) batch.append("*** CRITICAL ATTACK ON ").append(np.nodeId).append(" ***\n");
+            nodeLine.setLength(0);
+            np.appendLog(formatter.appendTo(nodeLine.append(in.source).append("-attack: ")).toString());
+            dispatchAttack(np, a.getType(), a.getIntensity());
+            export(Math.floorMod(in.node, nodes.size()), a, in.source);
+            patterns.onEvent(Math.floorMod(in.node, nodes.size()), a);
+            long t1 = System.nanoTime();
+            ATTACK_HANDLE.record(t1 - t0);
+            EVENTS_APPLIED.increment();
+            if (in.host) HOST_DETECT.record(t1 - in.intendedNanos);
+            else if (in.intendedNanos != 0) applyLatency.record(t1 - in.intendedNanos);
+            applied++;
+        }
+        if (batch != null) {
+            batch.setLength(batch.length() - 1);
+            log(batch.toString());
+        }
+        patterns.advance(System.currentTimeMillis());
+        long partials = patterns.activePartialMatches(), alerts = patterns.alertCount();
+        if (partials != shownPartials || alerts != shownAlerts) {
+            shownPartials = partials;
+            shownAlerts = alerts;
+            patternStatus.setText(patterns.stats());
+        }
+    }
+
+    private void onPatternAlert(SequenceRule rule, long key, long firstMs, long lastMs) {
+        log("*** PATTERN " + rule.name() + " from " + rule.keyBy().format(key) + " over " + (lastMs - firstMs) + "ms ***");
+    }
+
+    private void export(int node, Attacker<String> a, String source) {
+        AttackLogExporter ex = exporter;
+        if (ex != null) ex.offer(node, a, source);
+    }
+
+    private void onExportToggle(ActionEvent e) {
+        if (exportBox.isSelected()) {
+            AttackLogExporter ex = new AttackLogExporter(EXPORT_DIR, "attacks", AttackLogExporter.Format.CSV, false);
+            try {
+                ex.start();
+                exporter = ex;
+                log("Exporting attacks to " + ex.currentFile().toAbsolutePath());
+            } catch (IOException ioe) {
+                exportBox.setSelected(false);
+                log("Export failed to start: " + ioe.getMessage());
+            }
+        } else {
+            stopExport();
+        }
+    }
+
+    private void stopExport() {
+        AttackLogExporter ex = exporter;
+        if (ex == null) return;
+        exporter = null;
+        try {
+            ex.close();
+            log("Export closed: " + ex.files());
+        } catch (IOException ioe) {
+            log("Export failed: " + ioe.getMessage());
+        }
+    }
+
+    private void onHostToggle(ActionEvent e) {
+        if (!hostBox.isSelected()) {
+            stopHost();
+            return;
+        }
+        NodePanel np = findNode((String) nodeSelect.getSelectedItem());
+        int node = np == null ? 0 : nodes.indexOf(np);
+        // sampling thread -> inbox, so host anomalies share the pump, log, export and patterns with simulated ones
+        hostMonitor = new HostAnomalyMonitor(HOST_PERIOD_MS, HOST_SEASON, a -> {
+            log(String.format(Locale.ROOT, "Host %s anomaly (%s): %.1f%%, score %.1f", a.series(), a.detector(), a.value(), a.score()));
+            enqueue(new Ingested(node, a.toAttacker(), HOST_SOURCE, a.sampleNanos(), true));
+        });
+        hostMonitor.start();
+        log("Host anomaly detection on " + nodes.get(node).nodeId);
+        hostStatsTimer = new Timer(1000, ev -> {
+            HostAnomalyMonitor m = hostMonitor;
+            if (m != null) hostStatus.setText(m.stats() + ", detect p99 " + LatencyHistogram.nanos(HOST_DETECT.percentile(99)));
+        });
+        hostStatsTimer.start();
+    }
+
+    private void stopHost() {
+        if (hostStatsTimer != null) hostStatsTimer.stop();
+        hostStatsTimer = null;
+        if (hostMonitor == null) return;
+        hostMonitor.close();
+        hostStatus.setText("Host stopped: " + hostMonitor.stats());
+        hostMonitor = null;
+    }
+
+    private void onProcToggle(ActionEvent e) {
+        if (!procBox.isSelected()) {
+            stopProcesses();
+            return;
+        }
+        ProcScanner scanner = new ProcScanner(nodes.size(), ProcScanner.Order.CPU);
+        long total = SystemStatsReader.getTotalPhysicalMemoryBytes();
+        String[] titles = new String[nodes.size()];
+        float[] cpus = new float[nodes.size()];
+        long[] rss = new long[nodes.size()];
+        procExec = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "proc-scanner");
+            t.setDaemon(true);
+            return t;
+        });
+        // scan off the EDT, once per period
+        procExec.scheduleAtFixedRate(() -> {
+            try {
+                publishProcesses(scanner, titles, cpus, rss, total);
+            } catch (RuntimeException ex) {
+                // an escaping exception would cancel every later scan and freeze the panels
+                log("Process scan failed: " + ex);
+            }
+        }, 0, PROC_PERIOD_MS, TimeUnit.MILLISECONDS);
+        log("Node panels now show the top " + nodes.size() + " processes by CPU");
+        procScanner = scanner;
+    }
+
+    /** One scan on the scanner thread; the panels get a copy of the top N. */
+    private void publishProcesses(ProcScanner scanner, String[] titles, float[] cpus, long[] rss, long total) {
+        int live = scanner.scan();
+        int n = scanner.topCount();
+        for (int k = 0; k < n; k++) {
+            titles[k] = scanner.topPid(k) + " " + scanner.topName(k);
+            cpus[k] = scanner.topCpuPercent(k);
+            rss[k] = scanner.topRssBytes(k);
+        }
+        String[] t = Arrays.copyOf(titles, n);
+        float[] c = Arrays.copyOf(cpus, n);
+        long[] m = Arrays.copyOf(rss, n);
+        String status = String.format(Locale.ROOT, "Processes: %d live, scan p99 %s", live,
+                LatencyHistogram.nanos(PROC_SCAN.percentile(99)));
+        SwingUtilities.invokeLater(() -> {
+            if (!procBox.isSelected()) return;
+            for (int k = 0; k < nodes.size(); k++) {
+                if (k < t.length) nodes.get(k).showProcess(t[k], c[k], m[k], total);
+                else nodes.get(k).showSimulated();
+            }
+            procStatus.setText(status);
+        });
+    }
+
+    private void stopProcesses() {
+        if (procExec == null) return;
+        // close on the scanner thread, after any scan in flight; shutdown() cancels the periodic task
+        procExec.execute(procScanner::close);
+        procExec.shutdown();
+        procExec = null;
+        procScanner = null;
+        procStatus.setText("Processes stopped");
+        for (NodePanel np : nodes) np.showSimulated();
+    }
+
+    private void onSwarmToggle(ActionEvent e) {
+        if (swarmToggle.isSelected()) {
+            swarmToggle.setText("Swarm: ON");
+            int size = (Integer) swarmSize.getSelectedItem();
+            swarm = new AttackerSwarm(size, nodes.size(), SWARM_MEAN_PERIOD_MS, System.nanoTime(), sink);
+            swarm.start();
+            log("Swarm started: " + size + " virtual-thread attackers");
+            swarmStatsTimer = new Timer(1000, ev -> {
+                if (swarm != null) swarmStatus.setText(swarm.stats() + " " + inbox.stats());
+            });
+            swarmStatsTimer.start();
+        } else {
+            swarmToggle.setText("Swarm: OFF");
+            stopSwarm();
+        }
+    }
+
+    private void stopSwarm() {
+        if (swarmStatsTimer != null) swarmStatsTimer.stop();
+        swarmStatsTimer = null;
+        if (swarm == null) return;
+        AttackerSwarm s = swarm;
+        swarm = null;
+        s.stop();
+        inbox.clear();
+        swarmStatus.setText("Swarm stopped: " + s.stats());
+    }
+
     private NodePanel findNode(String id) {
         for (NodePanel n: nodes) if (n.nodeId.equals(id)) return n;
         return null;
@@ -246,25 +693,39 @@ public class SimulatorSwing {
     }
 
     private void startAuto() {
-        if (autoTimer != null && autoTimer.isRunning()) return;
-        Random r = new Random();
-        autoTimer = new Timer(900, ev -> {
-            NodePanel np = nodes.get(r.nextInt(nodes.size()));
-            Attacker.AttackType t = Attacker.AttackType.values()[r.nextInt(Attacker.AttackType.values().length)];
+        if (autoScheduler != null && autoScheduler.isRunning()) return;
+        double rate = ((Number) autoRate.getValue()).doubleValue();
+        String profile = (String) autoProfile.getSelectedItem();
+        SplittableRandom r = new SplittableRandom();
+        Attacker.AttackType[] types = Attacker.AttackType.values();
+        int nodeCount = nodes.size();
+        applyLatency.reset();
+        // runs on the scheduler thread: only builds events, the EDT pump applies them
+        autoScheduler = new OpenLoopScheduler(RateProfile.named(profile, rate), intended -> {
+            Attacker.AttackType t = types[r.nextInt(types.length)];
             int intensity = 2 + r.nextInt(9);
-            Attacker<String> autoA = new Attacker<>("auto-" + Math.abs(r.nextInt() % 10000), "10.0.0." + r.nextInt(255), t, intensity);
-            log("Auto: " + autoA + " -> target " + np.nodeId);
-            np.appendLog("Auto-attack: " + autoA);
-            np.applyAttack(t, intensity);
+            Attacker<String> autoA = new Attacker<>("auto-" + r.nextInt(10000), "10.0.0." + r.nextInt(255), t, intensity);
+            enqueue(new Ingested(r.nextInt(nodeCount), autoA, "Auto", intended));
+        });
+        autoScheduler.start();
+        log("Auto mode: open-loop " + profile + " profile at " + rate + "/s");
+        autoStatsTimer = new Timer(1000, ev -> {
+            OpenLoopScheduler sch = autoScheduler;
+            if (sch == null) return;
+            autoStatus.setText(String.format(Locale.ROOT, "Auto: %.0f/s sent=%d lag p99=%s apply p99=%s shed=%d",
+                    sch.currentRate(), sch.sentCount(), LatencyHistogram.nanos(sch.sendLag().percentile(99)),
+                    LatencyHistogram.nanos(applyLatency.percentile(99)), inbox.shedCount()));
         });
-        autoTimer.setInitialDelay(0);
-        autoTimer.start();
+        autoStatsTimer.start();
     }
 
     private void stopAuto() {
-        if (autoTimer != null) {
-            autoTimer.stop();
-            autoTimer = null;
+        if (autoStatsTimer != null) autoStatsTimer.stop();
+        autoStatsTimer = null;
+        if (autoScheduler != null) {
+            autoScheduler.stop();
+            autoStatus.setText("Auto stopped: sent=" + autoScheduler.sentCount() + " apply " + applyLatency.summary());
+            autoScheduler = null;
         }
     }
 
@@ -0,0 +1,138 @@
+package games;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * The DDoS simulator's physics without JavaFX: request particles fall towards the server, the
+ * server drains {@code capacity} of the oldest queued requests per step, and every request that
+ * reaches it undrained becomes a breach. All randomness comes from the generator passed in, so a
+ * seeded generator replays a run exactly. Particles live in parallel arrays in arrival order.
+ * Not thread-safe.
+ */
+public final class DDoSModel {
+
+    public static final long STEP_MS = 33;
+    public static final double WIDTH = 800, HEIGHT = 600;
+    public static final int DEFAULT_CAPACITY = 12;
+    /** Chance per step that auto flood sends a burst, and the share of the burst size it sends. */
+    static final double AUTO_CHANCE = 0.18, AUTO_SHARE = 0.15;
+
+    private final double width, height;
+    private int capacity;
+    private RandomGenerator rnd;
+
+    private double[] x = new double[256], y = new double[256], vx = new double[256], vy = new double[256],
+            size = new double[256];
+    private int count;
+    private double[] bx = new double[64], by = new double[64];
+    private int breaches;
+    private int autoBurst;
+    private long steps;
+
+    public DDoSModel(int capacity, RandomGenerator rnd) {
+        this(WIDTH, HEIGHT, capacity, rnd);
+    }
+
+    public DDoSModel(double width, double height, int capacity, RandomGenerator rnd) {
+        this.width = width;
+        this.height = height;
+        this.capacity = capacity;
+        this.rnd = rnd;
+    }
+
+    /** Empties the model and switches to {@code rnd}, keeping the arrays for the next run. */
+    public void reset(int capacity, RandomGenerator rnd) {
+        this.capacity = capacity;
+        this.rnd = rnd;
+        count = 0;
+        breaches = 0;
+        autoBurst = 0;
+        steps = 0;
+    }
+
+    public void clear() {
+        count = 0;
+        breaches = 0;
+    }
+
+    /** Burst size auto flood draws from; 0 turns auto flood off. */
+    public void setAutoBurst(int burstSize) { this.autoBurst = burstSize; }
+
+    public void emitBurst(int n) {
+        if (count + n > x.length) grow(count + n);
+        for (int i = 0; i < n; i++) {
+            double px = rnd.nextDouble() * 780 + 10;
+            int k = count++;
+            x[k] = px;
+            y[k] = -10;
+            vx[k] = (390 - px) / 120 + (rnd.nextDouble() - 0.5) * 0.6;
+            vy[k] = 1.0 + rnd.nextDouble() * 2.0;
+            size[k] = 1 + rnd.nextDouble() * 2;
+        }
+    }
+
+    /** One {@link #STEP_MS} step; returns the breaches it added. */
+    public int step() {
+        steps++;
+        if (autoBurst > 0 && rnd.nextDouble() < AUTO_CHANCE) emitBurst((int) (autoBurst * AUTO_SHARE));
+
+        double serverTop = height - 90, serverBottom = height - 20;
+        double serverLeft = width / 2 - 120, serverRight = width / 2 + 120;
+        int before = breaches;
+        // move, breach or fall off, then drop the oldest `capacity` survivors: all in one compaction
+        int out = 0, drained = 0;
+        for (int i = 0; i < count; i++) {
+            x[i] += vx[i];
+            y[i] += vy[i];
+            vy[i] += 0.02;
+            vx[i] += (rnd.nextDouble() - 0.5) * 0.04;
+            double px = x[i], py = y[i];
+            if (py >= serverTop && px >= serverLeft && px <= serverRight) {
+                double bxv = Math.max(serverLeft + 8, Math.min(serverRight - 8, px + (rnd.nextDouble() - 0.5) * 20));
+                double byv = serverTop + 8 + rnd.nextDouble() * (serverBottom - serverTop - 16);
+                addBreach(bxv, byv);
+                continue;
+            }
+            if (py > height + 30) continue;
+            if (drained < capacity) {
+                drained++;
+                continue;
+            }
+            x[out] = px; y[out] = py; vx[out] = vx[i]; vy[out] = vy[i]; size[out] = size[i];
+            out++;
+        }
+        count = out;
+        return breaches - before;
+    }
+
+    private void addBreach(double px, double py) {
+        if (breaches == bx.length) {
+            bx = Arrays.copyOf(bx, breaches * 2);
+            by = Arrays.copyOf(by, breaches * 2);
+        }
+        bx[breaches] = px;
+        by[breaches++] = py;
+    }
+
+    private void grow(int min) {
+        int n = Math.max(min, x.length * 2);
+        x = Arrays.copyOf(x, n);
+        y = Arrays.copyOf(y, n);
+        vx = Arrays.copyOf(vx, n);
+        vy = Arrays.copyOf(vy, n);
+        size = Arrays.copyOf(size, n);
+    }
+
+    public int queued() { return count; }
+    public int breaches() { return breaches; }
+    public long steps() { return steps; }
+    public double width() { return width; }
+    public double height() { return height; }
+
+    public double particleX(int i) { return x[i]; }
+    public double particleY(int i) { return y[i]; }
+    public double particleSize(int i) { return size[i]; }
+    public double breachX(int i) { return bx[i]; }
+    public double breachY(int i) { return by[i]; }
+}
@@ -1,8 +1,7 @@
 package games;
 
-import javafx.animation.Animation;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.canvas.Canvas;
@@ -10,27 +9,34 @@ import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
-import javafx.util.Duration;
+import metrics.Gauge;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Random;
 
-public class DDoSSimulator {
-    private Timeline timeline;
-    private static DDoSSimulator instance;
-    private final Random rnd = new Random();
+public class DDoSSimulator implements SimModule {
+    private static final LatencyHistogram TICK_TIME = Metrics.histogram("games.ddos.tick");
+    private static final Gauge QUEUED = Metrics.gauge("games.ddos.queued");
+    private static final long STEP_NANOS = DDoSModel.STEP_MS * 1_000_000L;
+    private static final Color BREACH_FLAT = Color.color(1.0, 0.8, 0.2);
+    private static final Color BREACH_STROKE = Color.color(1.0, 0.6, 0.6, 0.25);
+    private static final Color PARTICLE_FLAT = Color.hsb(260, 0.8, 1.0);
 
-    private final List<RequestParticle> particles = new ArrayList<>();
-    private final List<BreachBlock> breaches = new ArrayList<>();
+    private final BooleanProperty running = new SimpleBooleanProperty(false);
+    private final DDoSModel model = new DDoSModel(DDoSModel.DEFAULT_CAPACITY, new Random());
 
     private Label queuedLabel;
     private Slider burstSlider;
     private ToggleButton autoToggle;
+    private Canvas canvas;
+    private Label breachesLabel;
 
-    public DDoSSimulator() { instance = this; }
+    @Override public String title() { return "DDoS Simulator"; }
+    @Override public long stepNanos() { return STEP_NANOS; }
+    @Override public BooleanProperty runningProperty() { return running; }
 
+    @Override
     public BorderPane createView() {
         BorderPane root = new BorderPane();
         VBox left = new VBox(10);
@@ -52,91 +58,69 @@ public class DDoSSimulator {
         autoToggle = new ToggleButton("Auto Flood");
 
         queuedLabel = new Label("Queued: 0");
-        Label breachesLabel = new Label("Breaches: 0");
+        breachesLabel = new Label("Breaches: 0");
 
         left.getChildren().addAll(title, row, new Label("Burst size"), burstSlider, autoToggle,
                 new Separator(), queuedLabel, breachesLabel);
         root.setLeft(left);
 
-        Canvas canvas = new Canvas(800, 600);
+        canvas = new Canvas(DDoSModel.WIDTH, DDoSModel.HEIGHT);
         root.setCenter(new StackPane(canvas));
 
         btnBurst.setOnAction(e -> emitBurst((int) burstSlider.getValue()));     // 1-arg lambda
-        btnClear.setOnAction(e -> { particles.clear(); breaches.clear(); updateTelemetry(breachesLabel); }); // block lambda
+        btnClear.setOnAction(e -> { model.clear(); updateTelemetry(); }); // block lambda
 
         btnStart.setOnAction(e -> start());   // 1-arg lambda
         btnStop.setOnAction(e -> stop());     // 1-arg lambda
 
-        timeline = new Timeline(new KeyFrame(Duration.millis(33), ev -> tick(canvas, breachesLabel))); // 1-arg lambda
-        timeline.setCycleCount(Animation.INDEFINITE);
-
         autoToggle.selectedProperty().addListener((obs, oldV, newV) -> { if (newV) start(); }); // 3-arg lambda + block lambda
 
         return root;
     }
 
     private void emitBurst(int size) {
-        for (int i = 0; i < size; i++) {
-            double x = rnd.nextDouble() * 780 + 10;
-            double y = -10;
-            double vx = (390 - x) / 120 + (rnd.nextDouble() - 0.5) * 0.6;
-            double vy = 1.0 + rnd.nextDouble() * 2.0;
-            particles.add(new RequestParticle(x, y, vx, vy, 1 + rnd.nextDouble()*2));
-        }
-        updateTelemetry(null);
+        model.emitBurst(size);
+        updateTelemetry();
+    }
+
+    @Override
+    public void step() {
+        long t0 = System.nanoTime();
+        model.setAutoBurst(autoToggle != null && autoToggle.isSelected() ? (int) burstSlider.getValue() : 0);
+        model.step();
+        updateTelemetry();
+        TICK_TIME.record(System.nanoTime() - t0);
     }
 
-    private void tick(Canvas canvas, Label breachesLabel) {
+    @Override
+    public void render(Quality quality) {
         GraphicsContext g = canvas.getGraphicsContext2D();
         double w = canvas.getWidth(), h = canvas.getHeight();
         g.setFill(Color.web("#020617"));
         g.fillRect(0,0,w,h);
 
-        if (autoToggle != null && autoToggle.isSelected() && rnd.nextDouble() < 0.18)
-            emitBurst((int)(burstSlider.getValue()*0.15));
-
-        Iterator<RequestParticle> it = particles.iterator();
-        while (it.hasNext()) {
-            RequestParticle p = it.next();
-            p.update();
-
-            double serverTop = h - 90;
-            double serverLeft = w/2 - 120;
-            double serverRight = w/2 + 120;
-            double serverBottom = h - 20;
-
-            if (p.y >= serverTop && p.x >= serverLeft && p.x <= serverRight) {
-                double bx = Math.max(serverLeft + 8, Math.min(serverRight - 8, p.x + (rnd.nextDouble()-0.5)*20));
-                double by = serverTop + 8 + rnd.nextDouble() * (serverBottom - serverTop - 16);
-                breaches.add(new BreachBlock(bx, by));
-                it.remove();
-                continue;
-            }
-
-            if (p.y > h + 30) {
-                it.remove();
-            }
-        }
-
         double sx = w/2 - 120;
         double sy = h - 90;
         g.setFill(Color.web("#1f2937"));
         g.fillRoundRect(sx, sy, 240, 70, 12, 12);
 
-        for (int i = 0; i < breaches.size(); i++) {
-            BreachBlock b = breaches.get(i);
-            double ageFactor = Math.min(1.0, (i + 1) / 40.0);
-            Color c = Color.color(1.0, 0.2 + 0.6*ageFactor, 0.2);
-            g.setFill(c);
-            g.fillRect(b.x - 6, b.y - 6, 12, 12);
-            g.setStroke(Color.color(1.0, 0.6, 0.6, 0.25));
-            g.strokeRect(b.x - 6, b.y - 6, 12, 12);
+        // breaches pile up for the whole run: sample them and drop the outlines under load
+        if (!quality.decorations) g.setFill(BREACH_FLAT);
+        else g.setStroke(BREACH_STROKE);
+        for (int i = 0; i < model.breaches(); i += quality.stride) {
+            double bx = model.breachX(i), by = model.breachY(i);
+            if (quality.decorations) {
+                double ageFactor = Math.min(1.0, (i + 1) / 40.0);
+                g.setFill(Color.color(1.0, 0.2 + 0.6*ageFactor, 0.2));
+            }
+            g.fillRect(bx - 6, by - 6, 12, 12);
+            if (quality.decorations) g.strokeRect(bx - 6, by - 6, 12, 12);
         }
 
         g.setFill(Color.WHITE);
         g.fillText("SERVER", sx + 90, sy + 35);
 
-        int breachCount = breaches.size();
+        int breachCount = model.breaches();
         double breachRatio = Math.min(1.0, breachCount / 120.0);
 
         double hbW = 200;
@@ -154,14 +138,18 @@ public class DDoSSimulator {
         g.setFill(Color.WHITE);
         g.fillText(String.format("Breach: %d", breachCount), hbX + 6, hbY + 8);
 
-        for (RequestParticle p : particles) {
-            g.setGlobalAlpha(Math.max(0.35, Math.min(1.0, p.size/2.5)));
-            g.setFill(Color.hsb(200 + p.size*30, 0.8, 1.0));
-            g.fillOval(p.x, p.y, 6 + p.size*3, 6 + p.size*3);
+        if (!quality.decorations) g.setFill(PARTICLE_FLAT);
+        for (int i = 0; i < model.queued(); i += quality.stride) {
+            double size = model.particleSize(i);
+            if (quality.decorations) {
+                g.setGlobalAlpha(Math.max(0.35, Math.min(1.0, size/2.5)));
+                g.setFill(Color.hsb(200 + size*30, 0.8, 1.0));
+            }
+            g.fillOval(model.particleX(i), model.particleY(i), 6 + size*3, 6 + size*3);
         }
         g.setGlobalAlpha(1.0);
 
-        int queued = particles.size();
+        int queued = model.queued();
         for (int i = 0; i < Math.min(240, queued); i++) {
             int col = i % 30;
             int row = i / 30;
@@ -170,37 +158,11 @@ public class DDoSSimulator {
             g.setFill(col % 2 == 0 ? Color.web("#60a5fa") : Color.web("#a78bfa"));
             g.fillRect(x, y, 6, 6);
         }
-
-        int capacity = 12;
-        for (int i = 0; i < capacity && !particles.isEmpty(); i++) particles.remove(0);
-
-        updateTelemetry(breachesLabel);
-    }
-
-    private void updateTelemetry(Label breachesLabel) {
-        if (queuedLabel != null) queuedLabel.setText("Queued: " + particles.size());
-        if (breachesLabel != null) breachesLabel.setText("Breaches: " + breaches.size());
-    }
-
-    public void start() { if (timeline != null) timeline.play(); }
-    public void stop() { if (timeline != null) timeline.stop(); }
-
-    public static void startSimulationStatic() { if (instance != null) instance.start(); }
-    public static void stopSimulationStatic()  { if (instance != null) instance.stop(); }
-
-    private static class RequestParticle {
-        double x,y,vx,vy,size;
-        RequestParticle(double x, double y, double vx, double vy, double size) {
-            this.x=x; this.y=y; this.vx=vx; this.vy=vy; this.size=size;
-        }
-        void update() {
-            x += vx; y += vy; vy += 0.02;
-            vx += (Math.random()-0.5)*0.04;
-        }
     }
 
-    private static class BreachBlock {
-        double x, y;
-        BreachBlock(double x, double y) { this.x = x; this.y = y; }
+    private void updateTelemetry() {
+        QUEUED.set(model.queued());
+        if (queuedLabel != null) queuedLabel.setText("Queued: " + model.queued());
+        if (breachesLabel != null) breachesLabel.setText("Breaches: " + model.breaches());
     }
 }
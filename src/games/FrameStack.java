@@ -0,0 +1,91 @@
+package games;
+
+import java.util.Arrays;
+
+/**
+ * Primitive call-stack model for the stack simulator: one {@code int} per frame, no per-frame
+ * objects. Push and pop work in batches and fire the change listener once per batch, so the
+ * UI only refreshes once however many frames moved. Pushes beyond {@code maxDepth} are refused
+ * and counted as overflow.
+ */
+public final class FrameStack {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int maxDepth;
+    private int[] frames = new int[INITIAL_CAPACITY];
+    private int size;
+    private int nextId;
+    private long overflowed;
+    private Runnable listener;
+
+    public FrameStack(int maxDepth) {
+        if (maxDepth < 1) throw new IllegalArgumentException("maxDepth must be >= 1");
+        this.maxDepth = maxDepth;
+    }
+
+    public void setListener(Runnable listener) { this.listener = listener; }
+
+    public int size() { return size; }
+    public int maxDepth() { return maxDepth; }
+    public boolean isEmpty() { return size == 0; }
+    public boolean isFull() { return size == maxDepth; }
+    public long overflowCount() { return overflowed; }
+
+    /** Frame id at {@code depthFromTop} (0 = top of stack). */
+    public int peek(int depthFromTop) {
+        if (depthFromTop < 0 || depthFromTop >= size) throw new IndexOutOfBoundsException(depthFromTop);
+        return frames[size - 1 - depthFromTop];
+    }
+
+    /** Pushes up to {@code count} frames and returns how many fit under {@code maxDepth}. */
+    public int push(int count) {
+        if (count <= 0) return 0;
+        int n = Math.min(count, maxDepth - size);
+        if (n < count) overflowed += count - n;
+        if (n > 0) {
+            ensureCapacity(size + n);
+            int[] f = frames;
+            int id = nextId;
+            for (int i = size, end = size + n; i < end; i++) f[i] = id++;
+            nextId = id;
+            size += n;
+        }
+        fire();
+        return n;
+    }
+
+    /** Pops up to {@code count} frames and returns how many were removed. */
+    public int pop(int count) {
+        int n = Math.min(Math.max(count, 0), size);
+        if (n == 0) return 0;
+        size -= n;
+        nextId = size == 0 ? 0 : frames[size - 1] + 1;
+        fire();
+        return n;
+    }
+
+    public void clear() {
+        size = 0;
+        nextId = 0;
+        overflowed = 0;
+        fire();
+    }
+
+    /** Writes the display label of a frame into {@code sb} without touching the other frames. */
+    public StringBuilder label(int depthFromTop, StringBuilder sb) {
+        sb.setLength(0);
+        return sb.append("frame#").append(peek(depthFromTop));
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= frames.length) return;
+        int cap = frames.length;
+        while (cap < needed) cap = cap > (Integer.MAX_VALUE >> 1) ? Integer.MAX_VALUE : cap << 1;
+        frames = Arrays.copyOf(frames, Math.min(cap, maxDepth));
+    }
+
+    private void fire() {
+        if (listener != null) listener.run();
+    }
+}
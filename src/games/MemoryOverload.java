@@ -1,7 +1,7 @@
 package games;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -11,27 +11,37 @@ import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
-import javafx.util.Duration;
+import metrics.Gauge;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
 
 import java.util.Comparator;
 import java.util.Random;
 import java.util.stream.Collectors;
 
-public class MemoryOverload {
+public class MemoryOverload implements SimModule {
+    private static final LatencyHistogram DRAW_TIME = Metrics.histogram("games.memory.draw");
+    private static final Gauge ALLOCATIONS = Metrics.gauge("games.memory.allocations");
+    private static final long STEP_NANOS = 350_000_000L;
+
     private final ObservableList<Integer> allocations = FXCollections.observableArrayList();
+    private final BooleanProperty running = new SimpleBooleanProperty(false);
     private final Random rnd = new Random();
-    private Timeline timeline;
-    private static MemoryOverload instance;
+    private Canvas canvas;
 
     private ProgressBar memBar;
     private Label memLabel;
     private ListView<String> allocList;
     private Slider autoAllocRate;
     private ToggleButton autoToggle;
+    private long renders;
     private final int MAX_SAFE_MB = 500;
 
-    public MemoryOverload() { instance = this; }
+    @Override public String title() { return "Memory Overload"; }
+    @Override public long stepNanos() { return STEP_NANOS; }
+    @Override public BooleanProperty runningProperty() { return running; }
 
+    @Override
     public BorderPane createView() {
         BorderPane root = new BorderPane();
         root.getStyleClass().add("module-root");
@@ -68,7 +78,7 @@ public class MemoryOverload {
         left.getChildren().addAll(title, row1, autoBox, new Separator(), memBar, memLabel, new Label("Allocations (size kb)"), allocList);
         root.setLeft(left);
 
-        Canvas canvas = new Canvas(800, 600);
+        canvas = new Canvas(800, 600);
         StackPane center = new StackPane(canvas);
         center.getStyleClass().add("canvas-pane");
         root.setCenter(center);
@@ -77,9 +87,6 @@ public class MemoryOverload {
         btnFree.setOnAction(e -> freeRandom());
         btnClear.setOnAction(e -> { allocations.clear(); updateUI(); });
 
-        timeline = new Timeline(new KeyFrame(Duration.millis(350), ev -> tick(canvas)));
-        timeline.setCycleCount(Timeline.INDEFINITE);
-
         autoToggle.selectedProperty().addListener((obs, oldV, newV) -> {
             if (newV) start(); else stop();
         });
@@ -98,16 +105,18 @@ public class MemoryOverload {
         updateUI();
     }
 
-    private void tick(Canvas canvas) {
+    @Override
+    public void step() {
+        // the list view and labels are refreshed by render(), not once per chunk
         int toAlloc = (int)Math.round(autoAllocRate.getValue());
         for (int i=0;i<toAlloc;i++) {
-            if (autoToggle.isSelected()) allocateOnce();
+            if (autoToggle.isSelected()) allocations.add(20 + rnd.nextInt(1024));
         }
-
-        draw(canvas);
     }
 
-    private void draw(Canvas canvas) {
+    @Override
+    public void render(Quality quality) {
+        long t0 = System.nanoTime();
         GraphicsContext g = canvas.getGraphicsContext2D();
         double w = canvas.getWidth(), h = canvas.getHeight();
         g.setFill(Color.web("#071021"));
@@ -137,13 +146,16 @@ public class MemoryOverload {
         g.setFill(Color.WHITE);
         g.fillText(String.format("Total Allocated: %.2f MB", totalMb), 40, h - 110);
 
-        updateUI();
+        // sorting the list is the expensive part; under load it lags a few renders behind
+        if (++renders % quality.listRefreshEvery == 0) updateUI();
+        DRAW_TIME.record(System.nanoTime() - t0);
     }
 
     private void updateUI() {
         // update progress bar and label and listview using streams
         long totalKb = allocations.stream().mapToLong(Integer::longValue).sum();
         double totalMb = totalKb / 1024.0;
+        ALLOCATIONS.set(allocations.size());
         memBar.setProgress(Math.min(1.0, totalMb / MAX_SAFE_MB));
         memLabel.setText(String.format("Memory: %.2f MB / %d MB", totalMb, MAX_SAFE_MB));
 
@@ -154,10 +166,4 @@ public class MemoryOverload {
                 .collect(Collectors.toList());
         allocList.getItems().setAll(topSizes);
     }
-
-    // controls for external start/stop from main
-    public void start() { if (timeline != null) timeline.play(); }
-    public void stop() { if (timeline != null) timeline.stop(); }
-    public static void startSimulationStatic() { if (instance != null) instance.start(); }
-    public static void stopSimulationStatic() { if (instance != null) instance.stop(); }
 }
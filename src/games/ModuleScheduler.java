@@ -0,0 +1,231 @@
+package games;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.value.ChangeListener;
+import metrics.Counter;
+import metrics.Gauge;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Drives every {@link SimModule} from one JavaFX pulse instead of a Timeline each. Per pulse,
+ * running modules are stepped when due (catching up at most {@link #MAX_CATCH_UP} periods, the
+ * rest dropped and counted) and rendered only when visible and changed. The frame budget is
+ * split evenly across active modules: a module that takes more than its share counts a module
+ * overrun, and once the whole budget is spent the remaining modules wait for the next pulse,
+ * where they go first. Each frame's total feeds a shared {@link QualityGovernor} that sets the
+ * detail modules render at. Hidden modules keep simulating unless {@link #setSimulateHidden} turns
+ * that off; with nothing to do the pulse itself is stopped. FX thread only.
+ */
+public final class ModuleScheduler {
+
+    /** Half a 60 Hz frame, leaving the rest to layout and the scene graph. */
+    public static final long DEFAULT_BUDGET_NANOS = 8_000_000L;
+    static final int MAX_CATCH_UP = 4;
+
+    private static final LatencyHistogram FRAME_TIME = Metrics.histogram("games.frame");
+    private static final Counter FRAME_OVERRUNS = Metrics.counter("games.frame.overrun");
+    private static final Counter MODULE_OVERRUNS = Metrics.counter("games.module.overrun");
+    private static final Counter STEPS_DROPPED = Metrics.counter("games.steps.dropped");
+    private static final Gauge RUNNING = Metrics.gauge("games.modules.running");
+    private static final Gauge RENDERING = Metrics.gauge("games.modules.rendering");
+
+    private static final class Entry {
+        final SimModule module;
+        ChangeListener<Boolean> runningListener;
+        boolean visible;
+        boolean dirty = true;
+        long nextStep;
+        long overruns;
+
+        Entry(SimModule module, boolean visible) {
+            this.module = module;
+            this.visible = visible;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final long budgetNanos;
+    private final QualityGovernor governor;
+    private final AnimationTimer pulse = new AnimationTimer() {
+        @Override public void handle(long now) { onPulse(now); }
+    };
+    private boolean pulsing;
+    private boolean windowVisible = true;
+    private boolean simulateHidden = true;
+    private int cursor;
+    private long frameOverruns;
+    private long lastStatusNanos;
+    private Consumer<String> statusListener;
+
+    public ModuleScheduler() {
+        this(DEFAULT_BUDGET_NANOS);
+    }
+
+    public ModuleScheduler(long budgetNanos) {
+        if (budgetNanos <= 0) throw new IllegalArgumentException("budget must be positive");
+        this.budgetNanos = budgetNanos;
+        this.governor = new QualityGovernor(budgetNanos);
+    }
+
+    public void register(SimModule module, boolean visible) {
+        Entry e = new Entry(module, visible);
+        e.runningListener = (obs, was, is) -> {
+            if (is) e.nextStep = System.nanoTime();
+            updatePulse();
+        };
+        module.runningProperty().addListener(e.runningListener);
+        entries.add(e);
+        updatePulse();
+    }
+
+    public void unregister(SimModule module) {
+        Entry e = find(module);
+        if (e == null) return;
+        module.runningProperty().removeListener(e.runningListener);
+        entries.remove(e);
+        if (cursor >= entries.size()) cursor = 0;
+        updatePulse();
+    }
+
+    /** Tab selection: hidden modules are not rendered, and not stepped unless simulate-hidden is on. */
+    public void setVisible(SimModule module, boolean visible) {
+        Entry e = find(module);
+        if (e == null || e.visible == visible) return;
+        e.visible = visible;
+        e.dirty |= visible;
+        updatePulse();
+    }
+
+    /** Whole window shown or iconified. */
+    public void setWindowVisible(boolean visible) {
+        windowVisible = visible;
+        if (visible) for (Entry e : entries) e.dirty = true;
+        updatePulse();
+    }
+
+    public void setSimulateHidden(boolean simulate) {
+        simulateHidden = simulate;
+        updatePulse();
+    }
+
+    public void startAll() { for (Entry e : entries) e.module.start(); }
+
+    public void stopAll() { for (Entry e : entries) e.module.stop(); }
+
+    /** Receives {@link #stats()} about twice a second while the pulse runs. */
+    public void setStatusListener(Consumer<String> listener) { this.statusListener = listener; }
+
+    public QualityGovernor governor() { return governor; }
+
+    private void onPulse(long now) {
+        long frameStart = System.nanoTime();
+        int n = entries.size();
+        int active = 0;
+        for (Entry e : entries) if (needsWork(e)) active++;
+        long share = budgetNanos / Math.max(1, active);
+        Quality quality = governor.quality();
+        int deferred = -1;
+        for (int i = 0; i < n; i++) {
+            int idx = (cursor + i) % n;
+            Entry e = entries.get(idx);
+            if (!e.module.runningProperty().get()) continue;
+            if (!needsWork(e)) {
+                // paused while hidden: resume from now rather than replaying the gap
+                e.nextStep = Math.max(e.nextStep, now);
+                continue;
+            }
+            if (deferred >= 0) continue;
+            if (System.nanoTime() - frameStart >= budgetNanos) {
+                deferred = idx;
+                continue;
+            }
+            long t0 = System.nanoTime();
+            long period = e.module.stepNanos();
+            int steps = 0;
+            while (now >= e.nextStep && steps < MAX_CATCH_UP) {
+                e.module.step();
+                e.nextStep += period;
+                steps++;
+            }
+            if (now >= e.nextStep) {
+                long behind = (now - e.nextStep) / period + 1;
+                STEPS_DROPPED.add(behind);
+                e.nextStep += behind * period;
+            }
+            e.dirty |= steps > 0;
+            if (e.dirty && shown(e)) {
+                e.module.render(quality);
+                e.dirty = false;
+            }
+            if (System.nanoTime() - t0 > share) {
+                e.overruns++;
+                MODULE_OVERRUNS.increment();
+            }
+        }
+        cursor = deferred >= 0 ? deferred : 0;
+        long frame = System.nanoTime() - frameStart;
+        FRAME_TIME.record(frame);
+        governor.onFrame(frame, now);
+        if (frame > budgetNanos) {
+            frameOverruns++;
+            FRAME_OVERRUNS.increment();
+        }
+        if (statusListener != null && now - lastStatusNanos >= 500_000_000L) {
+            lastStatusNanos = now;
+            statusListener.accept(stats());
+        }
+    }
+
+    private boolean shown(Entry e) { return e.visible && windowVisible; }
+
+    private boolean needsWork(Entry e) {
+        return e.module.runningProperty().get() && (simulateHidden || shown(e));
+    }
+
+    private void updatePulse() {
+        int running = 0, rendering = 0;
+        boolean work = false;
+        for (Entry e : entries) {
+            if (!e.module.runningProperty().get()) continue;
+            running++;
+            if (shown(e)) rendering++;
+            work |= needsWork(e);
+        }
+        RUNNING.set(running);
+        RENDERING.set(rendering);
+        if (work && !pulsing) {
+            pulse.start();
+            pulsing = true;
+        } else if (!work && pulsing) {
+            pulse.stop();
+            pulsing = false;
+            if (statusListener != null) statusListener.accept(stats());
+        }
+    }
+
+    private Entry find(SimModule module) {
+        for (Entry e : entries) if (e.module == module) return e;
+        return null;
+    }
+
+    public String stats() {
+        int running = 0, rendering = 0;
+        long moduleOverruns = 0;
+        for (Entry e : entries) {
+            moduleOverruns += e.overruns;
+            if (!e.module.runningProperty().get()) continue;
+            running++;
+            if (shown(e)) rendering++;
+        }
+        return String.format(Locale.ROOT, "%d modules, %d running, %d drawn%s | frame p99 %s of %s budget, overruns: %d frame / %d module | quality %s (%d changes)",
+                entries.size(), running, rendering, pulsing ? "" : " (pulse idle)",
+                LatencyHistogram.nanos(FRAME_TIME.percentile(99)), LatencyHistogram.nanos(budgetNanos),
+                frameOverruns, moduleOverruns, governor.quality(), governor.changeCount());
+    }
+}
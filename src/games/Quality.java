@@ -0,0 +1,26 @@
+package games;
+
+/** Rendering detail chosen by {@link QualityGovernor}, from full detail down to a bare outline. */
+public enum Quality {
+    FULL(1, true, 1),
+    REDUCED(2, true, 2),
+    LOW(4, false, 4),
+    MINIMAL(8, false, 8);
+
+    /** Draw every {@code stride}-th particle, block or row. */
+    public final int stride;
+    /** Strokes, per-item colours, translucency and text labels. */
+    public final boolean decorations;
+    /** Rebuild lists and other expensive controls every n-th render. */
+    public final int listRefreshEvery;
+
+    Quality(int stride, boolean decorations, int listRefreshEvery) {
+        this.stride = stride;
+        this.decorations = decorations;
+        this.listRefreshEvery = listRefreshEvery;
+    }
+
+    Quality lower() { return this == MINIMAL ? MINIMAL : values()[ordinal() + 1]; }
+
+    Quality higher() { return this == FULL ? FULL : values()[ordinal() - 1]; }
+}
@@ -0,0 +1,110 @@
+package games;
+
+import metrics.Gauge;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Picks the {@link Quality} every module renders at from measured frames. A frame counts as
+ * slow when the scheduler's simulate + draw work exceeds the budget, or when the pulse came
+ * late enough that the frame rate has dropped below {@link #MIN_FPS}. A few slow frames in a
+ * row lower the detail by one step; a long run of frames under half the budget raises it
+ * again, and each change gets a few frames to settle before the next. FX thread only.
+ */
+public final class QualityGovernor {
+
+    static final double MIN_FPS = 40;
+    private static final int WINDOW = 120;
+    private static final int DOWN_AFTER = 3;
+    private static final int UP_AFTER = 90;
+    /** Frames to let a new level show up in the measurements before judging it. */
+    private static final int SETTLE = 15;
+
+    private static final Gauge LEVEL = Metrics.gauge("games.quality");
+
+    private final long budgetNanos;
+    private final long[] recent = new long[WINDOW];
+    private final long[] sorted = new long[WINDOW];
+    private int recentCount, recentPos;
+    private Quality quality = Quality.FULL;
+    private int slowRun, fastRun, settle;
+    private long lastPulse, fpsWindowStart;
+    private int fpsFrames;
+    private double fps;
+    private long changes;
+
+    public QualityGovernor(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    /** One pulse: {@code workNanos} of simulate + draw, {@code pulseNanos} the pulse timestamp. */
+    public void onFrame(long workNanos, long pulseNanos) {
+        long interval = lastPulse == 0 ? 0 : pulseNanos - lastPulse;
+        lastPulse = pulseNanos;
+        recent[recentPos] = workNanos;
+        recentPos = (recentPos + 1) % WINDOW;
+        if (recentCount < WINDOW) recentCount++;
+
+        if (fpsWindowStart == 0) fpsWindowStart = pulseNanos;
+        fpsFrames++;
+        if (pulseNanos - fpsWindowStart >= 500_000_000L) {
+            fps = fpsFrames * 1e9 / (pulseNanos - fpsWindowStart);
+            fpsFrames = 0;
+            fpsWindowStart = pulseNanos;
+        }
+
+        if (settle > 0) {
+            settle--;
+            return;
+        }
+        // a long gap after an idle pulse is not a slow frame
+        boolean late = interval > 1e9 / MIN_FPS && interval < 1_000_000_000L;
+        if (workNanos > budgetNanos || late) {
+            fastRun = 0;
+            if (++slowRun >= DOWN_AFTER) {
+                slowRun = 0;
+                set(quality.lower());
+            }
+        } else if (workNanos < budgetNanos / 2) {
+            slowRun = 0;
+            if (++fastRun >= UP_AFTER) {
+                fastRun = 0;
+                set(quality.higher());
+            }
+        } else {
+            slowRun = 0;
+            fastRun = 0;
+        }
+    }
+
+    private void set(Quality q) {
+        if (q == quality) return;
+        quality = q;
+        settle = SETTLE;
+        changes++;
+        LEVEL.set(q.ordinal());
+    }
+
+    public Quality quality() { return quality; }
+
+    public double fps() { return fps; }
+
+    /** p99 of the simulate + draw time over the last {@value #WINDOW} frames. */
+    public long recentP99() {
+        if (recentCount == 0) return 0;
+        System.arraycopy(recent, 0, sorted, 0, recentCount);
+        Arrays.sort(sorted, 0, recentCount);
+        return sorted[Math.min(recentCount - 1, (int) Math.ceil(recentCount * 0.99) - 1)];
+    }
+
+    public long changeCount() { return changes; }
+
+    /** Text for the on-screen overlay. */
+    public String overlay() {
+        return String.format(Locale.ROOT, "%.0f fps | frame p99 %s / %s | %s", fps,
+                LatencyHistogram.nanos(recentP99()), LatencyHistogram.nanos(budgetNanos), quality);
+    }
+}
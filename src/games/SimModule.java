@@ -0,0 +1,32 @@
+package games;
+
+import javafx.beans.property.BooleanProperty;
+import javafx.scene.layout.BorderPane;
+
+/**
+ * A simulator tab driven by {@link ModuleScheduler}: a fixed-period {@link #step()} that
+ * advances the model, and a {@link #render(Quality)} that the scheduler only calls while the view
+ * is visible and something changed. Instances hold no static state, so several can run side by side.
+ */
+public interface SimModule {
+
+    String title();
+
+    BorderPane createView();
+
+    /** Simulation period in nanoseconds. */
+    long stepNanos();
+
+    /** Advances the model by one period; must not draw. */
+    void step();
+
+    /** Redraws the canvas from the current model at the detail the frame budget allows. */
+    void render(Quality quality);
+
+    /** True while the module should be stepped; start / stop buttons flip it. */
+    BooleanProperty runningProperty();
+
+    default void start() { runningProperty().set(true); }
+
+    default void stop() { runningProperty().set(false); }
+}
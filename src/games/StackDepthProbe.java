@@ -0,0 +1,212 @@
+package games;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Real recursion probe backing the stack simulator. Recurses on platform threads created with
+ * an explicit stack size and on virtual threads until {@link StackOverflowError}, and reports
+ * the depth reached, the time it took and the implied bytes per frame for a few method shapes.
+ * {@link #scale} parks many threads at a fixed depth to compare their memory cost.
+ */
+public final class StackDepthProbe {
+
+    public enum Shape { LEAF, WIDE_LOCALS, OBJECT_ARGS }
+
+    public static final long[] DEFAULT_STACK_SIZES = { 256 * 1024, 512 * 1024, 1024 * 1024, 4 * 1024 * 1024 };
+
+    public static final class Result {
+        public final String threadKind;
+        public final long stackSize;          // 0 for virtual threads (JVM default max)
+        public final Shape shape;
+        public final int maxDepth;
+        public final long nanosToOverflow;
+
+        Result(String threadKind, long stackSize, Shape shape, int maxDepth, long nanosToOverflow) {
+            this.threadKind = threadKind;
+            this.stackSize = stackSize;
+            this.shape = shape;
+            this.maxDepth = maxDepth;
+            this.nanosToOverflow = nanosToOverflow;
+        }
+
+        /** Requested stack divided by depth; -1 when the stack size is not explicit. */
+        public long bytesPerFrame() { return stackSize > 0 && maxDepth > 0 ? stackSize / maxDepth : -1; }
+    }
+
+    public static final class ScaleResult {
+        public final String threadKind;
+        public final int threads;
+        public final int depth;
+        public final long heapDelta;
+        public final long rssDelta;           // -1 when /proc/self/status is unavailable
+        public final long startMillis;
+
+        ScaleResult(String threadKind, int threads, int depth, long heapDelta, long rssDelta, long startMillis) {
+            this.threadKind = threadKind;
+            this.threads = threads;
+            this.depth = depth;
+            this.heapDelta = heapDelta;
+            this.rssDelta = rssDelta;
+            this.startMillis = startMillis;
+        }
+    }
+
+    private StackDepthProbe() {}
+
+    public static List<Result> run(long[] stackSizes) throws InterruptedException {
+        List<Result> out = new ArrayList<>();
+        // warm-up pass so the measured runs see JIT-compiled frames rather than interpreter frames
+        for (Shape shape : Shape.values()) probe(false, stackSizes[stackSizes.length - 1], shape);
+        for (Shape shape : Shape.values()) {
+            for (long size : stackSizes) out.add(probe(false, size, shape));
+            out.add(probe(true, 0, shape));
+        }
+        return out;
+    }
+
+    public static Result probe(boolean virtual, long stackSize, Shape shape) throws InterruptedException {
+        Recursor r = new Recursor(shape, Integer.MAX_VALUE, null);
+        Thread t = virtual
+                ? Thread.ofVirtual().name("probe-v-" + shape).unstarted(r)
+                : new Thread(null, r, "probe-" + stackSize + "-" + shape, stackSize);
+        t.start();
+        t.join();
+        return new Result(virtual ? "virtual" : "platform", stackSize, shape, r.maxDepth, r.elapsedNs);
+    }
+
+    /** Starts {@code threads} threads that each recurse to {@code depth} and park, then measures memory. */
+    public static ScaleResult scale(boolean virtual, int threads, int depth, long stackSize) throws InterruptedException {
+        MemoryMXBean mem = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = mem.getHeapMemoryUsage().getUsed();
+        long rssBefore = rssBytes();
+
+        CountDownLatch parked = new CountDownLatch(threads);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread[] all = new Thread[threads];
+        long t0 = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            Recursor r = new Recursor(Shape.LEAF, depth, () -> {
+                parked.countDown();
+                try { release.await(); } catch (InterruptedException ignored) { Thread.currentThread().interrupt(); }
+            });
+            all[i] = virtual ? Thread.ofVirtual().unstarted(r) : new Thread(null, r, "scale-" + i, stackSize);
+            all[i].setDaemon(true);
+            all[i].start();
+        }
+        parked.await();
+        long startMillis = (System.nanoTime() - t0) / 1_000_000;
+
+        long heapAfter = mem.getHeapMemoryUsage().getUsed();
+        long rssAfter = rssBytes();
+        release.countDown();
+        for (Thread t : all) t.join();
+        return new ScaleResult(virtual ? "virtual" : "platform", threads, depth, heapAfter - heapBefore,
+                rssBefore < 0 || rssAfter < 0 ? -1 : rssAfter - rssBefore, startMillis);
+    }
+
+    public static String formatTable(List<Result> results) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-9s %9s %-12s %10s %10s %9s%n",
+                "thread", "stack", "shape", "maxDepth", "time(ms)", "B/frame"));
+        for (Result r : results) {
+            sb.append(String.format(Locale.ROOT, "%-9s %9s %-12s %10d %10.2f %9s%n",
+                    r.threadKind, r.stackSize > 0 ? (r.stackSize / 1024) + "K" : "default", r.shape,
+                    r.maxDepth, r.nanosToOverflow / 1e6, r.bytesPerFrame() < 0 ? "-" : String.valueOf(r.bytesPerFrame())));
+        }
+        return sb.toString();
+    }
+
+    public static String formatScale(List<ScaleResult> results) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-9s %9s %7s %12s %12s %10s %9s%n",
+                "thread", "count", "depth", "heap(KB)", "rss(KB)", "B/thread", "start(ms)"));
+        for (ScaleResult r : results) {
+            long total = Math.max(r.heapDelta, 0) + Math.max(r.rssDelta, 0);
+            sb.append(String.format(Locale.ROOT, "%-9s %9d %7d %12d %12s %10d %9d%n",
+                    r.threadKind, r.threads, r.depth, r.heapDelta / 1024,
+                    r.rssDelta < 0 ? "-" : String.valueOf(r.rssDelta / 1024), total / r.threads, r.startMillis));
+        }
+        return sb.toString();
+    }
+
+    /** Full report: overflow depths for every shape and stack size, plus a platform vs virtual scale run. */
+    public static String report() throws InterruptedException {
+        StringBuilder sb = new StringBuilder(formatTable(run(DEFAULT_STACK_SIZES)));
+        List<ScaleResult> scale = new ArrayList<>();
+        scale.add(scale(false, 1_000, 64, 256 * 1024));
+        scale.add(scale(true, 1_000, 64, 0));
+        scale.add(scale(true, 100_000, 64, 0));
+        sb.append('\n').append(formatScale(scale));
+        return sb.toString();
+    }
+
+    private static long rssBytes() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    String kb = line.substring(6).trim().split("\\s+")[0];
+                    return Long.parseLong(kb) * 1024;
+                }
+            }
+        } catch (Exception ignored) {}
+        return -1;
+    }
+
+    private static final class Recursor implements Runnable {
+        final Shape shape;
+        final int limit;
+        final Runnable atLimit;
+        int maxDepth;
+        long elapsedNs;
+        long sink;
+
+        Recursor(Shape shape, int limit, Runnable atLimit) {
+            this.shape = shape;
+            this.limit = limit;
+            this.atLimit = atLimit;
+        }
+
+        @Override
+        public void run() {
+            long t0 = System.nanoTime();
+            try {
+                switch (shape) {
+                    case LEAF: sink = leaf(1); break;
+                    case WIDE_LOCALS: sink = wide(1, 1L, 2L, 3.0); break;
+                    case OBJECT_ARGS: sink = objects(1, this, shape, "a", "b"); break;
+                }
+            } catch (StackOverflowError expected) {
+                // depth is recorded on the way down
+            }
+            elapsedNs = System.nanoTime() - t0;
+        }
+
+        private long leaf(int d) {
+            maxDepth = d;
+            if (d >= limit) { atLimit.run(); return d; }
+            return leaf(d + 1) + 1;
+        }
+
+        private long wide(int d, long a, long b, double c) {
+            maxDepth = d;
+            long x = a * 31 + b, y = b ^ d, z = x + y;
+            double w = c * 1.5;
+            if (d >= limit) { atLimit.run(); return z; }
+            return wide(d + 1, x, y, w) + x + y + z + (long) w;
+        }
+
+        private long objects(int d, Object a, Object b, Object c, Object e) {
+            maxDepth = d;
+            if (d >= limit) { atLimit.run(); return d; }
+            return objects(d + 1, b, c, e, a) + (a == b ? 1 : 0);
+        }
+    }
+}
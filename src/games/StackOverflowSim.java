@@ -1,9 +1,8 @@
 package games;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.canvas.Canvas;
@@ -11,22 +10,38 @@ import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
-import javafx.util.Duration;
+import javafx.scene.text.Font;
+import metrics.Gauge;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
 
 import java.util.Random;
 
-public class StackOverflowSim {
-    private final ObservableList<String> frames = FXCollections.observableArrayList();
-    private Timeline timeline;
-    private static StackOverflowSim instance;
+public class StackOverflowSim implements SimModule {
+    private static final LatencyHistogram TICK_TIME = Metrics.histogram("games.stack.tick");
+    private static final Gauge FRAMES = Metrics.gauge("games.stack.frames");
+
+    private static final int MAX_FRAMES = 1 << 22;
+    private static final int MAX_DRAWN = 24;
+    private static final Color FRAME_FLAT = Color.hsb(130, 0.8, 0.8);
+    private static final long STEP_NANOS = 350_000_000L;
+
+    private final FrameStack frames = new FrameStack(MAX_FRAMES);
+    private final StringBuilder labelBuf = new StringBuilder(16);
+    private final BooleanProperty running = new SimpleBooleanProperty(false);
     private final Random rnd = new Random();
+    private Canvas canvas;
 
     private Label framesLabel;
     private Slider pushRate;
     private ToggleButton auto;
+    private TextArea probeOutput;
 
-    public StackOverflowSim() { instance = this; }
+    @Override public String title() { return "Stack Overflow"; }
+    @Override public long stepNanos() { return STEP_NANOS; }
+    @Override public BooleanProperty runningProperty() { return running; }
 
+    @Override
     public BorderPane createView() {
         BorderPane root = new BorderPane();
         root.getStyleClass().add("module-root");
@@ -50,53 +65,74 @@ public class StackOverflowSim {
         auto = new ToggleButton("Auto Push");
 
         framesLabel = new Label("Frames: 0");
+        frames.setListener(() -> {
+            FRAMES.set(frames.size());
+            framesLabel.setText("Frames: " + frames.size());
+        });
 
-        left.getChildren().addAll(title, row, new Label("Auto push rate"), pushRate, auto, new Separator(), framesLabel);
+        Button probe = new Button("Run Depth Probe");
+        probeOutput = new TextArea();
+        probeOutput.setEditable(false);
+        probeOutput.setPrefRowCount(14);
+        probeOutput.setFont(Font.font("Monospaced", 10));
+
+        left.getChildren().addAll(title, row, new Label("Auto push rate"), pushRate, auto, new Separator(), framesLabel,
+                new Separator(), probe, probeOutput);
         root.setLeft(left);
 
-        Canvas canvas = new Canvas(400, 600);
+        canvas = new Canvas(400, 600);
         root.setCenter(new StackPane(canvas));
 
-        push.setOnAction(e -> pushFrame());
-        pop.setOnAction(e -> popFrame());
+        push.setOnAction(e -> frames.push(1));
+        pop.setOnAction(e -> frames.pop(1));
         clear.setOnAction(e -> { frames.clear(); });
+        probe.setOnAction(e -> runProbe(probe));
 
         auto.selectedProperty().addListener((obs, o, n) -> {
             if (n) start(); else stop();
         });
 
-        timeline = new Timeline(new KeyFrame(Duration.millis(350), ev -> tick(canvas)));
-        timeline.setCycleCount(Timeline.INDEFINITE);
-
         return root;
     }
 
-    private void pushFrame() {
-        frames.add("frame#" + frames.size());
-        framesLabel.setText("Frames: " + frames.size());
+    private void runProbe(Button trigger) {
+        trigger.setDisable(true);
+        probeOutput.setText("Probing real recursion depth...");
+        Thread t = new Thread(() -> {
+            String report;
+            try {
+                report = StackDepthProbe.report();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                report = "Probe interrupted";
+            }
+            String text = report;
+            Platform.runLater(() -> { probeOutput.setText(text); trigger.setDisable(false); });
+        }, "stack-probe");
+        t.setDaemon(true);
+        t.start();
     }
 
-    private void popFrame() {
-        if (!frames.isEmpty()) frames.remove(frames.size()-1);
-        framesLabel.setText("Frames: " + frames.size());
-    }
-
-    private void tick(Canvas canvas) {
+    @Override
+    public void step() {
+        long t0 = System.nanoTime();
         if (auto.isSelected()) {
             int amount = (int)Math.round(pushRate.getValue());
-            for (int i=0;i<amount;i++) pushFrame();
+            frames.push(amount);
         }
-        draw(canvas);
+        TICK_TIME.record(System.nanoTime() - t0);
     }
 
-    private void draw(Canvas c) {
+    @Override
+    public void render(Quality quality) {
+        Canvas c = canvas;
         GraphicsContext g = c.getGraphicsContext2D();
         double w = c.getWidth(), h = c.getHeight();
         g.setFill(Color.web("#02040a"));
         g.fillRect(0,0,w,h);
 
         // draw stack frames bottom-up
-        int maxDraw = Math.min(frames.size(), 24);
+        int maxDraw = Math.min(frames.size(), MAX_DRAWN);
         double fw = w - 80;
         double fh = 28;
         for (int i=0;i<maxDraw;i++) {
@@ -104,23 +140,20 @@ public class StackOverflowSim {
             double y = h - (i+1) * (fh + 8) - 20;
             // color intensity increases with depth
             double t = Math.min(1.0, (frames.size() / 40.0));
-            Color frameColor = Color.hsb(160 - idx*3, 0.8, 0.6 + 0.4 * t);
-            g.setFill(frameColor);
+            g.setFill(quality.decorations ? Color.hsb(160 - idx*3, 0.8, 0.6 + 0.4 * t) : FRAME_FLAT);
             g.fillRoundRect(40, y, fw, fh, 6, 6);
+            if (!quality.decorations) continue;
             g.setFill(Color.BLACK);
-            g.fillText(frames.get(frames.size() - 1 - idx), 52, y + fh - 8);
+            g.fillText(frames.label(idx, labelBuf).toString(), 52, y + fh - 8);
         }
 
         // overflow warning if too many frames
-        if (frames.size() > 40) {
+        if (frames.isFull()) {
+            g.setFill(Color.web("#ff4d4d"));
+            g.fillText("STACK OVERFLOW! (" + frames.overflowCount() + " pushes refused)", 40, 40);
+        } else if (frames.size() > 40) {
             g.setFill(Color.web("#ff4d4d"));
             g.fillText("STACK OVERFLOW IMMINENT!", 40, 40);
         }
-        framesLabel.setText("Frames: " + frames.size());
     }
-
-    public void start() { if (timeline != null) timeline.play(); }
-    public void stop() { if (timeline != null) timeline.stop(); }
-    public static void startSimulationStatic() { if (instance != null) instance.start(); }
-    public static void stopSimulationStatic() { if (instance != null) instance.stop(); }
 }
@@ -0,0 +1,217 @@
+package history;
+
+import cti.Attacker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read side of the columnar attack archive. Opening reads only the footer index; blocks are
+ * memory-mapped and each column is decoded only when asked for, into caller-owned arrays, so
+ * a scan that needs one column never touches the bytes of the others.
+ *
+ * <pre>
+ * file   := MAGIC VERSION block* footer
+ * block  := count tsOff nodeOff ipOff codeOff                 (int32 each, offsets block-relative)
+ *           ts:   first(int64) width(u8) words                (zigzag delta-of-delta, count-1 values)
+ *           node: width(u8) words                             (node - BlockStats.minNode)
+ *           ip:   dictSize(int32) dict(int32 * dictSize) width(u8) words   (codes into sorted dict)
+ *           code: width(u8) words                             (type ordinal | intensity << 2)
+ * footer := (offset(int64) length(int32) BlockStats)* footerOffset(int64) blockCount(int32) MAGIC
+ * </pre>
+ * All integers are little-endian; words are 64-bit. Instances are safe to share between threads.
+ */
+public final class AttackArchive implements Closeable {
+
+    static final int MAGIC = 0x41495443;   // "CTIA"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final int BLOCK_HEADER_BYTES = 20;
+    static final int FOOTER_ENTRY_BYTES = 52;
+    static final int TRAILER_BYTES = 16;
+    static final int CODE_BITS = 6;
+    static final int TYPE_MASK = 3;
+
+    private static final Attacker.AttackType[] TYPES = Attacker.AttackType.values();
+    private static final long MAX_SEGMENT = 1L << 30;
+
+    private final FileChannel channel;
+    private final List<Block> blocks;
+    private final long events;
+    private final long sizeBytes;
+
+    private AttackArchive(FileChannel channel, List<Block> blocks, long events, long sizeBytes) {
+        this.channel = channel;
+        this.blocks = blocks;
+        this.events = events;
+        this.sizeBytes = sizeBytes;
+    }
+
+    public static AttackArchive open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = ch.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES) throw new IOException("not an attack archive: " + file);
+            ByteBuffer trailer = readAt(ch, size - TRAILER_BYTES, TRAILER_BYTES);
+            long footerOffset = trailer.getLong();
+            int blockCount = trailer.getInt();
+            if (trailer.getInt() != MAGIC || readAt(ch, 0, HEADER_BYTES).getInt() != MAGIC) {
+                throw new IOException("not an attack archive: " + file);
+            }
+            ByteBuffer footer = readAt(ch, footerOffset, blockCount * FOOTER_ENTRY_BYTES);
+
+            long[] offsets = new long[blockCount];
+            int[] lengths = new int[blockCount];
+            BlockStats[] stats = new BlockStats[blockCount];
+            long events = 0;
+            for (int b = 0; b < blockCount; b++) {
+                offsets[b] = footer.getLong();
+                lengths[b] = footer.getInt();
+                stats[b] = new BlockStats(footer.getInt(), footer.getLong(), footer.getLong(), footer.getInt(),
+                        footer.getInt(), footer.getInt(), footer.getInt(), footer.get(), footer.get(), footer.get());
+                footer.get();
+                events += stats[b].count;
+            }
+
+            // map consecutive blocks in segments below the 2 GB limit of a single mapping
+            List<Block> blocks = new ArrayList<>(blockCount);
+            for (int first = 0; first < blockCount; ) {
+                int last = first;
+                long start = offsets[first];
+                while (last + 1 < blockCount && offsets[last + 1] + lengths[last + 1] - start <= MAX_SEGMENT) last++;
+                MappedByteBuffer segment = ch.map(FileChannel.MapMode.READ_ONLY, start,
+                        offsets[last] + lengths[last] - start);
+                for (int b = first; b <= last; b++) {
+                    ByteBuffer slice = segment.slice((int) (offsets[b] - start), lengths[b]).order(ByteOrder.LITTLE_ENDIAN);
+                    blocks.add(new Block(b, stats[b], slice));
+                }
+                first = last + 1;
+            }
+            return new AttackArchive(ch, Collections.unmodifiableList(blocks), events, size);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public List<Block> blocks() { return blocks; }
+    public long eventCount() { return events; }
+    public long sizeBytes() { return sizeBytes; }
+    public double bytesPerEvent() { return events == 0 ? 0 : (double) sizeBytes / events; }
+
+    /** Largest block in events; size decode buffers with this. */
+    public int maxBlockEvents() {
+        int max = 0;
+        for (Block b : blocks) max = Math.max(max, b.stats.count);
+        return max;
+    }
+
+    @Override
+    public void close() throws IOException { channel.close(); }
+
+    static int code(Attacker.AttackType type, int intensity) {
+        return type.ordinal() | (Math.max(1, Math.min(10, intensity)) << 2);
+    }
+
+    public static Attacker.AttackType type(int code) { return TYPES[code & TYPE_MASK]; }
+    public static int typeOrdinal(int code) { return code & TYPE_MASK; }
+    public static int intensity(int code) { return code >>> 2; }
+
+    private static ByteBuffer readAt(FileChannel ch, long pos, int len) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+        while (b.hasRemaining()) {
+            if (ch.read(b, pos + b.position()) < 0) throw new IOException("truncated attack archive");
+        }
+        return b.flip();
+    }
+
+    /** One immutable block. Decoders fill {@code out[0..count)} and return {@code count}. */
+    public static final class Block {
+        public final int index;
+        public final BlockStats stats;
+        private final ByteBuffer data;
+
+        Block(int index, BlockStats stats, ByteBuffer data) {
+            this.index = index;
+            this.stats = stats;
+            this.data = data;
+        }
+
+        public int count() { return stats.count; }
+        public int encodedBytes() { return data.capacity(); }
+
+        public int timestamps(long[] out) {
+            int count = stats.count, at = data.getInt(4);
+            long first = data.getLong(at);
+            BitPacking.unpack(data, at + 9, count - 1, data.get(at + 8), out);
+            // out[0..count-1) holds zigzag delta-of-deltas; rebuild in place, one slot behind
+            long carry = out[0], delta = 0;
+            out[0] = first;
+            for (int i = 1; i < count; i++) {
+                long z = carry;
+                if (i + 1 < count) carry = out[i];
+                delta += BitPacking.unzigzag(z);
+                out[i] = out[i - 1] + delta;
+            }
+            return count;
+        }
+
+        public int nodes(int[] out) {
+            int count = stats.count, at = data.getInt(8), base = stats.minNode;
+            BitPacking.unpack(data, at + 1, count, data.get(at), out);
+            if (base != 0) for (int i = 0; i < count; i++) out[i] += base;
+            return count;
+        }
+
+        public int dictionarySize() { return data.getInt(data.getInt(12)); }
+
+        /** Sorted (unsigned) distinct IPs of this block; returns the dictionary size. */
+        public int dictionary(int[] out) {
+            int at = data.getInt(12), size = data.getInt(at);
+            for (int i = 0; i < size; i++) out[i] = data.getInt(at + 4 + i * 4);
+            return size;
+        }
+
+        /** Dictionary index of {@code ip}, or -1 when the block never saw it. */
+        public int dictionaryCode(int ip) {
+            int at = data.getInt(12) + 4, lo = 0, hi = data.getInt(at - 4) - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = Integer.compareUnsigned(data.getInt(at + mid * 4), ip);
+                if (c < 0) lo = mid + 1; else if (c > 0) hi = mid - 1; else return mid;
+            }
+            return -1;
+        }
+
+        /** Per-event dictionary codes; resolve with {@link #dictionary}. */
+        public int ipCodes(int[] out) {
+            int count = stats.count, at = data.getInt(12), size = data.getInt(at);
+            int w = at + 4 + size * 4;
+            BitPacking.unpack(data, w + 1, count, data.get(w), out);
+            return count;
+        }
+
+        /** Per-event packed IPv4 addresses. */
+        public int ips(int[] out) {
+            int count = ipCodes(out), at = data.getInt(12) + 4;
+            for (int i = 0; i < count; i++) out[i] = data.getInt(at + out[i] * 4);
+            return count;
+        }
+
+        /** Per-event type + intensity codes; split with {@link AttackArchive#type} / {@link AttackArchive#intensity}. */
+        public int codes(int[] out) {
+            int count = stats.count, at = data.getInt(16);
+            BitPacking.unpack(data, at + 1, count, data.get(at), out);
+            return count;
+        }
+    }
+}
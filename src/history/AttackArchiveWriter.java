@@ -0,0 +1,291 @@
+package history;
+
+import cti.Attacker;
+import cti.Ipv4;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Buffers attack events into column arrays and writes them as immutable, independently
+ * decodable blocks (see {@link AttackArchive} for the layout). Columns per block:
+ * timestamps as zigzag delta-of-delta, nodes as offsets from the block minimum, IPs as codes
+ * into a sorted per-block dictionary, and type + intensity in one 6-bit code; every column is
+ * bit-packed at the narrowest width its block needs. Not thread-safe.
+ */
+public final class AttackArchiveWriter implements Closeable {
+
+    public static final int DEFAULT_BLOCK_SIZE = 65_536;
+
+    private final FileChannel channel;
+    private final int blockSize;
+    private final long[] ts;
+    private final int[] node;
+    private final int[] ip;
+    private final int[] code;
+    private int n;
+
+    // scratch reused across blocks
+    private final long[] longScratch;
+    private final int[] intScratch;
+    private final int[] dictKeys;
+    private final int[] dictTable;   // open addressing: slot -> 1 + dictionary index, 0 = empty
+    private final ByteBuffer out;
+
+    private final List<BlockStats> stats = new ArrayList<>();
+    private final List<long[]> extents = new ArrayList<>();
+    private long position;
+    private long events;
+    private boolean closed;
+
+    public AttackArchiveWriter(Path file) throws IOException {
+        this(file, DEFAULT_BLOCK_SIZE);
+    }
+
+    public AttackArchiveWriter(Path file, int blockSize) throws IOException {
+        if (blockSize < 1) throw new IllegalArgumentException("blockSize must be >= 1");
+        this.blockSize = blockSize;
+        ts = new long[blockSize];
+        node = new int[blockSize];
+        ip = new int[blockSize];
+        code = new int[blockSize];
+        longScratch = new long[blockSize];
+        intScratch = new int[blockSize];
+        dictKeys = new int[blockSize];
+        dictTable = new int[Integer.highestOneBit(Math.max(16, blockSize * 2 - 1)) << 1];
+        // worst case: 64-bit timestamps, 32-bit everything else, a full dictionary, plus headers
+        out = ByteBuffer.allocate(64 + blockSize * 8 + blockSize * 4 * 4 + 64).order(ByteOrder.LITTLE_ENDIAN);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(AttackArchive.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(AttackArchive.MAGIC).putInt(AttackArchive.VERSION).flip();
+        writeFully(header);
+    }
+
+    public void append(int node, Attacker<?> attacker) throws IOException {
+        append(attacker.getTimestamp().toEpochMilli(), node, Ipv4.pack(attacker.getIp()),
+                attacker.getType(), attacker.getIntensity());
+    }
+
+    /** Appends one event; {@code ip} is a packed IPv4 address (see {@link Ipv4}). */
+    public void append(long tsMillis, int node, int ip, Attacker.AttackType type, int intensity) throws IOException {
+        if (closed) throw new IOException("archive writer is closed");
+        if (node < 0) throw new IllegalArgumentException("node must be >= 0");
+        ts[n] = tsMillis;
+        this.node[n] = node;
+        this.ip[n] = ip;
+        code[n] = AttackArchive.code(type, intensity);
+        if (++n == blockSize) flushBlock();
+    }
+
+    public long eventCount() { return events + n; }
+    public int blockCount() { return stats.size(); }
+
+    /** Writes the last partial block and the footer index. */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        try {
+            flushBlock();
+            int blocks = stats.size();
+            ByteBuffer footer = ByteBuffer.allocate(blocks * AttackArchive.FOOTER_ENTRY_BYTES + AttackArchive.TRAILER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            for (int b = 0; b < blocks; b++) {
+                BlockStats s = stats.get(b);
+                long[] e = extents.get(b);
+                footer.putLong(e[0]).putInt((int) e[1]).putInt(s.count)
+                        .putLong(s.minTs).putLong(s.maxTs).putInt(s.minNode).putInt(s.maxNode)
+                        .putInt(s.minIp).putInt(s.maxIp)
+                        .put((byte) s.minIntensity).put((byte) s.maxIntensity).put((byte) s.typeMask).put((byte) 0);
+            }
+            footer.putLong(position).putInt(blocks).putInt(AttackArchive.MAGIC).flip();
+            writeFully(footer);
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (n == 0) return;
+        int count = n;
+        long minTs = Long.MAX_VALUE, maxTs = Long.MIN_VALUE;
+        int minNode = Integer.MAX_VALUE, maxNode = 0, minInt = Integer.MAX_VALUE, maxInt = 0, typeMask = 0;
+        for (int i = 0; i < count; i++) {
+            minTs = Math.min(minTs, ts[i]);
+            maxTs = Math.max(maxTs, ts[i]);
+            minNode = Math.min(minNode, node[i]);
+            maxNode = Math.max(maxNode, node[i]);
+            int intensity = AttackArchive.intensity(code[i]);
+            minInt = Math.min(minInt, intensity);
+            maxInt = Math.max(maxInt, intensity);
+            typeMask |= 1 << (code[i] & AttackArchive.TYPE_MASK);
+        }
+        ByteBuffer b = out;
+        b.clear();
+        b.position(AttackArchive.BLOCK_HEADER_BYTES);
+
+        // timestamps: first value, then zigzag(delta - previous delta)
+        int tsOff = b.position();
+        long prevDelta = 0, maxZig = 0;
+        for (int i = 1; i < count; i++) {
+            long delta = ts[i] - ts[i - 1];
+            long z = BitPacking.zigzag(delta - prevDelta);
+            longScratch[i - 1] = z;
+            maxZig |= z;
+            prevDelta = delta;
+        }
+        int tsWidth = BitPacking.bitsFor(maxZig);
+        b.putLong(ts[0]).put((byte) tsWidth);
+        BitPacking.pack(longScratch, count - 1, tsWidth, b);
+
+        int nodeOff = b.position();
+        int maxNodeDelta = 0;
+        for (int i = 0; i < count; i++) {
+            intScratch[i] = node[i] - minNode;
+            maxNodeDelta |= intScratch[i];
+        }
+        int nodeWidth = BitPacking.bitsFor(maxNodeDelta);
+        b.put((byte) nodeWidth);
+        BitPacking.pack(intScratch, count, nodeWidth, b);
+
+        int dictSize = buildDictionary(count);
+        int ipOff = b.position();
+        b.putInt(dictSize);
+        for (int i = 0; i < dictSize; i++) b.putInt(dictKeys[i]);
+        int ipWidth = BitPacking.bitsFor(dictSize - 1);
+        b.put((byte) ipWidth);
+        BitPacking.pack(intScratch, count, ipWidth, b);
+
+        int codeOff = b.position();
+        b.put((byte) AttackArchive.CODE_BITS);
+        BitPacking.pack(code, count, AttackArchive.CODE_BITS, b);
+
+        int length = b.position();
+        b.putInt(0, count).putInt(4, tsOff).putInt(8, nodeOff).putInt(12, ipOff).putInt(16, codeOff);
+        b.flip();
+        long offset = position;
+        writeFully(b);
+
+        stats.add(new BlockStats(count, minTs, maxTs, minNode, maxNode, dictKeys[0], dictKeys[dictSize - 1],
+                minInt, maxInt, typeMask));
+        extents.add(new long[]{offset, length});
+        events += count;
+        n = 0;
+    }
+
+    /**
+     * Leaves the sorted distinct IPs in {@code dictKeys[0..size)} and each event's dictionary
+     * code in {@code intScratch}. Sorted unsigned, so the first and last entries are the block's
+     * IP range and a point lookup can binary search the dictionary.
+     */
+    private int buildDictionary(int count) {
+        int[] table = dictTable, keys = dictKeys;
+        int size = 0, mask = table.length - 1;
+        Arrays.fill(table, 0);
+        for (int i = 0; i < count; i++) {
+            int v = ip[i];
+            int slot = mix(v) & mask;
+            while (table[slot] != 0 && keys[table[slot] - 1] != v) slot = (slot + 1) & mask;
+            if (table[slot] == 0) {
+                keys[size] = v;
+                table[slot] = ++size;
+            }
+        }
+        // sort unsigned by flipping the sign bit
+        for (int i = 0; i < size; i++) keys[i] ^= Integer.MIN_VALUE;
+        Arrays.sort(keys, 0, size);
+        for (int i = 0; i < size; i++) keys[i] ^= Integer.MIN_VALUE;
+        // re-point the table at sorted positions, then map every event
+        Arrays.fill(table, 0);
+        for (int i = 0; i < size; i++) {
+            int slot = mix(keys[i]) & mask;
+            while (table[slot] != 0) slot = (slot + 1) & mask;
+            table[slot] = i + 1;
+        }
+        for (int i = 0; i < count; i++) {
+            int v = ip[i];
+            int slot = mix(v) & mask;
+            while (keys[table[slot] - 1] != v) slot = (slot + 1) & mask;
+            intScratch[i] = table[slot] - 1;
+        }
+        return size;
+    }
+
+    private static int mix(int v) {
+        int h = v * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void writeFully(ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) position += channel.write(b);
+    }
+
+    /**
+     * Converts a CSV journal written by {@code cti.AttackLogExporter} (optionally gzipped) into an
+     * archive. Returns the number of events written; rows that fail to parse are skipped.
+     */
+    public static long importCsv(Path csv, Path archive) throws IOException {
+        boolean gz = csv.getFileName().toString().endsWith(".gz");
+        // raw is closed even when the GZIP header is bad and the wrapper never gets built
+        try (InputStream raw = Files.newInputStream(csv);
+             InputStream data = gz ? new GZIPInputStream(raw, 64 * 1024) : raw;
+             BufferedReader in = new BufferedReader(new InputStreamReader(data, StandardCharsets.UTF_8), 1 << 16);
+             AttackArchiveWriter w = new AttackArchiveWriter(archive)) {
+            String line = in.readLine();   // header
+            String[] f = new String[7];
+            while ((line = in.readLine()) != null) {
+                if (splitCsv(line, f) < 6) continue;
+                try {
+                    Attacker.AttackType type = Attacker.AttackType.valueOf(f[4]);
+                    w.append(Long.parseLong(f[0]), Integer.parseInt(f[1]), Ipv4.pack(f[3]), type, Integer.parseInt(f[5]));
+                } catch (IllegalArgumentException ignored) {
+                    // malformed row
+                }
+            }
+            return w.eventCount();
+        }
+    }
+
+    /** Splits one CSV line (RFC 4180 quoting) into {@code out}; returns the number of fields seen. */
+    private static int splitCsv(String line, String[] out) {
+        int field = 0, i = 0, len = line.length();
+        StringBuilder sb = new StringBuilder();
+        while (i <= len && field < out.length) {
+            sb.setLength(0);
+            if (i < len && line.charAt(i) == '"') {
+                i++;
+                while (i < len) {
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < len && line.charAt(i) == '"') { sb.append('"'); i++; }
+                        else break;
+                    } else sb.append(c);
+                }
+                while (i < len && line.charAt(i) != ',') i++;
+            } else {
+                int end = line.indexOf(',', i);
+                if (end < 0) end = len;
+                sb.append(line, i, end);
+                i = end;
+            }
+            out[field++] = sb.toString();
+            i++;   // skip comma
+        }
+        return field;
+    }
+}
@@ -0,0 +1,103 @@
+package history;
+
+import cti.Attacker;
+import cti.Ipv4;
+
+/**
+ * Immutable conjunction of event predicates. Each method returns a narrowed copy, e.g.
+ * {@code AttackFilter.ALL.type(MEM_FILL).intensity(8, 10).between(t1, t2)}.
+ */
+public final class AttackFilter {
+
+    private static final int ALL_TYPES = (1 << Attacker.AttackType.values().length) - 1;
+
+    public static final AttackFilter ALL = new AttackFilter(Long.MIN_VALUE, Long.MAX_VALUE, ALL_TYPES, 1, 10, -1, false, 0);
+
+    final long fromMs, toMs;
+    final int typeMask;
+    final int minIntensity, maxIntensity;
+    final int node;
+    final boolean hasIp;
+    final int ip;
+
+    private AttackFilter(long fromMs, long toMs, int typeMask, int minIntensity, int maxIntensity, int node,
+                         boolean hasIp, int ip) {
+        this.fromMs = fromMs;
+        this.toMs = toMs;
+        this.typeMask = typeMask;
+        this.minIntensity = minIntensity;
+        this.maxIntensity = maxIntensity;
+        this.node = node;
+        this.hasIp = hasIp;
+        this.ip = ip;
+    }
+
+    /** Events with {@code fromMs <= ts <= toMs}. */
+    public AttackFilter between(long fromMs, long toMs) {
+        return new AttackFilter(fromMs, toMs, typeMask, minIntensity, maxIntensity, node, hasIp, ip);
+    }
+
+    public AttackFilter type(Attacker.AttackType... types) {
+        int mask = 0;
+        for (Attacker.AttackType t : types) mask |= 1 << t.ordinal();
+        return new AttackFilter(fromMs, toMs, mask, minIntensity, maxIntensity, node, hasIp, ip);
+    }
+
+    /** Inclusive intensity range. */
+    public AttackFilter intensity(int min, int max) {
+        return new AttackFilter(fromMs, toMs, typeMask, min, max, node, hasIp, ip);
+    }
+
+    public AttackFilter node(int node) {
+        return new AttackFilter(fromMs, toMs, typeMask, minIntensity, maxIntensity, node, hasIp, ip);
+    }
+
+    /** Packed IPv4 address, see {@link Ipv4#pack}. */
+    public AttackFilter ip(int ip) {
+        return new AttackFilter(fromMs, toMs, typeMask, minIntensity, maxIntensity, node, true, ip);
+    }
+
+    /** True when the block's statistics prove no event in it can match. */
+    boolean excludes(BlockStats s) {
+        return !s.overlapsTime(fromMs, toMs)
+                || (s.typeMask & typeMask) == 0
+                || !s.mayContainIntensity(minIntensity, maxIntensity)
+                || (node >= 0 && !s.mayContainNode(node))
+                || (hasIp && !s.mayContainIp(ip));
+    }
+
+    boolean coversTime(BlockStats s) { return s.minTs >= fromMs && s.maxTs <= toMs; }
+
+    /** True when type and intensity alone cannot reject any event of the block. */
+    boolean coversCodes(BlockStats s) {
+        return (s.typeMask & ~typeMask) == 0 && s.minIntensity >= minIntensity && s.maxIntensity <= maxIntensity;
+    }
+
+    /** Lookup table over the 6-bit type + intensity code. */
+    boolean[] acceptedCodes() {
+        boolean[] accept = new boolean[1 << AttackArchive.CODE_BITS];
+        for (int code = 0; code < accept.length; code++) {
+            int intensity = AttackArchive.intensity(code);
+            accept[code] = (typeMask & (1 << AttackArchive.typeOrdinal(code))) != 0
+                    && intensity >= minIntensity && intensity <= maxIntensity;
+        }
+        return accept;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("filter[");
+        if (fromMs != Long.MIN_VALUE || toMs != Long.MAX_VALUE) sb.append(" ts=").append(fromMs).append("..").append(toMs);
+        if (typeMask != ALL_TYPES) {
+            sb.append(" type=");
+            String sep = "";
+            for (Attacker.AttackType t : Attacker.AttackType.values()) {
+                if ((typeMask & (1 << t.ordinal())) != 0) { sb.append(sep).append(t.name()); sep = "|"; }
+            }
+        }
+        if (minIntensity > 1 || maxIntensity < 10) sb.append(" intensity=").append(minIntensity).append("..").append(maxIntensity);
+        if (node >= 0) sb.append(" node=").append(node);
+        if (hasIp) sb.append(" ip=").append(Ipv4.format(ip));
+        return sb.append(" ]").toString();
+    }
+}
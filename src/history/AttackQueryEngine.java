@@ -0,0 +1,440 @@
+package history;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Filter / group-by / top-K queries over an {@link AttackArchive}, run as parallel block scans
+ * on a fork/join pool. Predicates are pushed down in two steps: block statistics rule whole
+ * blocks out before they are mapped, then inside a block only the columns a predicate or
+ * grouping needs are decoded, cheapest first, narrowing a selection vector as they go.
+ * Counting happens in a dense per-block array indexed by dictionary code / offset and is folded
+ * into a primitive hash map once per distinct key, so aggregation never boxes.
+ */
+public final class AttackQueryEngine {
+
+    private static final LatencyHistogram QUERY = Metrics.histogram("history.query");
+    private static final Counter BLOCKS_SKIPPED = Metrics.counter("history.blocks.skipped");
+    private static final Counter EVENTS_SCANNED = Metrics.counter("history.events.scanned");
+
+    /** Largest dense per-block key space; wider group-bys fall back to hashing every row. */
+    private static final int DENSE_LIMIT = 1 << 18;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final AttackArchive archive;
+    private final ForkJoinPool pool;
+    private final int maxBlockEvents;
+
+    public AttackQueryEngine(AttackArchive archive) {
+        this(archive, ForkJoinPool.commonPool());
+    }
+
+    public AttackQueryEngine(AttackArchive archive, ForkJoinPool pool) {
+        this.archive = archive;
+        this.pool = pool;
+        this.maxBlockEvents = archive.maxBlockEvents();
+    }
+
+    /** Number of matching events. */
+    public QueryResult count(AttackFilter filter) {
+        long t0 = System.nanoTime();
+        Partial p = scan(filter, null, null);
+        List<QueryResult.Row> rows = new ArrayList<>(1);
+        rows.add(new QueryResult.Row(0, 0, p.matched));
+        return finish(rows, null, null, p, t0);
+    }
+
+    /** Every group with its count, largest first. */
+    public QueryResult groupCount(AttackFilter filter, GroupBy by) {
+        return topK(filter, by, Integer.MAX_VALUE);
+    }
+
+    /** The {@code k} largest groups, largest first. */
+    public QueryResult topK(AttackFilter filter, GroupBy by, int k) {
+        long t0 = System.nanoTime();
+        Partial p = scan(filter, null, by);
+        return finish(select(p.counts, false, k), null, by, p, t0);
+    }
+
+    /** For each {@code group} value (ascending), the {@code k} largest {@code by} values within it. */
+    public QueryResult topKPerGroup(AttackFilter filter, GroupBy group, GroupBy by, int k) {
+        long t0 = System.nanoTime();
+        Partial p = scan(filter, group, by);
+        return finish(select(p.counts, true, k), group, by, p, t0);
+    }
+
+    private QueryResult finish(List<QueryResult.Row> rows, GroupBy group, GroupBy by, Partial p, long t0) {
+        long elapsed = System.nanoTime() - t0;
+        QUERY.record(elapsed);
+        BLOCKS_SKIPPED.add(p.blocksSkipped);
+        EVENTS_SCANNED.add(p.scanned);
+        return new QueryResult(rows, group, by, p.matched, p.scanned, p.blocksScanned, p.blocksSkipped, elapsed);
+    }
+
+    private Partial scan(AttackFilter filter, GroupBy outer, GroupBy inner) {
+        int blocks = archive.blocks().size();
+        if (blocks == 0) return new Partial(inner != null);
+        int grain = Math.max(1, blocks / (pool.getParallelism() * 8));
+        return pool.invoke(new ScanTask(new Query(filter, outer, inner), 0, blocks, grain));
+    }
+
+    private static final class Query {
+        final AttackFilter filter;
+        final boolean[] accept;
+        final GroupBy outer, inner;
+
+        Query(AttackFilter filter, GroupBy outer, GroupBy inner) {
+            this.filter = filter;
+            this.accept = filter.acceptedCodes();
+            this.outer = outer;
+            this.inner = inner;
+        }
+    }
+
+    private static final class Partial {
+        final LongLongHashMap counts;
+        long matched, scanned;
+        int blocksScanned, blocksSkipped;
+
+        Partial(boolean grouped) { counts = grouped ? new LongLongHashMap(1024) : null; }
+
+        Partial merge(Partial o) {
+            if (counts != null) {
+                if (o.counts.size() > counts.size()) {
+                    o.counts.addAll(counts);
+                    o.matched += matched;
+                    o.scanned += scanned;
+                    o.blocksScanned += blocksScanned;
+                    o.blocksSkipped += blocksSkipped;
+                    return o;
+                }
+                counts.addAll(o.counts);
+            }
+            matched += o.matched;
+            scanned += o.scanned;
+            blocksScanned += o.blocksScanned;
+            blocksSkipped += o.blocksSkipped;
+            return this;
+        }
+    }
+
+    /**
+     * Per-worker decode buffers, grown on demand and reused across queries. Columns of the
+     * current block are decoded on first use only.
+     */
+    private static final class Scratch {
+        int[] sel = new int[0], codes = sel, nodes = sel, ipCodes = sel, dict = sel, keyA = sel, keyB = sel;
+        final int[] dense = new int[DENSE_LIMIT];
+        long[] ts = new long[0];
+
+        AttackArchive.Block block;
+        boolean haveCodes, haveTs, haveNodes, haveIps, haveDict;
+
+        void ensure(int n) {
+            if (sel.length >= n) return;
+            sel = new int[n];
+            codes = new int[n];
+            nodes = new int[n];
+            ipCodes = new int[n];
+            dict = new int[n];
+            keyA = new int[n];
+            keyB = new int[n];
+            ts = new long[n];
+        }
+
+        void reset(AttackArchive.Block b) {
+            block = b;
+            haveCodes = haveTs = haveNodes = haveIps = haveDict = false;
+        }
+
+        int[] codes() {
+            if (!haveCodes) { block.codes(codes); haveCodes = true; }
+            return codes;
+        }
+
+        long[] ts() {
+            if (!haveTs) { block.timestamps(ts); haveTs = true; }
+            return ts;
+        }
+
+        int[] nodes() {
+            if (!haveNodes) { block.nodes(nodes); haveNodes = true; }
+            return nodes;
+        }
+
+        int[] ipCodes() {
+            if (!haveIps) { block.ipCodes(ipCodes); haveIps = true; }
+            return ipCodes;
+        }
+
+        int[] dict() {
+            if (!haveDict) { block.dictionary(dict); haveDict = true; }
+            return dict;
+        }
+    }
+
+    @SuppressWarnings("serial")   // ForkJoinTask is Serializable, but scan tasks are never serialized
+    private final class ScanTask extends RecursiveTask<Partial> {
+        private final Query q;
+        private final int lo, hi, grain;
+
+        ScanTask(Query q, int lo, int hi, int grain) {
+            this.q = q;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (hi - lo <= grain) return scanRange();
+            int mid = (lo + hi) >>> 1;
+            ScanTask left = new ScanTask(q, lo, mid, grain);
+            left.fork();
+            Partial right = new ScanTask(q, mid, hi, grain).compute();
+            return left.join().merge(right);
+        }
+
+        private Partial scanRange() {
+            Partial p = new Partial(q.inner != null);
+            Scratch s = SCRATCH.get();
+            s.ensure(maxBlockEvents);
+            AttackFilter f = q.filter;
+            List<AttackArchive.Block> blocks = archive.blocks();
+            for (int bi = lo; bi < hi; bi++) {
+                AttackArchive.Block b = blocks.get(bi);
+                BlockStats st = b.stats;
+                int ipCode = -1;
+                if (f.excludes(st) || (f.hasIp && (ipCode = b.dictionaryCode(f.ip)) < 0)) {
+                    p.blocksSkipped++;
+                    continue;
+                }
+                p.blocksScanned++;
+                int n = st.count;
+                p.scanned += n;
+
+                // m == -1 means "every row selected" until a predicate has to look at rows
+                s.reset(b);
+                int m = -1;
+                int[] sel = s.sel;
+                if (!f.coversCodes(st)) {
+                    boolean[] accept = q.accept;
+                    int[] codes = s.codes();
+                    m = 0;
+                    for (int i = 0; i < n; i++) {
+                        sel[m] = i;
+                        m += accept[codes[i]] ? 1 : 0;
+                    }
+                }
+                if (m != 0 && !f.coversTime(st)) {
+                    long[] ts = s.ts();
+                    long from = f.fromMs, to = f.toMs;
+                    int k = 0;
+                    if (m < 0) {
+                        for (int i = 0; i < n; i++) { sel[k] = i; k += ts[i] >= from && ts[i] <= to ? 1 : 0; }
+                    } else {
+                        for (int j = 0; j < m; j++) { int i = sel[j]; sel[k] = i; k += ts[i] >= from && ts[i] <= to ? 1 : 0; }
+                    }
+                    m = k;
+                }
+                if (m != 0 && f.node >= 0 && st.minNode != st.maxNode) m = narrow(s.nodes(), f.node, sel, m, n);
+                if (m != 0 && f.hasIp && b.dictionarySize() > 1) m = narrow(s.ipCodes(), ipCode, sel, m, n);
+                if (m < 0) {
+                    m = n;
+                    for (int i = 0; i < n; i++) sel[i] = i;
+                }
+                if (m == 0) continue;
+                p.matched += m;
+                if (q.inner == null) continue;
+
+                int rangeB = keys(q.inner, s, m, s.keyB);
+                int rangeA = q.outer == null ? 1 : keys(q.outer, s, m, s.keyA);
+                aggregate(p.counts, s, m, rangeA, rangeB);
+            }
+            return p;
+        }
+
+        private void aggregate(LongLongHashMap counts, Scratch s, int m, int rangeA, int rangeB) {
+            int[] ka = s.keyA, kb = s.keyB;
+            boolean outer = q.outer != null;
+            if ((long) rangeA * rangeB <= DENSE_LIMIT) {
+                int[] dense = s.dense;
+                for (int j = 0; j < m; j++) dense[(outer ? ka[j] * rangeB : 0) + kb[j]]++;
+                for (int j = 0; j < m; j++) {
+                    int idx = (outer ? ka[j] * rangeB : 0) + kb[j];
+                    int c = dense[idx];
+                    if (c == 0) continue;
+                    dense[idx] = 0;
+                    counts.add(key(outer ? translate(q.outer, s, ka[j]) : 0, translate(q.inner, s, kb[j])), c);
+                }
+            } else {
+                for (int j = 0; j < m; j++) {
+                    counts.add(key(outer ? translate(q.outer, s, ka[j]) : 0, translate(q.inner, s, kb[j])), 1);
+                }
+            }
+        }
+    }
+
+    private static long key(int outer, int inner) { return ((long) outer << 32) | (inner & 0xFFFFFFFFL); }
+
+    /** Keeps the selected rows whose {@code column} value equals {@code value}. */
+    private static int narrow(int[] column, int value, int[] sel, int m, int n) {
+        int k = 0;
+        if (m < 0) {
+            for (int i = 0; i < n; i++) { sel[k] = i; k += column[i] == value ? 1 : 0; }
+        } else {
+            for (int j = 0; j < m; j++) { int i = sel[j]; sel[k] = i; k += column[i] == value ? 1 : 0; }
+        }
+        return k;
+    }
+
+    /**
+     * Writes the block-local dense key of each selected row into {@code out} and returns the size
+     * of that key space. {@link #translate} maps a dense key back to the real group value.
+     */
+    private static int keys(GroupBy by, Scratch s, int m, int[] out) {
+        BlockStats st = s.block.stats;
+        int[] sel = s.sel;
+        switch (by) {
+            case NODE: {
+                int[] col = s.nodes();
+                int base = st.minNode;
+                for (int j = 0; j < m; j++) out[j] = col[sel[j]] - base;
+                return st.maxNode - base + 1;
+            }
+            case IP: {
+                int[] col = s.ipCodes();
+                for (int j = 0; j < m; j++) out[j] = col[sel[j]];
+                return s.block.dictionarySize();
+            }
+            case TYPE: {
+                int[] col = s.codes();
+                for (int j = 0; j < m; j++) out[j] = col[sel[j]] & AttackArchive.TYPE_MASK;
+                return AttackArchive.TYPE_MASK + 1;
+            }
+            case INTENSITY: {
+                int[] col = s.codes();
+                for (int j = 0; j < m; j++) out[j] = col[sel[j]] >>> 2;
+                return 1 << (AttackArchive.CODE_BITS - 2);
+            }
+            default: {
+                long[] col = s.ts();
+                long base = Math.floorDiv(st.minTs, 60_000L);
+                for (int j = 0; j < m; j++) out[j] = (int) (Math.floorDiv(col[sel[j]], 60_000L) - base);
+                long range = Math.floorDiv(st.maxTs, 60_000L) - base + 1;
+                return (int) Math.min(range, Integer.MAX_VALUE);
+            }
+        }
+    }
+
+    private static int translate(GroupBy by, Scratch s, int dense) {
+        switch (by) {
+            case NODE: return dense + s.block.stats.minNode;
+            case IP: return s.dict()[dense];
+            case MINUTE: return (int) (Math.floorDiv(s.block.stats.minTs, 60_000L) + dense);
+            default: return dense;
+        }
+    }
+
+    /**
+     * Top-K selection over the aggregated map using bounded primitive min-heaps, one per outer
+     * group when {@code perGroup} is set.
+     */
+    private static List<QueryResult.Row> select(LongLongHashMap counts, boolean perGroup, int k) {
+        List<QueryResult.Row> rows = new ArrayList<>();
+        if (counts == null || counts.size() == 0 || k <= 0) return rows;
+        k = Math.min(k, counts.size());
+
+        // outer group -> heap slot
+        long[] groups;
+        LongLongHashMap slotOf = new LongLongHashMap(64);
+        if (perGroup) {
+            for (int i = 0; i < counts.capacity(); i++) {
+                if (counts.valueAt(i) != 0 && slotOf.get(counts.keyAt(i) >>> 32) == 0) {
+                    slotOf.add(counts.keyAt(i) >>> 32, slotOf.size() + 1);
+                }
+            }
+            groups = new long[slotOf.size()];
+            for (int i = 0; i < slotOf.capacity(); i++) {
+                if (slotOf.valueAt(i) != 0) groups[(int) slotOf.valueAt(i) - 1] = slotOf.keyAt(i);
+            }
+        } else {
+            groups = new long[]{0};
+        }
+        int slots = groups.length;
+        if ((long) slots * k > Integer.MAX_VALUE - 8) k = (Integer.MAX_VALUE - 8) / slots;
+        long[] heapKeys = new long[slots * k];
+        long[] heapCounts = new long[slots * k];
+        int[] heapSize = new int[slots];
+
+        for (int i = 0; i < counts.capacity(); i++) {
+            long c = counts.valueAt(i);
+            if (c == 0) continue;
+            long key = counts.keyAt(i);
+            int slot = perGroup ? (int) slotOf.get(key >>> 32) - 1 : 0;
+            int base = slot * k, size = heapSize[slot];
+            if (size < k) {
+                heapSize[slot] = size + 1;
+                siftUp(heapKeys, heapCounts, base, size, key, c);
+            } else if (c > heapCounts[base] || (c == heapCounts[base] && key < heapKeys[base])) {
+                siftDown(heapKeys, heapCounts, base, k, key, c);
+            }
+        }
+
+        // emit groups in ascending unsigned order, each heap sorted by count descending
+        long[] order = groups.clone();
+        Arrays.sort(order);
+        for (long g : order) {
+            int slot = perGroup ? (int) slotOf.get(g) - 1 : 0;
+            int base = slot * k, size = heapSize[slot];
+            List<QueryResult.Row> group = new ArrayList<>(size);
+            while (size > 0) {
+                long key = heapKeys[base], c = heapCounts[base];
+                size--;
+                if (size > 0) siftDown(heapKeys, heapCounts, base, size, heapKeys[base + size], heapCounts[base + size]);
+                group.add(new QueryResult.Row((int) (key >>> 32), (int) key, c));
+            }
+            for (int j = group.size() - 1; j >= 0; j--) rows.add(group.get(j));
+        }
+        return rows;
+    }
+
+    /** Min-heap ordered by count, then by larger key first so ties keep the smallest keys. */
+    private static boolean less(long c1, long k1, long c2, long k2) { return c1 < c2 || (c1 == c2 && k1 > k2); }
+
+    private static void siftUp(long[] keys, long[] counts, int base, int i, long key, long c) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(c, key, counts[base + parent], keys[base + parent])) break;
+            keys[base + i] = keys[base + parent];
+            counts[base + i] = counts[base + parent];
+            i = parent;
+        }
+        keys[base + i] = key;
+        counts[base + i] = c;
+    }
+
+    /** Replaces the root with {@code key}/{@code c} and restores heap order over {@code size} entries. */
+    private static void siftDown(long[] keys, long[] counts, int base, int size, long key, long c) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && less(counts[base + child + 1], keys[base + child + 1], counts[base + child], keys[base + child])) child++;
+            if (!less(counts[base + child], keys[base + child], c, key)) break;
+            keys[base + i] = keys[base + child];
+            counts[base + i] = counts[base + child];
+            i = child;
+        }
+        keys[base + i] = key;
+        counts[base + i] = c;
+    }
+}
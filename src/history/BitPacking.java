@@ -0,0 +1,104 @@
+package history;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Fixed-width bit packing of non-negative values into little-endian 64-bit words.
+ * Values are laid out back to back, so a value may straddle two words.
+ */
+final class BitPacking {
+
+    private BitPacking() {}
+
+    static int bitsFor(long maxValue) { return 64 - Long.numberOfLeadingZeros(maxValue); }
+
+    static int words(int count, int width) { return (int) (((long) count * width + 63) >>> 6); }
+
+    static long zigzag(long v) { return (v << 1) ^ (v >> 63); }
+
+    static long unzigzag(long v) { return (v >>> 1) ^ -(v & 1); }
+
+    static void pack(long[] values, int count, int width, ByteBuffer out) {
+        if (width == 0) return;
+        long word = 0;
+        int used = 0;
+        for (int i = 0; i < count; i++) {
+            long v = values[i];
+            word |= v << used;
+            used += width;
+            if (used >= 64) {
+                out.putLong(word);
+                used -= 64;
+                word = used == 0 ? 0 : v >>> (width - used);
+            }
+        }
+        if (used > 0) out.putLong(word);
+    }
+
+    static void pack(int[] values, int count, int width, ByteBuffer out) {
+        if (width == 0) return;
+        long word = 0;
+        int used = 0;
+        for (int i = 0; i < count; i++) {
+            long v = values[i] & 0xFFFFFFFFL;
+            word |= v << used;
+            used += width;
+            if (used >= 64) {
+                out.putLong(word);
+                used -= 64;
+                word = used == 0 ? 0 : v >>> (width - used);
+            }
+        }
+        if (used > 0) out.putLong(word);
+    }
+
+    /** Unpacks {@code count} values starting at absolute byte offset {@code at}. */
+    static void unpack(ByteBuffer in, int at, int count, int width, long[] out) {
+        if (count == 0) return;
+        if (width == 0) {
+            Arrays.fill(out, 0, count, 0L);
+            return;
+        }
+        long mask = width == 64 ? -1L : (1L << width) - 1;
+        long word = in.getLong(at);
+        int used = 0;
+        for (int i = 0; i < count; i++) {
+            long v = word >>> used;
+            used += width;
+            if (used >= 64) {
+                used -= 64;
+                if (i + 1 < count || used > 0) {
+                    at += 8;
+                    word = in.getLong(at);
+                    if (used > 0) v |= word << (width - used);
+                }
+            }
+            out[i] = v & mask;
+        }
+    }
+
+    static void unpack(ByteBuffer in, int at, int count, int width, int[] out) {
+        if (count == 0) return;
+        if (width == 0) {
+            Arrays.fill(out, 0, count, 0);
+            return;
+        }
+        long mask = (1L << width) - 1;
+        long word = in.getLong(at);
+        int used = 0;
+        for (int i = 0; i < count; i++) {
+            long v = word >>> used;
+            used += width;
+            if (used >= 64) {
+                used -= 64;
+                if (i + 1 < count || used > 0) {
+                    at += 8;
+                    word = in.getLong(at);
+                    if (used > 0) v |= word << (width - used);
+                }
+            }
+            out[i] = (int) (v & mask);
+        }
+    }
+}
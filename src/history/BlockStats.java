@@ -0,0 +1,48 @@
+package history;
+
+import cti.Attacker;
+
+/**
+ * Per-block min/max summary kept in the archive footer, so a scan can rule a block out
+ * without mapping or decoding any of its columns.
+ */
+public final class BlockStats {
+
+    public final int count;
+    public final long minTs, maxTs;
+    public final int minNode, maxNode;
+    /** IPs compare unsigned; see {@link Integer#compareUnsigned}. */
+    public final int minIp, maxIp;
+    public final int minIntensity, maxIntensity;
+    /** Bit {@code t.ordinal()} is set when attack type {@code t} occurs in the block. */
+    public final int typeMask;
+
+    BlockStats(int count, long minTs, long maxTs, int minNode, int maxNode, int minIp, int maxIp,
+               int minIntensity, int maxIntensity, int typeMask) {
+        this.count = count;
+        this.minTs = minTs;
+        this.maxTs = maxTs;
+        this.minNode = minNode;
+        this.maxNode = maxNode;
+        this.minIp = minIp;
+        this.maxIp = maxIp;
+        this.minIntensity = minIntensity;
+        this.maxIntensity = maxIntensity;
+        this.typeMask = typeMask;
+    }
+
+    public boolean overlapsTime(long fromMs, long toMs) { return maxTs >= fromMs && minTs <= toMs; }
+    public boolean mayContainNode(int node) { return node >= minNode && node <= maxNode; }
+    public boolean mayContainType(Attacker.AttackType type) { return (typeMask & (1 << type.ordinal())) != 0; }
+    public boolean mayContainIntensity(int min, int max) { return maxIntensity >= min && minIntensity <= max; }
+
+    public boolean mayContainIp(int ip) {
+        return Integer.compareUnsigned(ip, minIp) >= 0 && Integer.compareUnsigned(ip, maxIp) <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "BlockStats{count=" + count + ", ts=" + minTs + ".." + maxTs + ", node=" + minNode + ".." + maxNode
+                + ", intensity=" + minIntensity + ".." + maxIntensity + ", types=0x" + Integer.toHexString(typeMask) + "}";
+    }
+}
@@ -0,0 +1,21 @@
+package history;
+
+import cti.Attacker;
+import cti.Ipv4;
+
+import java.time.Instant;
+
+/** Event attributes a query can group on. Group keys are 32-bit values, compared unsigned. */
+public enum GroupBy {
+    NODE, IP, TYPE, INTENSITY, MINUTE;
+
+    /** Human-readable form of a key produced by this grouping. */
+    public String format(int key) {
+        switch (this) {
+            case IP: return Ipv4.format(key);
+            case TYPE: return Attacker.AttackType.values()[key].name();
+            case MINUTE: return Instant.ofEpochMilli((key & 0xFFFFFFFFL) * 60_000L).toString();
+            default: return Integer.toUnsignedString(key);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package history;
+
+/**
+ * Open-addressing long -> long map for aggregation: no boxing, no per-entry objects.
+ * Values are sums of positive deltas, so a zero value marks an empty slot.
+ */
+final class LongLongHashMap {
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private int mask;
+
+    LongLongHashMap(int expected) {
+        int cap = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        keys = new long[cap];
+        values = new long[cap];
+        mask = cap - 1;
+    }
+
+    int size() { return size; }
+    int capacity() { return keys.length; }
+    long keyAt(int slot) { return keys[slot]; }
+    /** 0 when the slot is empty. */
+    long valueAt(int slot) { return values[slot]; }
+
+    void add(long key, long delta) {
+        int slot = slot(key);
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size * 2 > keys.length) grow();
+    }
+
+    long get(long key) {
+        int slot = slot(key);
+        while (values[slot] != 0) {
+            if (keys[slot] == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    void addAll(LongLongHashMap other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.values[i] != 0) add(other.keys[i], other.values[i]);
+        }
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys, oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        mask = keys.length - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) add(oldKeys[i], oldValues[i]);
+        }
+    }
+}
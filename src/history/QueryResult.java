@@ -0,0 +1,60 @@
+package history;
+
+import java.util.List;
+import java.util.Locale;
+
+/** Rows of an archive query plus how much of the archive it had to touch and how long it took. */
+public final class QueryResult {
+
+    /** One output row. {@code group} is only meaningful for per-group top-K queries. */
+    public static final class Row {
+        public final int group;
+        public final int key;
+        public final long count;
+
+        Row(int group, int key, long count) {
+            this.group = group;
+            this.key = key;
+            this.count = count;
+        }
+    }
+
+    public final List<Row> rows;
+    public final GroupBy groupBy;      // set only for per-group top-K
+    public final GroupBy keyBy;        // null for plain counts
+    public final long matched;
+    public final long scanned;
+    public final int blocksScanned;
+    public final int blocksSkipped;
+    public final long elapsedNanos;
+
+    QueryResult(List<Row> rows, GroupBy groupBy, GroupBy keyBy, long matched, long scanned,
+                int blocksScanned, int blocksSkipped, long elapsedNanos) {
+        this.rows = rows;
+        this.groupBy = groupBy;
+        this.keyBy = keyBy;
+        this.matched = matched;
+        this.scanned = scanned;
+        this.blocksScanned = blocksScanned;
+        this.blocksSkipped = blocksSkipped;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /** Scanned events per second of wall time. */
+    public double scanRate() { return elapsedNanos == 0 ? 0 : scanned * 1e9 / elapsedNanos; }
+
+    public String timings() {
+        return String.format(Locale.ROOT, "%.1f ms, matched %d of %d scanned, blocks %d scanned / %d skipped (%.0f M events/s)",
+                elapsedNanos / 1e6, matched, scanned, blocksScanned, blocksSkipped, scanRate() / 1e6);
+    }
+
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        for (Row r : rows) {
+            if (groupBy != null) sb.append(groupBy.name().toLowerCase(Locale.ROOT)).append('=').append(groupBy.format(r.group)).append("  ");
+            if (keyBy != null) sb.append(keyBy.name().toLowerCase(Locale.ROOT)).append('=').append(keyBy.format(r.key)).append("  ");
+            sb.append("count=").append(r.count).append('\n');
+        }
+        return sb.append(timings()).append('\n').toString();
+    }
+}
@@ -0,0 +1,16 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Striped monotonic counter; increments from many threads do not contend on one cache line. */
+public final class Counter implements CounterMXBean {
+
+    private final LongAdder adder = new LongAdder();
+
+    public void increment() { adder.increment(); }
+    public void add(long n) { adder.add(n); }
+    public long get() { return adder.sum(); }
+
+    @Override
+    public long getCount() { return adder.sum(); }
+}
@@ -0,0 +1,24 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Point-in-time value. Either set explicitly, adjusted with {@link #add}, or read from a
+ * supplier installed with {@link #bind}; a bound supplier wins over the stored value.
+ */
+public final class Gauge implements GaugeMXBean {
+
+    private final AtomicLong value = new AtomicLong();
+    private volatile LongSupplier supplier;
+
+    public void set(long v) { value.set(v); }
+    public void add(long delta) { value.addAndGet(delta); }
+    public void bind(LongSupplier s) { supplier = s; }
+
+    @Override
+    public long getValue() {
+        LongSupplier s = supplier;
+        return s != null ? s.getAsLong() : value.get();
+    }
+}
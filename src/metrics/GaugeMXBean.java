@@ -0,0 +1,5 @@
+package metrics;
+
+public interface GaugeMXBean {
+    long getValue();
+}
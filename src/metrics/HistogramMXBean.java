@@ -0,0 +1,11 @@
+package metrics;
+
+/** JMX view of a {@link LatencyHistogram}; values are in the histogram's unit (nanoseconds). */
+public interface HistogramMXBean {
+    long getCount();
+    double getMean();
+    long getP50();
+    long getP99();
+    long getP999();
+    long getMax();
+}
@@ -0,0 +1,94 @@
+package metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram for non-negative values (nanoseconds by convention).
+ * 32 sub-buckets per power of two keep the relative error around 3% over the whole long
+ * range in a fixed 15 KB of counters. Recording is one index computation and one atomic add.
+ */
+public final class LatencyHistogram implements HistogramMXBean {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.getAndIncrement(bucket(value));
+        sum.add(value);
+        long m = max.get();
+        while (value > m && !max.compareAndSet(m, value)) m = max.get();
+    }
+
+    public long count() {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) n += counts.get(i);
+        return n;
+    }
+
+    public long max() { return max.get(); }
+    public double mean() { long n = count(); return n == 0 ? 0 : (double) sum.sum() / n; }
+
+    /** Upper bound of the bucket holding the {@code p}-th percentile (0..100); 0 when empty. */
+    public long percentile(double p) {
+        long n = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) n += (snapshot[i] = counts.get(i));
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(n * Math.min(100.0, Math.max(0.0, p)) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    @Override public long getCount() { return count(); }
+    @Override public double getMean() { return mean(); }
+    @Override public long getP50() { return percentile(50); }
+    @Override public long getP99() { return percentile(99); }
+    @Override public long getP999() { return percentile(99.9); }
+    @Override public long getMax() { return max(); }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        sum.reset();
+        max.set(0);
+    }
+
+    /** Short human summary with values scaled from nanoseconds. */
+    public String summary() {
+        return String.format(Locale.ROOT, "n=%d p50=%s p99=%s p99.9=%s max=%s",
+                count(), nanos(percentile(50)), nanos(percentile(99)), nanos(percentile(99.9)), nanos(max()));
+    }
+
+    public static String nanos(long ns) {
+        if (ns < 1_000) return ns + "ns";
+        if (ns < 1_000_000) return String.format(Locale.ROOT, "%.1fus", ns / 1e3);
+        if (ns < 1_000_000_000) return String.format(Locale.ROOT, "%.1fms", ns / 1e6);
+        return String.format(Locale.ROOT, "%.2fs", ns / 1e9);
+    }
+
+    static int bucket(long v) {
+        int msb = 63 - Long.numberOfLeadingZeros(v | 1);
+        if (msb < SUB_BITS) return (int) v;
+        int shift = msb - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) ((v >>> shift) & (SUB_COUNT - 1));
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_COUNT) return index;
+        int shift = (index >> SUB_BITS) - 1;
+        long lower = (long) (SUB_COUNT + (index & (SUB_COUNT - 1))) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,76 @@
+package metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide instrumentation registry. Metrics are created on first lookup by name, held in
+ * static fields by the code that records them, and published as platform MXBeans under
+ * {@code cti.metrics:type=<Counter|Gauge|Histogram>,name=<name>} so jconsole / JFR can read them.
+ * Recording never touches the registry: it is a LongAdder or atomic add on the metric itself.
+ */
+public final class Metrics {
+
+    public static final String DOMAIN = "cti.metrics";
+
+    private static final Map<String, Object> METRICS = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    public static Counter counter(String name) {
+        return lookup(name, Counter.class, "Counter");
+    }
+
+    public static Gauge gauge(String name) {
+        return lookup(name, Gauge.class, "Gauge");
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return lookup(name, LatencyHistogram.class, "Histogram");
+    }
+
+    /** Sorted snapshot of every metric as {@code name -> readable value}. */
+    public static Map<String, String> snapshot() {
+        Map<String, String> out = new TreeMap<>();
+        METRICS.forEach((name, m) -> {
+            if (m instanceof Counter) out.put(name, String.valueOf(((Counter) m).get()));
+            else if (m instanceof Gauge) out.put(name, String.valueOf(((Gauge) m).getValue()));
+            else out.put(name, ((LatencyHistogram) m).summary());
+        });
+        return out;
+    }
+
+    private static <T> T lookup(String name, Class<T> type, String jmxType) {
+        Object m = METRICS.computeIfAbsent(name, n -> {
+            Object created = newMetric(type);
+            register(n, jmxType, created);
+            return created;
+        });
+        if (!type.isInstance(m)) {
+            throw new IllegalArgumentException("metric '" + name + "' already registered as " + m.getClass().getSimpleName());
+        }
+        return type.cast(m);
+    }
+
+    private static Object newMetric(Class<?> type) {
+        if (type == Counter.class) return new Counter();
+        if (type == Gauge.class) return new Gauge();
+        return new LatencyHistogram();
+    }
+
+    private static void register(String name, String jmxType, Object metric) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName on = new ObjectName(DOMAIN + ":type=" + jmxType + ",name=" + ObjectName.quote(name));
+            if (!server.isRegistered(on)) server.registerMBean(metric, on);
+        } catch (JMException | SecurityException e) {
+            // metrics still work in-process without JMX
+            System.err.println("Could not publish metric " + name + " over JMX: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package montecarlo;
+
+import games.DDoSModel;
+
+import java.util.SplittableRandom;
+
+/** The DDoS tab with auto flood on at a fixed burst size and server capacity, in virtual time. */
+public final class DDoSTrial implements Trial {
+
+    private static final String[] METRICS = {"breaches", "peak_queued", "breach_free_s"};
+
+    private final int burstSize;
+    private final int capacity;
+    private final int steps;
+    private final DDoSModel model;
+
+    public DDoSTrial(int burstSize, int capacity, int seconds) {
+        this.burstSize = burstSize;
+        this.capacity = capacity;
+        this.steps = (int) (seconds * 1000L / DDoSModel.STEP_MS);
+        this.model = new DDoSModel(capacity, new SplittableRandom(0));
+    }
+
+    @Override public String[] metrics() { return METRICS; }
+
+    @Override
+    public void run(SplittableRandom rng, double[] out) {
+        model.reset(capacity, rng);
+        model.setAutoBurst(burstSize);
+        int peak = 0;
+        long firstBreach = -1;
+        for (int s = 0; s < steps; s++) {
+            if (model.step() > 0 && firstBreach < 0) firstBreach = s;
+            peak = Math.max(peak, model.queued());
+        }
+        out[0] = model.breaches();
+        out[1] = peak;
+        // runs without a breach count as breach-free for the whole run
+        out[2] = (firstBreach < 0 ? steps : firstBreach) * DDoSModel.STEP_MS / 1000.0;
+    }
+}
@@ -0,0 +1,95 @@
+package montecarlo;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.DoublePredicate;
+
+/** Per-scenario metrics from one {@link MonteCarloRunner} run, with 95% confidence intervals. */
+public final class MonteCarloResult {
+
+    private static final double Z95 = 1.959964;
+
+    /** A point estimate and its 95% confidence interval. */
+    public record Estimate(double value, double low, double high) {
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%.4g [%.4g, %.4g]", value, low, high);
+        }
+    }
+
+    private final String[] metrics;
+    private final double[] values;
+    private final int scenarios;
+    private final int threads;
+    private final long elapsedNanos;
+
+    MonteCarloResult(String[] metrics, double[] values, int scenarios, int threads, long elapsedNanos) {
+        this.metrics = metrics;
+        this.values = values;
+        this.scenarios = scenarios;
+        this.threads = threads;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int scenarios() { return scenarios; }
+    public int threads() { return threads; }
+    public long elapsedNanos() { return elapsedNanos; }
+    public double scenariosPerSecond() { return scenarios / (elapsedNanos / 1e9); }
+
+    public double value(int scenario, String metric) { return values[scenario * metrics.length + index(metric)]; }
+
+    /** Sample mean with a normal-approximation interval. */
+    public Estimate mean(String metric) {
+        int k = index(metric);
+        double sum = 0;
+        for (int i = 0; i < scenarios; i++) sum += values[i * metrics.length + k];
+        double mean = sum / scenarios;
+        double ss = 0;
+        for (int i = 0; i < scenarios; i++) {
+            double d = values[i * metrics.length + k] - mean;
+            ss += d * d;
+        }
+        double half = scenarios > 1 ? Z95 * Math.sqrt(ss / (scenarios - 1) / scenarios) : Double.NaN;
+        return new Estimate(mean, mean - half, mean + half);
+    }
+
+    /** Share of scenarios whose metric satisfies {@code test}, with a Wilson score interval. */
+    public Estimate probability(String metric, DoublePredicate test) {
+        int k = index(metric);
+        long hits = 0;
+        for (int i = 0; i < scenarios; i++) if (test.test(values[i * metrics.length + k])) hits++;
+        double n = scenarios, p = hits / n, z2 = Z95 * Z95;
+        double centre = (p + z2 / (2 * n)) / (1 + z2 / n);
+        double half = Z95 * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n)) / (1 + z2 / n);
+        return new Estimate(p, Math.max(0, centre - half), Math.min(1, centre + half));
+    }
+
+    /** Nearest-rank percentile, {@code p} in (0, 100]. */
+    public double percentile(String metric, double p) {
+        int k = index(metric);
+        double[] v = new double[scenarios];
+        for (int i = 0; i < scenarios; i++) v[i] = values[i * metrics.length + k];
+        Arrays.sort(v);
+        return v[Math.max(0, Math.min(scenarios - 1, (int) Math.ceil(p / 100 * scenarios) - 1))];
+    }
+
+    /** True when both runs produced exactly the same metrics for every scenario. */
+    public boolean sameAs(MonteCarloResult o) {
+        return Arrays.equals(metrics, o.metrics) && Arrays.equals(values, o.values);
+    }
+
+    /** One line per metric: mean with CI, p5 / p50 / p95, max. */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (String m : metrics) {
+            sb.append(String.format(Locale.ROOT, "  %-18s mean %-32s p5 %-9.4g p50 %-9.4g p95 %-9.4g max %.4g%n", m, mean(m),
+                    percentile(m, 5), percentile(m, 50), percentile(m, 95), percentile(m, 100)));
+        }
+        return sb.toString();
+    }
+
+    private int index(String metric) {
+        for (int i = 0; i < metrics.length; i++) if (metrics[i].equals(metric)) return i;
+        throw new IllegalArgumentException("unknown metric " + metric);
+    }
+}
@@ -0,0 +1,77 @@
+package montecarlo;
+
+import metrics.Counter;
+import metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs many seeded {@link Trial}s across threads. Scenario {@code i} always gets the i-th stream
+ * split from one root {@link SplittableRandom}, whichever thread runs it, and its metrics land in
+ * row {@code i} of the result; results are therefore identical for a seed at any thread count.
+ * Workers claim small chunks of scenarios from a shared cursor so uneven scenarios balance out.
+ */
+public final class MonteCarloRunner {
+
+    private static final int CHUNK = 8;
+    private static final Counter SCENARIOS = Metrics.counter("montecarlo.scenarios");
+
+    private MonteCarloRunner() {}
+
+    public static MonteCarloResult run(Supplier<? extends Trial> factory, int scenarios, long seed, int threads) {
+        if (scenarios < 1) throw new IllegalArgumentException("scenarios must be positive");
+        if (threads < 1) throw new IllegalArgumentException("threads must be positive");
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[scenarios];
+        for (int i = 0; i < scenarios; i++) streams[i] = root.split();
+
+        Trial first = factory.get();
+        String[] metrics = first.metrics();
+        int m = metrics.length;
+        double[] values = new double[scenarios * m];
+        AtomicInteger cursor = new AtomicInteger();
+        RuntimeException[] failure = new RuntimeException[1];
+
+        long t0 = System.nanoTime();
+        List<Thread> workers = new ArrayList<>();
+        for (int w = 0; w < threads; w++) {
+            Trial trial = w == 0 ? first : factory.get();
+            Thread t = new Thread(() -> {
+                double[] out = new double[m];
+                try {
+                    for (int start; (start = cursor.getAndAdd(CHUNK)) < scenarios; ) {
+                        int end = Math.min(scenarios, start + CHUNK);
+                        for (int i = start; i < end; i++) {
+                            trial.run(streams[i], out);
+                            System.arraycopy(out, 0, values, i * m, m);
+                        }
+                        SCENARIOS.add(end - start);
+                    }
+                } catch (RuntimeException e) {
+                    synchronized (failure) { if (failure[0] == null) failure[0] = e; }
+                    cursor.set(scenarios);
+                }
+            }, "montecarlo-" + w);
+            t.setDaemon(true);
+            workers.add(t);
+            t.start();
+        }
+        try {
+            for (Thread t : workers) t.join();
+        } catch (InterruptedException e) {
+            cursor.set(scenarios);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        }
+        if (failure[0] != null) throw failure[0];
+        return new MonteCarloResult(metrics, values, scenarios, threads, System.nanoTime() - t0);
+    }
+
+    public static MonteCarloResult run(Supplier<? extends Trial> factory, int scenarios, long seed) {
+        return run(factory, scenarios, seed, Runtime.getRuntime().availableProcessors());
+    }
+}
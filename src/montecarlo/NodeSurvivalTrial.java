@@ -0,0 +1,73 @@
+package montecarlo;
+
+import cti.Attacker;
+import cti.NodeModel;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Poisson attack arrivals of random type and intensity on a {@link NodeModel}, sampled every
+ * {@value #TICK_MS} ms of virtual time. A node counts as down once its CPU has stayed at or above
+ * {@value #SATURATED}% for {@value #DOWN_MS} ms without a break.
+ */
+public final class NodeSurvivalTrial implements Trial {
+
+    static final int SATURATED = 90;
+    static final long DOWN_MS = 5000;
+    static final long TICK_MS = 100;
+
+    private static final String[] METRICS = {"down_nodes", "peak_saturated", "mean_cpu"};
+    private static final Attacker.AttackType[] TYPES = Attacker.AttackType.values();
+
+    private final int nodes;
+    private final double ratePerMs;
+    private final long durationMs;
+    private final long[] saturatedSince;
+
+    public NodeSurvivalTrial(int nodes, double attacksPerNodePerMinute, int seconds) {
+        this.nodes = nodes;
+        this.ratePerMs = nodes * attacksPerNodePerMinute / 60_000.0;
+        this.durationMs = seconds * 1000L;
+        this.saturatedSince = new long[nodes];
+    }
+
+    @Override public String[] metrics() { return METRICS; }
+
+    @Override
+    public void run(SplittableRandom rng, double[] out) {
+        NodeModel model = new NodeModel(nodes);
+        Arrays.fill(saturatedSince, -1);
+        boolean[] down = new boolean[nodes];
+        int downCount = 0, peak = 0;
+        double cpuSum = 0;
+        long samples = 0;
+        double next = ratePerMs > 0 ? -Math.log(1 - rng.nextDouble()) / ratePerMs : Double.MAX_VALUE;
+        for (long t = 0; t <= durationMs; t += TICK_MS) {
+            for (; next <= t; next += -Math.log(1 - rng.nextDouble()) / ratePerMs) {
+                model.applyAttack(rng.nextInt(nodes), TYPES[rng.nextInt(TYPES.length)], 1 + rng.nextInt(10), (long) next);
+            }
+            model.advance(t);
+            int saturated = 0;
+            for (int n = 0; n < nodes; n++) {
+                int cpu = model.cpu(n);
+                cpuSum += cpu;
+                if (cpu < SATURATED) {
+                    saturatedSince[n] = -1;
+                    continue;
+                }
+                saturated++;
+                if (saturatedSince[n] < 0) saturatedSince[n] = t;
+                if (!down[n] && t - saturatedSince[n] >= DOWN_MS) {
+                    down[n] = true;
+                    downCount++;
+                }
+            }
+            samples += nodes;
+            peak = Math.max(peak, saturated);
+        }
+        out[0] = downCount;
+        out[1] = peak;
+        out[2] = cpuSum / samples;
+    }
+}
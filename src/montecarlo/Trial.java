@@ -0,0 +1,16 @@
+package montecarlo;
+
+import java.util.SplittableRandom;
+
+/**
+ * One seeded scenario. {@link MonteCarloRunner} gives every worker thread its own instance, so
+ * implementations may keep and reuse state between runs, but a run must depend only on the
+ * generator it is handed.
+ */
+public interface Trial {
+
+    /** Metric names, one per slot of the array {@link #run} fills. */
+    String[] metrics();
+
+    void run(SplittableRandom rng, double[] out);
+}